@@ -0,0 +1,44 @@
+package com.batch.spring_batch.benchmark;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Embedded H2 (PostgreSQL mode) with the same {@code schema-h2.sql} the tests use.
+ */
+final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    static DataSource create(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql")).execute(dataSource);
+        return dataSource;
+    }
+
+    /** Bulk-inserts {@code count} fully populated rows and returns the first generated id. */
+    static long insertQuotes(JdbcTemplate jdbcTemplate, int count, LocalDateTime createdTime, boolean optIn) {
+        jdbcTemplate.update("INSERT INTO quote (quote_id, basic_quote_id, customer_name, customer_email, "
+                        + "customer_phone, request_text, created_time, opt_in) "
+                        + "SELECT 'Q-' || x, 'BQ-' || x, 'Customer ' || x, 'customer' || x || '@example.com', "
+                        + "'+4470000' || x, REPEAT('request text ', 16), ?, ? FROM SYSTEM_RANGE(1, ?)",
+                Timestamp.valueOf(createdTime), optIn, count);
+        // Identity values are never reused, so derive the range from what was just inserted
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM quote", Long.class);
+        return maxId - count + 1;
+    }
+
+    static void shutdown(DataSource dataSource) {
+        new JdbcTemplate(dataSource).execute("SHUTDOWN");
+    }
+}
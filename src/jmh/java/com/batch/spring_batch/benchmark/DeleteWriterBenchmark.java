@@ -0,0 +1,131 @@
+package com.batch.spring_batch.benchmark;
+
+import com.batch.spring_batch.batch.BatchConfig;
+import com.batch.spring_batch.batch.QuoteArchiveWriter;
+import com.batch.spring_batch.batch.QuoteArchivingDeleteWriter;
+import com.batch.spring_batch.batch.QuoteIdArrayDeleteWriter;
+import com.batch.spring_batch.batch.QuoteRunTime;
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.dto.Quote;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One chunk of deletes through the archiving delete writer (locking SELECT,
+ * DELETE and a gzip archive member forced to disk, as compositeDeleteWriter
+ * builds it), through quoteDeleteWriter alone, and through the id-array
+ * writer. Every invocation first inserts the rows it deletes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DeleteWriterBenchmark {
+
+    @Param({"50", "1000"})
+    public int chunkSize;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Path archiveDirectory;
+    private QuoteArchivingDeleteWriter archivingDeleteWriter;
+    private JdbcBatchItemWriter<Quote> quoteDeleteWriter;
+    private QuoteIdArrayDeleteWriter idArrayDeleteWriter;
+    private LocalDateTime twoYearsAgo;
+
+    private Chunk<Quote> chunk;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        dataSource = BenchmarkDatabase.create("deleteWriterBenchmark");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        BatchConfig batchConfig = new BatchConfig(null, null, dataSource, new QuoteBatchProperties());
+        // Outside a container the bean lifecycle has to be triggered by hand
+        quoteDeleteWriter = batchConfig.quoteDeleteWriter();
+        quoteDeleteWriter.afterPropertiesSet();
+        // The writer takes its window from the step execution of the benchmark thread
+        LocalDateTime runTime = LocalDateTime.now();
+        StepExecution stepExecution = new StepExecution("deleteOldQuotesStep", new JobExecution(1L));
+        QuoteRunTime.store(stepExecution.getExecutionContext(), runTime);
+        StepSynchronizationManager.register(stepExecution);
+        twoYearsAgo = runTime.minusYears(2);
+        // The step-scoped archive writer needs a step execution, so the archiving writer is assembled here
+        archiveDirectory = Files.createTempDirectory("deleteWriterBenchmark");
+        archivingDeleteWriter = new QuoteArchivingDeleteWriter(dataSource,
+                new QuoteArchiveWriter(archiveDirectory, "benchmark", Long.MAX_VALUE),
+                () -> twoYearsAgo);
+        archivingDeleteWriter.open(new ExecutionContext());
+        idArrayDeleteWriter = new QuoteIdArrayDeleteWriter(dataSource);
+        ids = new long[chunkSize];
+    }
+
+    @Setup(Level.Invocation)
+    public void insertChunk() {
+        long firstId = BenchmarkDatabase.insertQuotes(jdbcTemplate, chunkSize, LocalDateTime.now().minusYears(3), true);
+        List<Quote> items = new ArrayList<>(chunkSize);
+        for (int i = 0; i < chunkSize; i++) {
+            Quote quote = new Quote();
+            quote.setId(firstId + i);
+            items.add(quote);
+            ids[i] = firstId + i;
+        }
+        chunk = new Chunk<>(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        archivingDeleteWriter.close();
+        StepSynchronizationManager.close();
+        try (var files = Files.list(archiveDirectory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(archiveDirectory);
+        BenchmarkDatabase.shutdown(dataSource);
+    }
+
+    @Benchmark
+    public void archivingDeleteWriter() throws Exception {
+        archivingDeleteWriter.write(chunk);
+    }
+
+    @Benchmark
+    public void quoteDeleteWriter() throws Exception {
+        quoteDeleteWriter.write(chunk);
+    }
+
+    @Benchmark
+    public int idArrayDeleteWriter() {
+        return idArrayDeleteWriter.delete(ids, chunkSize, twoYearsAgo);
+    }
+}
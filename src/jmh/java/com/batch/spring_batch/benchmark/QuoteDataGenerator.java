@@ -0,0 +1,89 @@
+package com.batch.spring_batch.benchmark;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Bulk-loads synthetic quotes into H2 (PostgreSQL mode) with set-based
+ * {@code INSERT ... SELECT FROM SYSTEM_RANGE} batches.
+ * <p>
+ * Rows get increasing ids and a {@code created_time} that rises with the id
+ * over {@code historyDays}, with up to a day of jitter, as a live table would.
+ * A small share of rows is backdated to a random point in the history, and
+ * {@code opt_in} is true for {@code optInRatio} of the rows. With the default
+ * three years of history about a third of the table is past the two-year
+ * purge cutoff and most of the rest falls in the opt-out window.
+ */
+public class QuoteDataGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(QuoteDataGenerator.class);
+
+    private static final int BATCH_ROWS = 500_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private int historyDays = 3 * 365;
+    private double optInRatio = 0.7;
+    private double backdatedRatio = 0.01;
+
+    public QuoteDataGenerator(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public QuoteDataGenerator historyDays(int historyDays) {
+        this.historyDays = historyDays;
+        return this;
+    }
+
+    public QuoteDataGenerator optInRatio(double optInRatio) {
+        this.optInRatio = optInRatio;
+        return this;
+    }
+
+    public QuoteDataGenerator backdatedRatio(double backdatedRatio) {
+        this.backdatedRatio = backdatedRatio;
+        return this;
+    }
+
+    public void generate(long rows, long seed) {
+        // RAND() is seeded per session, so the whole load runs on one connection
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            generate(new JdbcTemplate(new SingleConnectionDataSource(con, true)), rows, seed);
+            return null;
+        });
+    }
+
+    private void generate(JdbcTemplate jdbcTemplate, long rows, long seed) {
+        long started = System.nanoTime();
+        // Seeding makes repeated runs produce the same data
+        jdbcTemplate.queryForObject("SELECT RAND(?)", Double.class, (int) seed);
+
+        LocalDateTime oldest = LocalDateTime.now().minusDays(historyDays);
+        long historySeconds = Duration.ofDays(historyDays).toSeconds();
+        for (long offset = 0; offset < rows; offset += BATCH_ROWS) {
+            long batch = Math.min(BATCH_ROWS, rows - offset);
+            jdbcTemplate.update("INSERT INTO quote (quote_id, basic_quote_id, customer_name, customer_email, "
+                            + "customer_phone, request_text, created_time, opt_in) "
+                            + "SELECT 'Q-' || x, 'BQ-' || MOD(x, 100000), 'Customer ' || MOD(x, 250000), "
+                            + "'customer' || MOD(x, 250000) || '@example.com', '+44700' || MOD(x, 1000000), "
+                            + "'Quote request for policy ' || x, "
+                            + "DATEADD('SECOND', CASE WHEN RAND() < CAST(? AS DOUBLE PRECISION) "
+                            + "THEN CAST(RAND() * CAST(? AS BIGINT) AS BIGINT) "
+                            + "ELSE CAST(? AS BIGINT) * x / CAST(? AS BIGINT) - CAST(RAND() * 86400 AS BIGINT) END, "
+                            + "CAST(? AS TIMESTAMP)), "
+                            + "RAND() < CAST(? AS DOUBLE PRECISION) "
+                            + "FROM SYSTEM_RANGE(CAST(? AS BIGINT), CAST(? AS BIGINT))",
+                    backdatedRatio, historySeconds, historySeconds, rows, Timestamp.valueOf(oldest),
+                    optInRatio, offset + 1, offset + batch);
+            log.info("Generated {} of {} quotes", offset + batch, rows);
+        }
+        log.info("Generated {} quotes in {} ms", rows, (System.nanoTime() - started) / 1_000_000);
+    }
+}
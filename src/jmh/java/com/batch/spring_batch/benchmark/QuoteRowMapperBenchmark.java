@@ -0,0 +1,88 @@
+package com.batch.spring_batch.benchmark;
+
+import com.batch.spring_batch.batch.QuoteProjection;
+import com.batch.spring_batch.dto.Quote;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Cost of fetching and mapping one reader page with the {@link QuoteProjection}
+ * mappers, against the original all-columns, name-based mapping as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QuoteRowMapperBenchmark {
+
+    private static final String ALL_COLUMNS = "SELECT id, quote_id, basic_quote_id, customer_name, customer_email, "
+            + "customer_phone, request_text, created_time, opt_in";
+
+    private static final RowMapper<Quote> NAME_BASED_MAPPER = (rs, rowNum) -> {
+        Quote q = new Quote();
+        q.setId(rs.getLong("id"));
+        q.setQuoteId(rs.getString("quote_id"));
+        q.setBasicQuoteId(rs.getString("basic_quote_id"));
+        q.setCustomerName(rs.getString("customer_name"));
+        q.setCustomerEmail(rs.getString("customer_email"));
+        q.setCustomerPhone(rs.getString("customer_phone"));
+        q.setRequestText(rs.getString("request_text"));
+        q.setCreatedTime(rs.getTimestamp("created_time").toLocalDateTime());
+        q.setOptIn(rs.getBoolean("opt_in"));
+        return q;
+    };
+
+    @Param({"50", "1000"})
+    public int pageSize;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private String pageSuffix;
+
+    @Setup
+    public void setUp() {
+        dataSource = BenchmarkDatabase.create("rowMapperBenchmark");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        BenchmarkDatabase.insertQuotes(jdbcTemplate, 5000, LocalDateTime.now().minusMonths(6), true);
+        pageSuffix = " FROM quote WHERE id > 1000 ORDER BY id LIMIT " + pageSize;
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabase.shutdown(dataSource);
+    }
+
+    @Benchmark
+    public List<Quote> allColumnsNameBased() {
+        return jdbcTemplate.query(ALL_COLUMNS + pageSuffix, NAME_BASED_MAPPER);
+    }
+
+    @Benchmark
+    public List<Quote> optInProjection() {
+        return jdbcTemplate.query(QuoteProjection.OPT_IN.selectClause() + pageSuffix, QuoteProjection.OPT_IN.rowMapper());
+    }
+
+    @Benchmark
+    public List<Quote> idProjection() {
+        return jdbcTemplate.query(QuoteProjection.ID.selectClause() + pageSuffix, QuoteProjection.ID.rowMapper());
+    }
+}
@@ -0,0 +1,73 @@
+package com.batch.spring_batch.benchmark;
+
+import com.batch.spring_batch.batch.BatchConfig;
+import com.batch.spring_batch.batch.QuoteRunTime;
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.dto.Quote;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * Per-item cost of quoteUpdateProcessor on a mix of old and recent quotes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QuoteUpdateProcessorBenchmark {
+
+    private static final int ITEMS = 1024;
+
+    private ItemProcessor<Quote, Quote> processor;
+    private Quote[] quotes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        processor = new BatchConfig(null, null, null, new QuoteBatchProperties()).quoteUpdateProcessor();
+        LocalDateTime now = LocalDateTime.now();
+        // The processor takes its window from the step execution of the benchmark thread
+        StepExecution stepExecution = new StepExecution("updateOptInStep", new JobExecution(1L));
+        QuoteRunTime.store(stepExecution.getExecutionContext(), now);
+        StepSynchronizationManager.register(stepExecution);
+        quotes = new Quote[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            Quote quote = new Quote();
+            quote.setId((long) i);
+            quote.setCreatedTime(i % 4 == 0 ? now.minusDays(5) : now.minusMonths(3 + i % 12));
+            quote.setOptIn(true);
+            quotes[i] = quote;
+        }
+    }
+
+    @Benchmark
+    public Quote process() throws Exception {
+        Quote quote = quotes[next];
+        next = (next + 1) & (ITEMS - 1);
+        quote.setOptIn(true);
+        return processor.process(quote);
+    }
+
+    @TearDown
+    public void tearDown() {
+        StepSynchronizationManager.close();
+    }
+}
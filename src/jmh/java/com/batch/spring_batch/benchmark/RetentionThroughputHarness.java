@@ -0,0 +1,190 @@
+package com.batch.spring_batch.benchmark;
+
+import com.batch.spring_batch.SpringBatchApplication;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.AbstractStep;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Runs processQuotesJob end to end against synthetic data in H2 (PostgreSQL
+ * mode) and prints rows/sec, chunk latency percentiles (read, process, write
+ * and commit of one chunk) and peak heap per step.
+ * <pre>
+ * ./mvnw -Pbenchmark test-compile exec:exec@harness -Dharness.args="rows=1000000 batch.quote.delete.mode=ID_ARRAY"
+ * </pre>
+ * Options ({@code key=value}, optionally prefixed with {@code --}):
+ * {@code rows} (default 100000), {@code seed}, {@code db-dir} for a file-based
+ * database instead of memory (needed for tens of millions of rows), and any
+ * {@code batch.quote.*} or {@code spring.*} property to compare step modes.
+ */
+public class RetentionThroughputHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        long rows = Long.parseLong(options.getOrDefault("rows", "100000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        String dbDir = options.get("db-dir");
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put("spring.datasource.primary.jdbc-url", "jdbc:h2:mem:harness-meta;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        properties.put("spring.datasource.primary.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.batch.jdbc-url", dbDir == null
+                ? "jdbc:h2:mem:harness-quotes;DB_CLOSE_DELAY=-1;MODE=PostgreSQL"
+                : "jdbc:h2:file:" + dbDir + "/quotes;MODE=PostgreSQL");
+        properties.put("spring.datasource.batch.driver-class-name", "org.h2.Driver");
+        properties.put("spring.flyway.enabled", "false");
+        properties.put("spring.batch.job.enabled", "false");
+        properties.put("batch.quote.scheduler.enabled", "false");
+        properties.put("batch.quote.archive.directory", Path.of("target/archive").toAbsolutePath().toString());
+        properties.put("debug", "false");
+        options.forEach((key, value) -> {
+            if (key.startsWith("batch.quote.") || key.startsWith("spring.")) {
+                properties.put(key, value);
+            }
+        });
+
+        // Passed as command-line arguments so they take precedence over application.properties
+        String[] applicationArgs = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBatchApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(applicationArgs)) {
+            DataSource metadataDataSource = context.getBean("dataSource", DataSource.class);
+            DataSource quoteDataSource = context.getBean("batchDataSource", DataSource.class);
+            new ResourceDatabasePopulator(new ClassPathResource("org/springframework/batch/core/schema-h2.sql"))
+                    .execute(metadataDataSource);
+            new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql")).execute(quoteDataSource);
+
+            new QuoteDataGenerator(quoteDataSource).generate(rows, seed);
+
+            Probe probe = new Probe();
+            for (Step step : context.getBeansOfType(Step.class).values()) {
+                if (step instanceof AbstractStep abstractStep) {
+                    abstractStep.registerStepExecutionListener(probe);
+                }
+                if (step instanceof TaskletStep taskletStep) {
+                    taskletStep.registerChunkListener(probe);
+                }
+            }
+
+            Job job = context.getBean("processQuotesJob", Job.class);
+            JobExecution execution = context.getBean("jobLauncher", JobLauncher.class).run(job, new JobParametersBuilder()
+                    .addLong("timestamp", System.currentTimeMillis())
+                    .toJobParameters());
+            probe.report(rows, execution);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator > 0) {
+                options.put(option.substring(0, separator), option.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Collects chunk latencies and heap peaks. Partition workers run
+     * concurrently, so state is kept per step name and per thread.
+     */
+    static class Probe implements StepExecutionListener, ChunkListener {
+
+        private final ThreadLocal<Long> chunkStart = new ThreadLocal<>();
+        private final Map<String, List<Long>> chunkNanos = new ConcurrentHashMap<>();
+        private final Map<String, Long> peakHeap = new ConcurrentHashMap<>();
+        private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+
+        @Override
+        public void beforeStep(StepExecution stepExecution) {
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        }
+
+        @Override
+        public ExitStatus afterStep(StepExecution stepExecution) {
+            long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            peakHeap.merge(stepExecution.getStepName(), peak, Math::max);
+            return null;
+        }
+
+        @Override
+        public void beforeChunk(ChunkContext context) {
+            chunkStart.set(System.nanoTime());
+        }
+
+        @Override
+        public void afterChunk(ChunkContext context) {
+            long elapsed = System.nanoTime() - chunkStart.get();
+            String stepName = context.getStepContext().getStepName();
+            List<Long> samples = chunkNanos.computeIfAbsent(stepName, name -> new ArrayList<>());
+            synchronized (samples) {
+                samples.add(elapsed);
+            }
+        }
+
+        void report(long rows, JobExecution execution) {
+            System.out.printf("%nprocessQuotesJob over %,d rows: %s%n", rows, execution.getExitStatus().getExitCode());
+            System.out.printf("%-42s %12s %12s %10s %10s %10s %10s %12s%n",
+                    "step", "written", "rows/sec", "p50 ms", "p95 ms", "p99 ms", "max ms", "peak heap MB");
+            for (StepExecution step : execution.getStepExecutions()) {
+                double seconds = Math.max(1, java.time.Duration.between(step.getStartTime(), step.getEndTime()).toMillis()) / 1000.0;
+                long[] samples = sortedSamples(step.getStepName());
+                System.out.printf("%-42s %12d %12.0f %10.2f %10.2f %10.2f %10.2f %12.1f%n",
+                        step.getStepName(), step.getWriteCount(), step.getWriteCount() / seconds,
+                        percentile(samples, 50), percentile(samples, 95), percentile(samples, 99),
+                        percentile(samples, 100),
+                        peakHeap.getOrDefault(step.getStepName(), 0L) / (1024.0 * 1024.0));
+            }
+        }
+
+        private long[] sortedSamples(String stepName) {
+            List<Long> samples = chunkNanos.getOrDefault(stepName, List.of());
+            long[] sorted;
+            synchronized (samples) {
+                sorted = samples.stream().mapToLong(Long::longValue).toArray();
+            }
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        private static double percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
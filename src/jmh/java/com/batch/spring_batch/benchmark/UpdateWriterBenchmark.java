@@ -0,0 +1,94 @@
+package com.batch.spring_batch.benchmark;
+
+import com.batch.spring_batch.batch.BatchConfig;
+import com.batch.spring_batch.batch.QuoteRunTime;
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.dto.Quote;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One chunk through quoteUpdateWriter. The writer only opts out rows that are
+ * still opted in, so every invocation first opts the chunk's rows back in and
+ * each statement really changes its row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UpdateWriterBenchmark {
+
+    @Param({"50", "1000"})
+    public int chunkSize;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcBatchItemWriter<Quote> quoteUpdateWriter;
+    private Chunk<Quote> chunk;
+    private long firstId;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = BenchmarkDatabase.create("updateWriterBenchmark");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        LocalDateTime createdTime = LocalDateTime.now().minusMonths(6);
+        firstId = BenchmarkDatabase.insertQuotes(jdbcTemplate, chunkSize, createdTime, true);
+        quoteUpdateWriter = new BatchConfig(null, null, dataSource, new QuoteBatchProperties()).quoteUpdateWriter();
+        quoteUpdateWriter.afterPropertiesSet();
+        // The writer takes its window from the step execution of the benchmark thread
+        StepExecution stepExecution = new StepExecution("updateOptInStep", new JobExecution(1L));
+        QuoteRunTime.store(stepExecution.getExecutionContext(), LocalDateTime.now());
+        StepSynchronizationManager.register(stepExecution);
+
+        List<Quote> items = new ArrayList<>(chunkSize);
+        for (int i = 0; i < chunkSize; i++) {
+            Quote quote = new Quote();
+            quote.setId(firstId + i);
+            quote.setCreatedTime(createdTime);
+            quote.setOptIn(false);
+            items.add(quote);
+        }
+        chunk = new Chunk<>(items);
+    }
+
+    @Setup(Level.Invocation)
+    public void optInAgain() {
+        jdbcTemplate.update("UPDATE quote SET opt_in = TRUE WHERE id BETWEEN ? AND ?", firstId, firstId + chunkSize - 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        StepSynchronizationManager.close();
+        BenchmarkDatabase.shutdown(dataSource);
+    }
+
+    @Benchmark
+    public void quoteUpdateWriter() throws Exception {
+        quoteUpdateWriter.write(chunk);
+    }
+}
@@ -1,8 +1,10 @@
 package com.batch.spring_batch;
 
+import com.batch.spring_batch.scheduler.QuoteJobRunner;
 import de.codecentric.boot.admin.server.config.EnableAdminServer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
@@ -10,6 +12,10 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableScheduling
 public class SpringBatchApplication {
 	public static void main(String[] args) {
-		SpringApplication.run(SpringBatchApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(SpringBatchApplication.class, args);
+		if (context.getBean(QuoteJobRunner.class).hasRun()) {
+			// One-shot mode (the job profile): stop, with the job's outcome as exit code
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.batch.spring_batch.audit;
+
+/**
+ * What the steps report to {@link QuoteAuditSink}. Chunk events are many and
+ * may be dropped under overload; the step and job markers are few and are
+ * always queued, since they trigger the summaries.
+ */
+public sealed interface AuditEvent {
+
+    long jobExecutionId();
+
+    /**
+     * One committed chunk. The id range is empty ({@code minId > maxId}) for
+     * tasklet steps, which write without handing items to listeners.
+     */
+    record ChunkCommitted(long jobExecutionId, String stepName, long minId, long maxId, long count,
+                          long durationNanos) implements AuditEvent {
+    }
+
+    record StepFinished(long jobExecutionId, String stepName, String status, long writeCount) implements AuditEvent {
+    }
+
+    record JobFinished(long jobExecutionId, String jobName, String status) implements AuditEvent {
+    }
+}
@@ -0,0 +1,109 @@
+package com.batch.spring_batch.audit;
+
+import com.batch.spring_batch.dto.Quote;
+import java.util.concurrent.Future;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+
+/**
+ * Turns step callbacks into {@link AuditEvent}s for the {@link QuoteAuditSink}:
+ * one event per committed chunk with its step, id range, row count and
+ * duration, plus a marker when a step or the job finishes. The chunk thread
+ * only fills in a few thread-local fields and queues one record.
+ * <p>
+ * Chunk steps report the items they wrote. Tasklet steps never hand items to
+ * listeners, so for them the row count is the step's write count delta.
+ */
+public class QuoteAuditListener implements StepExecutionListener, ChunkListener, ItemWriteListener<Object>,
+        JobExecutionListener {
+
+    private final QuoteAuditSink sink;
+    private final ThreadLocal<ChunkState> state = ThreadLocal.withInitial(ChunkState::new);
+
+    public QuoteAuditListener(QuoteAuditSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        state.get().reset(context.getStepContext().getStepExecution().getWriteCount());
+    }
+
+    @Override
+    public void afterWrite(Chunk<?> items) {
+        ChunkState chunk = state.get();
+        chunk.itemsSeen = true;
+        chunk.count += items.size();
+        for (Object item : items) {
+            Long id = idOf(item);
+            if (id != null) {
+                chunk.minId = Math.min(chunk.minId, id);
+                chunk.maxId = Math.max(chunk.maxId, id);
+            }
+        }
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkState chunk = state.get();
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        long count = chunk.itemsSeen ? chunk.count : stepExecution.getWriteCount() - chunk.writeCountBefore;
+        if (count == 0) {
+            // The last, empty iteration of a step
+            return;
+        }
+        sink.offer(new AuditEvent.ChunkCommitted(stepExecution.getJobExecutionId(), stepExecution.getStepName(),
+                chunk.minId, chunk.maxId, count, System.nanoTime() - chunk.start));
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        sink.publish(new AuditEvent.StepFinished(stepExecution.getJobExecutionId(), stepExecution.getStepName(),
+                stepExecution.getStatus().toString(), stepExecution.getWriteCount()));
+        return null;
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        sink.publish(new AuditEvent.JobFinished(jobExecution.getId(), jobExecution.getJobInstance().getJobName(),
+                jobExecution.getStatus().toString()));
+    }
+
+    // The pipelined update step writes futures of quotes
+    private static Long idOf(Object item) {
+        if (item instanceof Quote quote) {
+            return quote.getId();
+        }
+        if (item instanceof Future<?> future && future.state() == Future.State.SUCCESS
+                && future.resultNow() instanceof Quote quote) {
+            return quote.getId();
+        }
+        return null;
+    }
+
+    private static final class ChunkState {
+        long start;
+        long writeCountBefore;
+        boolean itemsSeen;
+        long count;
+        long minId;
+        long maxId;
+
+        void reset(long writeCount) {
+            start = System.nanoTime();
+            writeCountBefore = writeCount;
+            itemsSeen = false;
+            count = 0;
+            minId = Long.MAX_VALUE;
+            maxId = Long.MIN_VALUE;
+        }
+    }
+}
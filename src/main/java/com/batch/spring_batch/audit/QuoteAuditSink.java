@@ -0,0 +1,222 @@
+package com.batch.spring_batch.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Takes audit events off the chunk threads. Events go into a lock-free queue
+ * whose capacity is enforced with a CAS-reserved counter, and a single
+ * background thread drains it, folds the chunk events into per-step and
+ * per-job totals and logs one summary line per step and per job execution
+ * (logger {@code quote.audit}) instead of a line per row.
+ * <p>
+ * When the queue is full, a chunk event is either dropped right away
+ * ({@link OverflowPolicy#DROP}) or waits up to the block timeout for room
+ * ({@link OverflowPolicy#BLOCK}) and is dropped after that. Dropped events are
+ * counted in {@code quote.batch.audit.dropped} and in the job summary.
+ */
+public class QuoteAuditSink implements AutoCloseable {
+
+    public enum OverflowPolicy {
+        /** Drop the event and count it; the chunk thread never waits. */
+        DROP,
+        /** Wait for room up to the block timeout, then drop and count. */
+        BLOCK
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Logger log = LoggerFactory.getLogger("quote.audit");
+
+    private final ConcurrentLinkedQueue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong droppedTotal = new AtomicLong();
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final Counter dropped;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    // Only touched by the drainer thread
+    private final Map<Long, JobTotals> jobs = new HashMap<>();
+
+    public QuoteAuditSink(int capacity, OverflowPolicy overflowPolicy, Duration blockTimeout, MeterRegistry registry) {
+        this(capacity, overflowPolicy, blockTimeout, registry, true);
+    }
+
+    // Tests fill the queue before the background thread runs
+    QuoteAuditSink(int capacity, OverflowPolicy overflowPolicy, Duration blockTimeout, MeterRegistry registry,
+                   boolean startDrainer) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.dropped = Counter.builder("quote.batch.audit.dropped")
+                .description("Audit events dropped because the audit queue was full")
+                .register(registry);
+        Gauge.builder("quote.batch.audit.queued", size, AtomicInteger::get)
+                .description("Audit events waiting for the background writer")
+                .register(registry);
+        this.drainer = Thread.ofPlatform().daemon().name("quote-audit").unstarted(this::drain);
+        if (startDrainer) {
+            drainer.start();
+        }
+    }
+
+    void startDrainer() {
+        drainer.start();
+    }
+
+    /**
+     * Queues a chunk event according to the overflow policy.
+     *
+     * @return false if the event was dropped
+     */
+    public boolean offer(AuditEvent.ChunkCommitted event) {
+        if (tryReserve()) {
+            queue.offer(event);
+            return true;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + blockTimeoutNanos;
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (tryReserve()) {
+                    queue.offer(event);
+                    return true;
+                }
+            }
+        }
+        dropped.increment();
+        droppedTotal.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Queues a step or job marker regardless of the capacity; there is one per
+     * step execution, and losing it would lose the summary.
+     */
+    public void publish(AuditEvent event) {
+        size.incrementAndGet();
+        queue.offer(event);
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            AuditEvent event = queue.poll();
+            if (event == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            size.decrementAndGet();
+            try {
+                handle(event);
+            } catch (RuntimeException e) {
+                log.warn("Could not record audit event {}", event, e);
+            }
+        }
+    }
+
+    private void handle(AuditEvent event) {
+        JobTotals job = jobs.computeIfAbsent(event.jobExecutionId(), id -> new JobTotals());
+        switch (event) {
+            case AuditEvent.ChunkCommitted chunk -> job.step(chunk.stepName()).add(chunk);
+            case AuditEvent.StepFinished step -> {
+                StepTotals totals = job.step(step.stepName());
+                log.info("Step [{}] of job execution {} {}: {} rows written, {} chunks{}, {} ms in chunks, slowest chunk {} ms",
+                        step.stepName(), step.jobExecutionId(), step.status(), step.writeCount(), totals.chunks,
+                        totals.idRange(), totals.nanos / 1_000_000, totals.maxNanos / 1_000_000);
+            }
+            case AuditEvent.JobFinished finished -> {
+                jobs.remove(finished.jobExecutionId());
+                long rows = job.steps.values().stream().mapToLong(step -> step.rows).sum();
+                long chunks = job.steps.values().stream().mapToLong(step -> step.chunks).sum();
+                log.info("Job [{}] execution {} {}: {} rows in {} audited chunks over {} steps; {} audit events dropped so far",
+                        finished.jobName(), finished.jobExecutionId(), finished.status(), rows, chunks,
+                        job.steps.size(), droppedTotal.get());
+            }
+        }
+    }
+
+    /**
+     * Lets the background thread write out what is still queued, then stops it.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        if (drainer.isAlive()) {
+            LockSupport.unpark(drainer);
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedTotal.get();
+    }
+
+    public int getQueuedCount() {
+        return size.get();
+    }
+
+    private static final class JobTotals {
+
+        final Map<String, StepTotals> steps = new LinkedHashMap<>();
+
+        StepTotals step(String stepName) {
+            return steps.computeIfAbsent(stepName, name -> new StepTotals());
+        }
+    }
+
+    private static final class StepTotals {
+
+        long rows;
+        long chunks;
+        long nanos;
+        long maxNanos;
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+
+        void add(AuditEvent.ChunkCommitted chunk) {
+            rows += chunk.count();
+            chunks++;
+            nanos += chunk.durationNanos();
+            maxNanos = Math.max(maxNanos, chunk.durationNanos());
+            if (chunk.minId() <= chunk.maxId()) {
+                minId = Math.min(minId, chunk.minId());
+                maxId = Math.max(maxId, chunk.maxId());
+            }
+        }
+
+        String idRange() {
+            return minId <= maxId ? " (ids " + minId + ".." + maxId + ")" : "";
+        }
+    }
+}
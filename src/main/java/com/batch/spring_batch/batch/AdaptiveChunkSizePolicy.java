@@ -0,0 +1,191 @@
+package com.batch.spring_batch.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+
+/**
+ * Chunk size that follows the measured lock hold time: the time from the
+ * first write of a chunk until its transaction has committed, i.e. how long
+ * the chunk's row locks block other sessions. After every chunk the size is
+ * scaled down in proportion when that time exceeds the target, and grown by
+ * half when it stays under half the target, always within {@code [minSize, maxSize]}.
+ * <p>
+ * The policy has to be registered as a listener of the step as well. Every
+ * step execution starts at {@code minSize} and keeps its own size, so the
+ * partition workers that share the instance each follow their own lock hold
+ * times, and a worker thread picks its size up through the step context.
+ * <p>
+ * Publishes the current size of each step execution as {@code quote.batch.chunk.size},
+ * tagged with its step name (so per partition), and every change as
+ * {@code quote.batch.chunk.resize}, tagged with the step.
+ */
+public class AdaptiveChunkSizePolicy extends CompletionPolicySupport
+        implements StepExecutionListener, ChunkListener, ItemWriteListener<Object> {
+
+    private final Logger log = LoggerFactory.getLogger(AdaptiveChunkSizePolicy.class);
+
+    private final String stepName;
+    private final int minSize;
+    private final int maxSize;
+    private final long targetNanos;
+    private final MeterRegistry registry;
+    private final Counter grown;
+    private final Counter shrunk;
+    // By step execution id; the gauge values by step name outlive the executions
+    private final Map<Long, AtomicInteger> sizes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> reported = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> firstWrite = new ThreadLocal<>();
+
+    public AdaptiveChunkSizePolicy(String stepName, int minSize, int maxSize, Duration targetLockHold,
+                                   MeterRegistry registry) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Chunk size bounds must satisfy 0 < minSize <= maxSize");
+        }
+        this.stepName = stepName;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetNanos = targetLockHold.toNanos();
+        this.registry = registry;
+        this.grown = Counter.builder("quote.batch.chunk.resize").tag("step", stepName).tag("direction", "grow")
+                .register(registry);
+        this.shrunk = Counter.builder("quote.batch.chunk.resize").tag("step", stepName).tag("direction", "shrink")
+                .register(registry);
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        sizes.put(stepExecution.getId(), new AtomicInteger(minSize));
+        report(stepExecution, minSize);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        sizes.remove(stepExecution.getId());
+        return null;
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        return new SizedContext(parent,
+                stepContext == null ? minSize : getCurrentSize(stepContext.getStepExecution()));
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return ((SizedContext) context).isComplete();
+    }
+
+    @Override
+    public void update(RepeatContext context) {
+        ((SizedContext) context).increment();
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        firstWrite.remove();
+    }
+
+    @Override
+    public void beforeWrite(Chunk<?> items) {
+        if (firstWrite.get() == null) {
+            firstWrite.set(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        Long start = firstWrite.get();
+        firstWrite.remove();
+        if (start != null) {
+            adjust(context.getStepContext().getStepExecution(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        firstWrite.remove();
+    }
+
+    /**
+     * @param lockHoldNanos first write to commit of the chunk of {@code stepExecution} that just finished
+     */
+    void adjust(StepExecution stepExecution, long lockHoldNanos) {
+        AtomicInteger current = sizes.get(stepExecution.getId());
+        if (current == null) {
+            return;
+        }
+        int size = current.get();
+        int next;
+        if (lockHoldNanos > targetNanos) {
+            next = Math.max(minSize, (int) (size * (double) targetNanos / lockHoldNanos));
+        } else if (lockHoldNanos < targetNanos / 2) {
+            next = Math.min(maxSize, size + Math.max(1, size / 2));
+        } else {
+            return;
+        }
+        if (next == size) {
+            return;
+        }
+        current.set(next);
+        report(stepExecution, next);
+        (next > size ? grown : shrunk).increment();
+        log.info("Step [{}] chunk size {} -> {} (lock hold {} ms, target {} ms)", stepExecution.getStepName(), size,
+                next, lockHoldNanos / 1_000_000, targetNanos / 1_000_000);
+    }
+
+    /**
+     * @return the size the next chunk of {@code stepExecution} commits at
+     */
+    public int getCurrentSize(StepExecution stepExecution) {
+        AtomicInteger current = sizes.get(stepExecution.getId());
+        return current == null ? minSize : current.get();
+    }
+
+    private void report(StepExecution stepExecution, int size) {
+        reported.computeIfAbsent(stepExecution.getStepName(), name -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder("quote.batch.chunk.size", value, AtomicInteger::get)
+                    .description("Current commit interval of an adaptively sized step")
+                    .tag("step", name)
+                    .strongReference(true)
+                    .register(registry);
+            return value;
+        }).set(size);
+    }
+
+    /** Counts the items of one chunk against the size the chunk started with. */
+    private static final class SizedContext extends RepeatContextSupport {
+
+        private final int size;
+
+        SizedContext(RepeatContext parent, int size) {
+            super(parent);
+            this.size = size;
+        }
+
+        boolean isComplete() {
+            return getStartedCount() >= size;
+        }
+    }
+}
@@ -1,55 +1,110 @@
 package com.batch.spring_batch.batch;
 
+import com.batch.spring_batch.audit.QuoteAuditListener;
+import com.batch.spring_batch.audit.QuoteAuditSink;
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
 import com.batch.spring_batch.dto.Quote;
+import com.batch.spring_batch.metrics.QuoteStepMetricsListener;
+import com.batch.spring_batch.metrics.ReplicaLagMeter;
+import io.micrometer.core.instrument.Metrics;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
-import org.springframework.batch.core.job.builder.JobBuilder;
-import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.builder.TaskletStepBuilder;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
-import org.springframework.batch.item.database.JdbcPagingItemReader;
 import org.springframework.batch.item.database.Order;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
-import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
 import org.springframework.batch.item.database.support.PostgresPagingQueryProvider;
 import org.springframework.batch.item.support.CompositeItemWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
 import org.springframework.transaction.PlatformTransactionManager;
 
 @Configuration
 @EnableBatchProcessing
+@EnableConfigurationProperties(QuoteBatchProperties.class)
 public class BatchConfig {
     Logger log = LoggerFactory.getLogger(BatchConfig.class);
 
     private final JobRepository jobRepository;
     private final PlatformTransactionManager transactionManager;
     private final DataSource batchDataSource;
+    private final QuoteBatchProperties properties;
+    private DataSource replicaDataSource;
+    private ReplicaLagMeter replicaLagMeter;
+    private DataSource metadataDataSource;
+    private PlatformTransactionManager metadataTransactionManager;
 
     public BatchConfig(JobRepository jobRepository,
-                       PlatformTransactionManager transactionManager,
-                       @Qualifier("batchDataSource") DataSource batchDataSource) {
+                       @Qualifier("batchTransactionManager") PlatformTransactionManager transactionManager,
+                       @Qualifier("batchDataSource") DataSource batchDataSource,
+                       QuoteBatchProperties properties) {
         log.info("Batch DataSource in use: {}", batchDataSource);
         this.jobRepository = jobRepository;
         this.transactionManager = transactionManager;
         this.batchDataSource = batchDataSource;
+        this.properties = properties;
+    }
+
+    // Only defined when spring.datasource.replica.jdbc-url is set
+    @Autowired(required = false)
+    public void setReplicaDataSource(@Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        log.info("Replica DataSource available for reads: {}", replicaDataSource);
+        this.replicaDataSource = replicaDataSource;
+    }
+
+    // Only defined with the replica; its lag is one of the write throttle's back-off signals
+    @Autowired(required = false)
+    public void setReplicaLagMeter(ReplicaLagMeter replicaLagMeter) {
+        this.replicaLagMeter = replicaLagMeter;
+    }
+
+    // The job repository's database, which purgeBatchMetadataStep cleans up
+    @Autowired(required = false)
+    public void setMetadataDataSource(@Qualifier("dataSource") DataSource metadataDataSource,
+                                      @Qualifier("transactionManager") PlatformTransactionManager metadataTransactionManager) {
+        this.metadataDataSource = metadataDataSource;
+        this.metadataTransactionManager = metadataTransactionManager;
     }
 
     // -----------------------------------------------------------------------
@@ -57,49 +112,42 @@ public class BatchConfig {
     // (Update records created between twoYearsAgo and oneMonthAgo: set opt_in=false)
     // -----------------------------------------------------------------------
     @Bean
-    public JdbcPagingItemReader<Quote> quoteReaderForUpdate() throws Exception {
-        Map<String, Object> params = new HashMap<>();
-        params.put("twoYearsAgo", LocalDateTime.now().minusYears(2));
-        params.put("oneMonthAgo", LocalDateTime.now().minusMonths(1));
-        params.put("optIn", true);
+    public QuoteWindowReader<Quote> quoteReaderForUpdate() {
+        QuoteBatchProperties.Reader settings = properties.getUpdate().getReader();
+        return updateReader("quoteReaderForUpdate", readDataSource("quoteReaderForUpdate", settings), settings);
+    }
 
-        PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
-        queryProvider.setSelectClause("SELECT id, quote_id, basic_quote_id, customer_name, customer_email, customer_phone, request_text, created_time, opt_in");
-        queryProvider.setFromClause("FROM quote");
-        // Use BETWEEN to restrict to records between two years and one month ago
-        queryProvider.setWhereClause("WHERE created_time BETWEEN :twoYearsAgo AND :oneMonthAgo AND opt_in = :optIn");
-        Map<String, Order> sortKeys = new HashMap<>();
-        sortKeys.put("id", Order.ASCENDING);
-        queryProvider.setSortKeys(sortKeys);
-
-        log.debug("Executing update query with parameters: {}", params);
-
-        return new JdbcPagingItemReaderBuilder<Quote>()
-                .name("quoteReaderForUpdate")
-                .dataSource(batchDataSource)
-                .queryProvider(queryProvider)
-                .parameterValues(params)
-                .rowMapper((rs, rowNum) -> {
-                    Quote q = new Quote();
-                    q.setId(rs.getLong("id"));
-                    q.setQuoteId(rs.getString("quote_id"));
-                    q.setBasicQuoteId(rs.getString("basic_quote_id"));
-                    q.setCustomerName(rs.getString("customer_name"));
-                    q.setCustomerEmail(rs.getString("customer_email"));
-                    q.setCustomerPhone(rs.getString("customer_phone"));
-                    q.setRequestText(rs.getString("request_text"));
-                    q.setCreatedTime(rs.getTimestamp("created_time").toLocalDateTime());
-                    q.setOptIn(rs.getBoolean("opt_in"));
-                    return q;
-                })
-                .pageSize(50)
-                .build();
+    // The window is computed when the step opens; its upper bound is the next run's high-water mark
+    private QuoteWindowReader<Quote> updateReader(String name, DataSource dataSource,
+                                                  QuoteBatchProperties.Reader settings) {
+        return windowReader(name, runTime -> runTime.minusMonths(1), (runTime, since) -> {
+            Map<String, Object> params = new HashMap<>();
+            params.put("twoYearsAgo", runTime.minusYears(2));
+            params.put("oneMonthAgo", runTime.minusMonths(1));
+            params.put("optIn", true);
+
+            // Use BETWEEN to restrict to records between two years and one month ago
+            String whereClause = "WHERE created_time BETWEEN :twoYearsAgo AND :oneMonthAgo AND opt_in = :optIn";
+            if (since != null) {
+                // BETWEEN is inclusive, so the previous run already handled the mark itself
+                params.put("highWater", since);
+                whereClause += " AND created_time > :highWater";
+            }
+
+            log.debug("Executing update query with parameters: {}", params);
+            return quoteReader(name, dataSource, QuoteProjection.OPT_IN, whereClause, params, settings);
+        });
     }
 
+    // Same window as the reader and quoteUpdateWriter, so a run over midnight or a restart agrees with them
     @Bean
     public ItemProcessor<Quote, Quote> quoteUpdateProcessor() {
+        return updateProcessor(QuoteRunTime::current);
+    }
+
+    public ItemProcessor<Quote, Quote> updateProcessor(Supplier<LocalDateTime> runTime) {
         return quote -> {
-            if (quote.getCreatedTime().isBefore(LocalDateTime.now().minusMonths(1))) {
+            if (quote.getCreatedTime().isBefore(runTime.get().minusMonths(1))) {
                 log.debug("Updating opt_in to false for Quote ID: {}", quote.getId());
                 quote.setOptIn(false);
             }
@@ -107,14 +155,30 @@ public class BatchConfig {
         };
     }
 
+    // Re-checks the read predicate on the quote database, where the rows may have changed since
+    // they were read (a replica lags behind): rows that no longer match are left alone.
+    // The window is the one the step's reader read in, not the clock's
     @Bean
     public JdbcBatchItemWriter<Quote> quoteUpdateWriter() {
-        String sql = "UPDATE quote SET opt_in = :optIn WHERE id = :id";
+        return updateWriter(batchDataSource, QuoteRunTime::current);
+    }
+
+    public JdbcBatchItemWriter<Quote> updateWriter(DataSource dataSource, Supplier<LocalDateTime> runTime) {
+        String sql = "UPDATE quote SET opt_in = :optIn WHERE id = :id AND opt_in = TRUE"
+                + " AND created_time BETWEEN :twoYearsAgo AND :oneMonthAgo";
         log.debug("Update SQL: {}", sql);
         return new JdbcBatchItemWriterBuilder<Quote>()
-                .dataSource(batchDataSource)
+                .dataSource(dataSource)
                 .sql(sql)
-                .beanMapped()
+                .itemSqlParameterSourceProvider(quote -> {
+                    LocalDateTime windowTime = runTime.get();
+                    return new MapSqlParameterSource()
+                            .addValue("id", quote.getId())
+                            .addValue("optIn", quote.isOptIn())
+                            .addValue("twoYearsAgo", windowTime.minusYears(2))
+                            .addValue("oneMonthAgo", windowTime.minusMonths(1));
+                })
+                .assertUpdates(false)
                 .build();
     }
 
@@ -123,48 +187,126 @@ public class BatchConfig {
     // (Delete records older than 2 years)
     // -----------------------------------------------------------------------
     @Bean
-    public JdbcPagingItemReader<Quote> quoteReaderForDelete() throws Exception {
-        Map<String, Object> params = new HashMap<>();
-        params.put("twoYearsAgo", LocalDateTime.now().minusYears(2));
+    public QuoteWindowReader<Quote> quoteReaderForDelete() {
+        QuoteBatchProperties.Reader settings = properties.getDelete().getReader();
+        return deleteReader("quoteReaderForDelete", readDataSource("quoteReaderForDelete", settings), settings);
+    }
 
-        PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
-        // Only selecting id is enough for deletion
-        queryProvider.setSelectClause("SELECT id");
-        queryProvider.setFromClause("FROM quote");
-        queryProvider.setWhereClause("WHERE created_time < :twoYearsAgo");
-        Map<String, Order> sortKeys = Collections.singletonMap("id", Order.ASCENDING);
-        queryProvider.setSortKeys(sortKeys);
-
-        log.debug("Executing delete query with parameters: {}", params);
-
-        return new JdbcPagingItemReaderBuilder<Quote>()
-                .name("quoteReaderForDelete")
-                .dataSource(batchDataSource)
-                .queryProvider(queryProvider)
-                .parameterValues(params)
-                .rowMapper((rs, rowNum) -> {
-                    Quote q = new Quote();
-                    q.setId(rs.getLong("id"));
-                    return q;
-                })
-                .pageSize(50)
-                .build();
+    private QuoteWindowReader<Quote> deleteReader(String name, DataSource dataSource,
+                                                  QuoteBatchProperties.Reader settings) {
+        return windowReader(name, runTime -> runTime.minusYears(2), (runTime, since) -> {
+            Map<String, Object> params = new HashMap<>();
+            params.put("twoYearsAgo", runTime.minusYears(2));
+
+            String whereClause = "WHERE created_time < :twoYearsAgo";
+            if (since != null) {
+                // The previous run's bound was exclusive
+                params.put("highWater", since);
+                whereClause += " AND created_time >= :highWater";
+            }
+
+            log.debug("Executing delete query with parameters: {}", params);
+
+            // Only selecting id is enough for deletion; the archive reads the rows it purges itself
+            return quoteReader(name, dataSource, deleteProjection(), whereClause, params, settings);
+        });
     }
 
+    // loggingItemWriter logs more than the id
+    QuoteProjection deleteProjection() {
+        return properties.getAudit().isLogDeletedRows() ? QuoteProjection.FULL : QuoteProjection.ID;
+    }
+
+    // Like the update writer, only deletes rows that are still due on the quote database
     @Bean
     public JdbcBatchItemWriter<Quote> quoteDeleteWriter() {
-        String sql = "DELETE FROM quote WHERE id = :id";
+        return deleteWriter(batchDataSource, QuoteRunTime::current);
+    }
+
+    public JdbcBatchItemWriter<Quote> deleteWriter(DataSource dataSource, Supplier<LocalDateTime> runTime) {
+        String sql = "DELETE FROM quote WHERE id = :id AND created_time < :twoYearsAgo";
         log.debug("Delete SQL: {}", sql);
         return new JdbcBatchItemWriterBuilder<Quote>()
-                .dataSource(batchDataSource)
+                .dataSource(dataSource)
                 .sql(sql)
-                .beanMapped()
+                .itemSqlParameterSourceProvider(quote -> new MapSqlParameterSource()
+                        .addValue("id", quote.getId())
+                        .addValue("twoYearsAgo", runTime.get().minusYears(2)))
+                .assertUpdates(false)
                 .build();
     }
 
     // -----------------------------------------------------------------------
-    // Step Execution Listener for logging counts
+    // Reader strategy shared by the steps: keyset pages or one streaming cursor
+    // -----------------------------------------------------------------------
+    public ItemStreamReader<Quote> quoteReader(String name, DataSource dataSource, QuoteProjection projection,
+                                                String whereClause, Map<String, Object> params,
+                                                QuoteBatchProperties.Reader settings) throws Exception {
+        if (settings.getType() == QuoteBatchProperties.ReaderType.CURSOR) {
+            return new KeysetCursorItemReader<>(name, dataSource, projection.selectClause(), "FROM quote",
+                    whereClause, params, projection.rowMapper(), Quote::getId, settings.getFetchSize());
+        }
+
+        // The paging provider seeks past the last id of the previous page (keyset), never OFFSET
+        PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
+        queryProvider.setSelectClause(projection.selectClause());
+        queryProvider.setFromClause("FROM quote");
+        queryProvider.setWhereClause(whereClause);
+        queryProvider.setSortKeys(Collections.singletonMap("id", Order.ASCENDING));
+
+        // Built by hand rather than with JdbcPagingItemReaderBuilder so each page query is timed
+        // and a restart resumes after the last id read
+        KeysetPagingItemReader<Quote> reader = new KeysetPagingItemReader<>(Metrics.globalRegistry, Quote::getId);
+        reader.setName(name);
+        reader.setDataSource(dataSource);
+        reader.setQueryProvider(queryProvider);
+        reader.setParameterValues(params);
+        reader.setRowMapper(projection.rowMapper());
+        reader.setPageSize(settings.getPageSize());
+        return reader;
+    }
+
+    private QuoteWindowReader<Quote> windowReader(String name, UnaryOperator<LocalDateTime> highWaterOf,
+                                                  QuoteWindowReader.WindowReaderFactory<Quote> factory) {
+        QuoteBatchProperties.Incremental incremental = properties.getIncremental();
+        return new QuoteWindowReader<>(name, factory, highWaterOf,
+                incremental.isEnabled() ? quoteWatermarkStore() : null, incremental.getFullScanInterval(),
+                Clock.systemDefaultZone());
+    }
+
+    // High-water marks of the incremental readers, keyed by step name (so per shard as well)
+    @Bean
+    public QuoteWatermarkStore quoteWatermarkStore() {
+        return new QuoteWatermarkStore(batchDataSource);
+    }
+
+    public DataSource readDataSource(String readerName, QuoteBatchProperties.Reader settings) {
+        if (!settings.isReplica()) {
+            return batchDataSource;
+        }
+        if (replicaDataSource == null) {
+            throw new IllegalStateException("Reader " + readerName
+                    + " is configured to read from the replica, but spring.datasource.replica.jdbc-url is not set");
+        }
+        return replicaDataSource;
+    }
+
+    // -----------------------------------------------------------------------
+    // Audit trail: per-chunk events, summarised per step and job in the background
     // -----------------------------------------------------------------------
+    @Bean(destroyMethod = "close")
+    public QuoteAuditSink quoteAuditSink() {
+        QuoteBatchProperties.Audit audit = properties.getAudit();
+        return new QuoteAuditSink(audit.getQueueCapacity(), audit.getOverflow(), audit.getBlockTimeout(),
+                Metrics.globalRegistry);
+    }
+
+    @Bean
+    public QuoteAuditListener quoteAuditListener() {
+        return new QuoteAuditListener(quoteAuditSink());
+    }
+
+    // Step Execution Listener for logging counts
     @Bean
     public StepExecutionListener loggingListener() {
         return new StepExecutionListener() {
@@ -176,6 +318,7 @@ public class BatchConfig {
         };
     }
 
+    // One line per purged row, so only in front of the delete writers with batch.quote.audit.log-deleted-rows
     @Bean
     public ItemWriter<Quote> loggingItemWriter() {
         return items -> items.forEach(quote ->
@@ -184,47 +327,227 @@ public class BatchConfig {
         );
     }
 
+    // Jobs are launched asynchronously, so this is where the outcome of a run gets logged
     @Bean
-    public ItemWriter<Quote> compositeDeleteWriter(@Qualifier("quoteDeleteWriter") JdbcBatchItemWriter<Quote> deleteWriter) {
-        CompositeItemWriter<Quote> compositeWriter = new CompositeItemWriter<>();
+    public JobExecutionListener jobCompletionListener() {
+        return new JobExecutionListener() {
+            @Override
+            public void afterJob(JobExecution jobExecution) {
+                Duration duration = jobExecution.getStartTime() == null || jobExecution.getEndTime() == null
+                        ? Duration.ZERO
+                        : Duration.between(jobExecution.getStartTime(), jobExecution.getEndTime());
+                if (jobExecution.getStatus().isUnsuccessful()) {
+                    log.error("Job [{}] execution {} finished with {} after {} ms: {}",
+                            jobExecution.getJobInstance().getJobName(), jobExecution.getId(),
+                            jobExecution.getStatus(), duration.toMillis(), jobExecution.getAllFailureExceptions());
+                } else {
+                    log.info("Job [{}] execution {} finished with {} after {} ms.",
+                            jobExecution.getJobInstance().getJobName(), jobExecution.getId(),
+                            jobExecution.getStatus(), duration.toMillis());
+                }
+            }
+        };
+    }
 
-        // Create a list of delegates: first log, then delete
-        compositeWriter.setDelegates(Arrays.asList(loggingItemWriter(), deleteWriter));
+    // Chunk phase, page and pool-wait metrics; Boot adds the actuator registry to the global one,
+    // which is also where Spring Batch publishes its own spring.batch.* meters
+    @Bean
+    public QuoteStepMetricsListener quoteStepMetricsListener() {
+        return new QuoteStepMetricsListener(Metrics.globalRegistry);
+    }
 
+    // One archive per step execution: each partition writes its own segments
+    @Bean
+    @StepScope
+    public QuoteArchiveWriter quoteArchiveWriter(@Value("#{stepExecution}") StepExecution stepExecution) {
+        QuoteBatchProperties.Archive archive = properties.getArchive();
+        String filePrefix = stepExecution.getJobExecution().getJobInstance().getJobName()
+                + "-" + stepExecution.getJobExecution().getJobInstance().getInstanceId()
+                + "-" + stepExecution.getStepName();
+        return new QuoteArchiveWriter(archiveDirectory(), filePrefix, archive.getMaxSegmentSize().toBytes());
+    }
+
+    // A relative directory would follow the working directory of whoever started the process
+    public Path archiveDirectory() {
+        Path directory = Path.of(properties.getArchive().getDirectory());
+        if (!directory.isAbsolute()) {
+            throw new IllegalStateException("batch.quote.archive.enabled needs an absolute batch.quote.archive.directory,"
+                    + " not [" + properties.getArchive().getDirectory() + "]");
+        }
+        return directory;
+    }
+
+    // The step closes its streams; an inferred close() at shutdown would hit the inactive step scope.
+    // No parameters: AOT-generated bean definitions cannot be created from explicit getBean arguments
+    @Bean(destroyMethod = "")
+    public ItemWriter<Quote> compositeDeleteWriter() {
+        return archivingDeleteWriter(batchDataSource, quoteDeleteWriter());
+    }
+
+    // With the archive, the chunk deletes first and archives only the rows its DELETE removed
+    private ItemWriter<Quote> archivingDeleteWriter(DataSource dataSource, JdbcBatchItemWriter<Quote> deleteWriter) {
+        ItemWriter<Quote> writer = deleteWriter;
+        if (properties.getArchive().isEnabled()) {
+            // Checked when the step is built rather than when its first chunk is written
+            archiveDirectory();
+            writer = new QuoteArchivingDeleteWriter(dataSource, quoteArchiveWriter(null),
+                    () -> QuoteRunTime.current().minusYears(2));
+        }
+        if (!properties.getAudit().isLogDeletedRows()) {
+            return writer;
+        }
+        // Create a list of delegates: first log, then delete
+        CompositeItemWriter<Quote> compositeWriter = new CompositeItemWriter<>();
+        compositeWriter.setDelegates(Arrays.asList(loggingItemWriter(), writer));
         return compositeWriter;
     }
 
+    // The readers and writers of the quote database beans, or new ones for the pool of one shard
+    QuoteWindowReader<Quote> updateReader(QuoteShard shard) {
+        return shard == null ? quoteReaderForUpdate()
+                : updateReader(shard.qualified("quoteReaderForUpdate"), shard.dataSource(),
+                        properties.getUpdate().getReader());
+    }
+
+    JdbcBatchItemWriter<Quote> updateWriter(QuoteShard shard) throws Exception {
+        return shard == null ? quoteUpdateWriter()
+                : initialized(updateWriter(shard.dataSource(), QuoteRunTime::current));
+    }
+
+    QuoteWindowReader<Quote> deleteReader(QuoteShard shard) {
+        return shard == null ? quoteReaderForDelete()
+                : deleteReader(shard.qualified("quoteReaderForDelete"), shard.dataSource(),
+                        properties.getDelete().getReader());
+    }
+
+    ItemWriter<Quote> deleteWriter(QuoteShard shard) throws Exception {
+        return shard == null ? compositeDeleteWriter() : archivingDeleteWriter(shard.dataSource(),
+                initialized(deleteWriter(shard.dataSource(), QuoteRunTime::current)));
+    }
+
+    PlatformTransactionManager transactionManager(QuoteShard shard) {
+        return shard == null ? transactionManager : shard.transactionManager();
+    }
+
+    DataSource writeDataSource(QuoteShard shard) {
+        return shard == null ? batchDataSource : shard.dataSource();
+    }
 
     // -----------------------------------------------------------------------
-    // Define the steps and the job
+    // Housekeeping: job repository rows of instances completed before the retention
     // -----------------------------------------------------------------------
     @Bean
-    public Step updateOptInStep() throws Exception {
-        return new StepBuilder("updateOptInStep", jobRepository)
-                .<Quote, Quote>chunk(50, transactionManager)
-                .reader(quoteReaderForUpdate())
-                .processor(quoteUpdateProcessor())
-                .writer(quoteUpdateWriter())
-                .listener(loggingListener())
+    public Step purgeBatchMetadataStep() {
+        QuoteBatchProperties.Metadata metadata = properties.getMetadata();
+        BatchMetadataPurgeTasklet tasklet = new BatchMetadataPurgeTasklet(metadataDataSource,
+                metadata.getRetention(), metadata.getPurgeBatchSize(), Clock.systemDefaultZone(), Metrics.globalRegistry);
+        return new StepBuilder("purgeBatchMetadataStep", jobRepository)
+                .tasklet(tasklet, metadataTransactionManager)
+                .listener((StepExecutionListener) quoteStepMetricsListener())
                 .build();
     }
 
-    @Bean
-    public Step deleteOldQuotesStep() throws Exception {
-        return new StepBuilder("deleteOldQuotesStep", jobRepository)
-                .<Quote, Quote>chunk(50, transactionManager)
-                .reader(quoteReaderForDelete())
-                .writer(compositeDeleteWriter(quoteDeleteWriter()))
-                .listener(loggingListener())
-                .build();
+    // The chunk steps take their commit interval from the plan of the run
+    String plan(String step) {
+        return properties.getPlanner().isEnabled() ? step : null;
     }
 
-    @Bean
-    public Job processQuotesJob() throws Exception {
-        return new JobBuilder("processQuotesJob", jobRepository)
-                .incrementer(new RunIdIncrementer())
-                .start(updateOptInStep())
-                .next(deleteOldQuotesStep())
-                .build();
+    // ResourcelessJobRepository is not thread-safe: partitions and parallel flows need one that is
+    void requireConcurrentRepository(String feature) {
+        if (properties.getRepository().getMode() == QuoteBatchProperties.RepositoryMode.RESOURCELESS) {
+            throw new IllegalStateException(feature
+                    + " runs step executions in parallel and needs a JDBC or COALESCED job repository");
+        }
+    }
+
+    // Fixed commit interval, or one that follows the measured lock hold time of each chunk; the throttle
+    // is registered first, as after-chunk listeners run in reverse order: its wait counts for no chunk timing
+    <I, O> SimpleStepBuilder<I, O> chunked(String stepName, PlatformTransactionManager stepTransactionManager,
+                                                   DataSource writeDataSource) {
+        return chunked(stepName, stepTransactionManager, writeDataSource, null);
+    }
+
+    /**
+     * @param planned {@link QuoteRunPlanner#UPDATE} or {@link QuoteRunPlanner#DELETE} to commit at the interval of
+     *                the run's plan (an adaptive size still wins), {@code null} for a fixed one
+     */
+    <I, O> SimpleStepBuilder<I, O> chunked(String stepName, PlatformTransactionManager stepTransactionManager,
+                                                   DataSource writeDataSource, String planned) {
+        StepBuilder builder = new StepBuilder(stepName, jobRepository);
+        QuoteBatchProperties.ChunkSizing sizing = properties.getChunk();
+        AdaptiveChunkSizePolicy policy = sizing.isAdaptive() ? new AdaptiveChunkSizePolicy(stepName,
+                sizing.getMinSize(), sizing.getMaxSize(), sizing.getTargetLockHold(), Metrics.globalRegistry) : null;
+        PlannedChunkSizePolicy plannedPolicy = policy == null && planned != null
+                ? new PlannedChunkSizePolicy(planned, sizing.getSize()) : null;
+        SimpleStepBuilder<I, O> chunked = policy != null ? builder.<I, O>chunk(policy, stepTransactionManager)
+                : plannedPolicy != null ? builder.<I, O>chunk(plannedPolicy, stepTransactionManager)
+                : builder.<I, O>chunk(sizing.getSize(), stepTransactionManager);
+        if (plannedPolicy != null) {
+            chunked.listener((StepExecutionListener) plannedPolicy);
+        }
+        if (properties.getThrottle().isEnabled()) {
+            WriteThrottle throttle = writeThrottle(stepName, writeDataSource);
+            chunked.listener((StepExecutionListener) throttle);
+            chunked.listener((ChunkListener) throttle);
+            chunked.listener((ItemWriteListener<Object>) throttle);
+        }
+        if (policy != null) {
+            chunked.listener((StepExecutionListener) policy);
+            chunked.listener((ChunkListener) policy);
+            chunked.listener((ItemWriteListener<Object>) policy);
+        }
+        return chunked;
+    }
+
+    // One bucket per step; the pool pressure is read from the pool the step writes through
+    private WriteThrottle writeThrottle(String stepName, DataSource writeDataSource) {
+        QuoteBatchProperties.Throttle throttle = properties.getThrottle();
+        List<WriteThrottle.Pressure> pressures = new ArrayList<>();
+        pressures.add(WriteThrottle.Pressure.pendingConnections(writeDataSource, throttle.getMaxPendingConnections()));
+        if (replicaLagMeter != null) {
+            pressures.add(WriteThrottle.Pressure.replicaLag(replicaLagMeter::lagSeconds, throttle.getMaxReplicaLag()));
+        }
+        List<WriteThrottle.Window> windows = throttle.getProfiles().stream()
+                .map(profile -> new WriteThrottle.Window(profile.getFrom(), profile.getTo(), profile.getRowsPerSecond()))
+                .toList();
+        return new WriteThrottle(stepName, throttle.getRowsPerSecond(), windows, pressures,
+                throttle.getMaxCommitLatency(), throttle.getMinRowsPerSecond(), throttle.getBackoffFactor(),
+                throttle.getRecoveryFactor(), throttle.getAdjustInterval(), Clock.systemDefaultZone(),
+                new ThreadWaitSleeper(), Metrics.globalRegistry);
+    }
+
+    <I, O> SimpleStepBuilder<I, O> instrumented(SimpleStepBuilder<I, O> builder) {
+        QuoteStepMetricsListener metrics = quoteStepMetricsListener();
+        builder.listener((StepExecutionListener) metrics);
+        builder.listener((ChunkListener) metrics);
+        builder.listener((ItemReadListener<Object>) metrics);
+        builder.listener((ItemProcessListener<Object, Object>) metrics);
+        builder.listener((ItemWriteListener<Object>) metrics);
+        QuoteAuditListener audit = quoteAuditListener();
+        builder.listener((StepExecutionListener) audit);
+        builder.listener((ChunkListener) audit);
+        builder.listener((ItemWriteListener<Object>) audit);
+        builder.listener(loggingListener());
+        return builder;
+    }
+
+    // Tasklet steps commit once per iteration, which the listeners count as a chunk
+    TaskletStepBuilder instrumented(TaskletStepBuilder builder) {
+        QuoteStepMetricsListener metrics = quoteStepMetricsListener();
+        builder.listener((StepExecutionListener) metrics);
+        builder.listener((ChunkListener) metrics);
+        QuoteAuditListener audit = quoteAuditListener();
+        builder.listener((StepExecutionListener) audit);
+        builder.listener((ChunkListener) audit);
+        builder.listener(loggingListener());
+        return builder;
+    }
+
+    // The per-shard readers and writers are not beans, so nobody else runs their initialisation
+    public static <T> T initialized(T component) throws Exception {
+        if (component instanceof InitializingBean initializingBean) {
+            initializingBean.afterPropertiesSet();
+        }
+        return component;
     }
 }
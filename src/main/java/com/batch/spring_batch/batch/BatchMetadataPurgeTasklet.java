@@ -0,0 +1,126 @@
+package com.batch.spring_batch.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Housekeeping of the job repository tables. Every call of {@link #execute}
+ * (and so every commit) removes up to {@code batchSize} job instances that
+ * have a COMPLETED execution which ended before the cutoff, together with
+ * all their executions, step executions, parameters and contexts. Instances
+ * that never completed are kept, as they can still be restarted.
+ * <p>
+ * The deletes go child table first and select by job instance and execution
+ * ids, which the indexes of db/migration/V2__batch_metadata_indexes.sql
+ * cover. The cutoff and the rows removed per table are kept in the step
+ * ExecutionContext; the write count is the number of job instances.
+ * <p>
+ * Publishes {@code quote.batch.metadata.purged}, tagged with the table.
+ */
+public class BatchMetadataPurgeTasklet implements Tasklet {
+
+    static final String CUTOFF_KEY = "metadataPurge.cutoff";
+    static final String PURGED_KEY_PREFIX = "metadataPurge.purged.";
+
+    private static final String SELECT_SQL = "SELECT DISTINCT JOB_INSTANCE_ID FROM BATCH_JOB_EXECUTION"
+            + " WHERE STATUS = 'COMPLETED' AND END_TIME < :cutoff LIMIT :batchSize";
+    private static final String EXECUTION_IDS = "SELECT JOB_EXECUTION_ID FROM BATCH_JOB_EXECUTION"
+            + " WHERE JOB_INSTANCE_ID IN (:ids)";
+    private static final String STEP_EXECUTION_IDS = "SELECT STEP_EXECUTION_ID FROM BATCH_STEP_EXECUTION"
+            + " WHERE JOB_EXECUTION_ID IN (" + EXECUTION_IDS + ")";
+
+    // Child tables first, so no foreign key is ever violated
+    private static final Map<String, String> DELETES = new LinkedHashMap<>();
+
+    static {
+        DELETES.put("BATCH_STEP_EXECUTION_CONTEXT",
+                "DELETE FROM BATCH_STEP_EXECUTION_CONTEXT WHERE STEP_EXECUTION_ID IN (" + STEP_EXECUTION_IDS + ")");
+        DELETES.put("BATCH_STEP_EXECUTION",
+                "DELETE FROM BATCH_STEP_EXECUTION WHERE JOB_EXECUTION_ID IN (" + EXECUTION_IDS + ")");
+        DELETES.put("BATCH_JOB_EXECUTION_CONTEXT",
+                "DELETE FROM BATCH_JOB_EXECUTION_CONTEXT WHERE JOB_EXECUTION_ID IN (" + EXECUTION_IDS + ")");
+        DELETES.put("BATCH_JOB_EXECUTION_PARAMS",
+                "DELETE FROM BATCH_JOB_EXECUTION_PARAMS WHERE JOB_EXECUTION_ID IN (" + EXECUTION_IDS + ")");
+        DELETES.put("BATCH_JOB_EXECUTION", "DELETE FROM BATCH_JOB_EXECUTION WHERE JOB_INSTANCE_ID IN (:ids)");
+        DELETES.put("BATCH_JOB_INSTANCE", "DELETE FROM BATCH_JOB_INSTANCE WHERE JOB_INSTANCE_ID IN (:ids)");
+    }
+
+    private final Logger log = LoggerFactory.getLogger(BatchMetadataPurgeTasklet.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final int batchSize;
+    private final Clock clock;
+    private final MeterRegistry registry;
+
+    /**
+     * @param dataSource the job repository's database
+     */
+    public BatchMetadataPurgeTasklet(DataSource dataSource, Duration retention, int batchSize, Clock clock,
+                                     MeterRegistry registry) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.clock = clock;
+        this.registry = registry;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+        ExecutionContext context = stepExecution.getExecutionContext();
+        if (!context.containsKey(CUTOFF_KEY)) {
+            context.putString(CUTOFF_KEY, LocalDateTime.now(clock).minus(retention).toString());
+        }
+        LocalDateTime cutoff = LocalDateTime.parse(context.getString(CUTOFF_KEY));
+
+        List<Long> instanceIds = jdbcTemplate.queryForList(SELECT_SQL, new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("batchSize", batchSize), Long.class);
+        if (!instanceIds.isEmpty()) {
+            MapSqlParameterSource ids = new MapSqlParameterSource("ids", instanceIds);
+            DELETES.forEach((table, sql) -> {
+                int deleted = jdbcTemplate.update(sql, ids);
+                context.putLong(PURGED_KEY_PREFIX + table, context.getLong(PURGED_KEY_PREFIX + table, 0) + deleted);
+                Counter.builder("quote.batch.metadata.purged").tag("table", table).register(registry)
+                        .increment(deleted);
+            });
+            contribution.incrementWriteCount(instanceIds.size());
+        }
+        if (instanceIds.size() == batchSize) {
+            return RepeatStatus.CONTINUABLE;
+        }
+        LocalDateTime startTime = stepExecution.getStartTime();
+        log.info("Purged the job metadata completed before {} in {} ms: {}", cutoff,
+                startTime == null ? 0 : Duration.between(startTime, LocalDateTime.now()).toMillis(), purged(context));
+        return RepeatStatus.FINISHED;
+    }
+
+    private static Map<String, Long> purged(ExecutionContext context) {
+        Map<String, Long> purged = new LinkedHashMap<>();
+        DELETES.keySet().forEach(table -> purged.put(table, context.getLong(PURGED_KEY_PREFIX + table, 0)));
+        return purged;
+    }
+}
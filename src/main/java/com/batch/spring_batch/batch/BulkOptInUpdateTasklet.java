@@ -0,0 +1,98 @@
+package com.batch.spring_batch.batch;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Set-based variant of the opt-out update. Instead of reading every row, the
+ * id space of the eligible rows is walked in keyset ranges and each range is
+ * updated by a single statement. Every call of {@link #execute} handles one
+ * range, so the surrounding tasklet step commits once per range and saves the
+ * last finished range boundary in the step ExecutionContext for restarts.
+ */
+public class BulkOptInUpdateTasklet implements Tasklet {
+
+    static final String LOWER_ID_KEY = "bulkUpdate.lowerId";
+    static final String MAX_ID_KEY = "bulkUpdate.maxId";
+    static final String TWO_YEARS_AGO_KEY = "bulkUpdate.twoYearsAgo";
+    static final String ONE_MONTH_AGO_KEY = "bulkUpdate.oneMonthAgo";
+
+    private static final String BOUNDS_SQL =
+            "SELECT MIN(id), MAX(id) FROM quote WHERE created_time BETWEEN ? AND ? AND opt_in = ?";
+    private static final String UPDATE_SQL =
+            "UPDATE quote SET opt_in = ? WHERE id > ? AND id <= ? AND created_time BETWEEN ? AND ? AND opt_in = ?";
+
+    private final Logger log = LoggerFactory.getLogger(BulkOptInUpdateTasklet.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int rangeSize;
+
+    public BulkOptInUpdateTasklet(DataSource dataSource, int rangeSize) {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("rangeSize must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.rangeSize = rangeSize;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        ExecutionContext context = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        if (!context.containsKey(MAX_ID_KEY)) {
+            initialise(context);
+        }
+
+        long lowerId = context.getLong(LOWER_ID_KEY);
+        long maxId = context.getLong(MAX_ID_KEY);
+        if (lowerId >= maxId) {
+            return RepeatStatus.FINISHED;
+        }
+
+        long upperId = Math.min(maxId, lowerId + rangeSize);
+        Timestamp twoYearsAgo = Timestamp.valueOf(LocalDateTime.parse(context.getString(TWO_YEARS_AGO_KEY)));
+        Timestamp oneMonthAgo = Timestamp.valueOf(LocalDateTime.parse(context.getString(ONE_MONTH_AGO_KEY)));
+
+        int updated = jdbcTemplate.update(UPDATE_SQL, false, lowerId, upperId, twoYearsAgo, oneMonthAgo, true);
+        contribution.incrementWriteCount(updated);
+        context.putLong(LOWER_ID_KEY, upperId);
+
+        log.debug("Bulk opt-out updated {} rows in id range ({}, {}]", updated, lowerId, upperId);
+        return upperId >= maxId ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+
+    /**
+     * Fixes the date window and the id bounds for this execution, so that a
+     * restart keeps working on exactly the same set of rows.
+     */
+    private void initialise(ExecutionContext context) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime twoYearsAgo = now.minusYears(2);
+        LocalDateTime oneMonthAgo = now.minusMonths(1);
+
+        long[] bounds = jdbcTemplate.queryForObject(BOUNDS_SQL,
+                (rs, rowNum) -> {
+                    long minId = rs.getLong(1);
+                    long maxId = rs.getLong(2);
+                    // MIN/MAX are NULL when nothing matches: use an empty range
+                    return rs.wasNull() ? new long[]{1, 0} : new long[]{minId, maxId};
+                },
+                Timestamp.valueOf(twoYearsAgo), Timestamp.valueOf(oneMonthAgo), true);
+
+        context.putLong(LOWER_ID_KEY, bounds[0] - 1);
+        context.putLong(MAX_ID_KEY, bounds[1]);
+        context.putString(TWO_YEARS_AGO_KEY, twoYearsAgo.toString());
+        context.putString(ONE_MONTH_AGO_KEY, oneMonthAgo.toString());
+        log.info("Bulk opt-out will scan ids ({}, {}] for rows created between {} and {}",
+                bounds[0] - 1, bounds[1], twoYearsAgo, oneMonthAgo);
+    }
+}
@@ -0,0 +1,47 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// -----------------------------------------------------------------------
+// BULK update: keyset-ranged set-based UPDATEs instead of row-by-row writes
+// -----------------------------------------------------------------------
+@Configuration
+public class BulkUpdateConfig {
+
+    private final BatchConfig batchConfig;
+    private final JobRepository jobRepository;
+    private final DataSource batchDataSource;
+    private final QuoteBatchProperties properties;
+
+    public BulkUpdateConfig(BatchConfig batchConfig, JobRepository jobRepository,
+                            @Qualifier("batchDataSource") DataSource batchDataSource,
+                            QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.jobRepository = jobRepository;
+        this.batchDataSource = batchDataSource;
+        this.properties = properties;
+    }
+
+    @Bean
+    public BulkOptInUpdateTasklet bulkOptInUpdateTasklet() {
+        return new BulkOptInUpdateTasklet(batchDataSource, properties.getUpdate().getBulkRangeSize());
+    }
+
+    // One keyset range per tasklet iteration, i.e. one commit per range
+    Step bulkUpdateStep(String stepName, QuoteShard shard) {
+        BulkOptInUpdateTasklet tasklet = shard == null ? bulkOptInUpdateTasklet()
+                : new BulkOptInUpdateTasklet(shard.dataSource(), properties.getUpdate().getBulkRangeSize());
+        return batchConfig.instrumented(new StepBuilder(stepName, jobRepository)
+                        .tasklet(tasklet, batchConfig.transactionManager(shard)))
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import com.batch.spring_batch.dto.Quote;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.ClassifierCompositeItemWriter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// -----------------------------------------------------------------------
+// FUSED retention: one scan over both windows
+// (opt out rows between two years and one month ago, delete rows older than two years)
+// -----------------------------------------------------------------------
+@Configuration
+public class FusedRetentionConfig {
+    private final Logger log = LoggerFactory.getLogger(FusedRetentionConfig.class);
+
+    private final BatchConfig batchConfig;
+    private final QuoteBatchProperties properties;
+
+    public FusedRetentionConfig(BatchConfig batchConfig, QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.properties = properties;
+    }
+
+    @Bean
+    public QuoteWindowReader<Quote> quoteReaderForRetention() {
+        QuoteBatchProperties.Reader settings = properties.getRetention().getReader();
+        return retentionReader("quoteReaderForRetention",
+                batchConfig.readDataSource("quoteReaderForRetention", settings), settings);
+    }
+
+    // Always a full scan: the two windows age at different rates, so no single high-water mark covers both
+    private QuoteWindowReader<Quote> retentionReader(String name, DataSource dataSource,
+                                                     QuoteBatchProperties.Reader settings) {
+        return new QuoteWindowReader<>(name, (runTime, since) -> {
+            Map<String, Object> params = new HashMap<>();
+            params.put("twoYearsAgo", runTime.minusYears(2));
+            params.put("oneMonthAgo", runTime.minusMonths(1));
+            params.put("optIn", true);
+
+            log.debug("Executing retention query with parameters: {}", params);
+
+            // Rows already opted out only come back once they are due for deletion
+            return batchConfig.quoteReader(name, dataSource, QuoteProjection.OPT_IN,
+                    "WHERE created_time <= :oneMonthAgo AND (created_time < :twoYearsAgo OR opt_in = :optIn)",
+                    params, settings);
+        }, runTime -> runTime.minusMonths(1), null, Duration.ZERO, Clock.systemDefaultZone());
+    }
+
+    @Bean
+    public Step retainQuotesStep() throws Exception {
+        return retentionStep("retainQuotesStep", null);
+    }
+
+    // Each chunk's opt-outs and deletes are written by their own writer, but commit in one transaction
+    Step retentionStep(String stepName, QuoteShard shard) throws Exception {
+        QuoteWindowReader<Quote> reader = shard == null ? quoteReaderForRetention()
+                : retentionReader(shard.qualified("quoteReaderForRetention"), shard.dataSource(),
+                        properties.getRetention().getReader());
+        ItemWriter<Quote> updateWriter = batchConfig.updateWriter(shard);
+        ItemWriter<Quote> deleteWriter = batchConfig.deleteWriter(shard);
+
+        ClassifierCompositeItemWriter<Quote> writer = new ClassifierCompositeItemWriter<>();
+        writer.setClassifier(new QuoteRetentionClassifier(updateWriter, deleteWriter, QuoteRunTime::current));
+
+        SimpleStepBuilder<Quote, Quote> builder = batchConfig.<Quote, Quote>chunked(stepName,
+                        batchConfig.transactionManager(shard), batchConfig.writeDataSource(shard))
+                .reader(reader)
+                .processor(batchConfig.quoteUpdateProcessor())
+                .writer(writer);
+        if (deleteWriter instanceof ItemStream archive) {
+            // The classifier writer does not pass open/update/close on to its delegates
+            builder.stream(archive);
+        }
+        return batchConfig.instrumented(builder).build();
+    }
+}
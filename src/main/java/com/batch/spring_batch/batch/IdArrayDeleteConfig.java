@@ -0,0 +1,67 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// -----------------------------------------------------------------------
+// ID_ARRAY delete: primitive id buffers, one DELETE statement per buffer
+// -----------------------------------------------------------------------
+@Configuration
+public class IdArrayDeleteConfig {
+
+    private final BatchConfig batchConfig;
+    private final JobRepository jobRepository;
+    private final DataSource batchDataSource;
+    private final QuoteBatchProperties properties;
+
+    public IdArrayDeleteConfig(BatchConfig batchConfig, JobRepository jobRepository,
+                               @Qualifier("batchDataSource") DataSource batchDataSource,
+                               QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.jobRepository = jobRepository;
+        this.batchDataSource = batchDataSource;
+        this.properties = properties;
+    }
+
+    @Bean
+    public QuoteIdBufferReader quoteIdBufferReader() {
+        return new QuoteIdBufferReader(batchDataSource);
+    }
+
+    @Bean
+    public QuoteIdArrayDeleteWriter quoteIdArrayDeleteWriter() {
+        return new QuoteIdArrayDeleteWriter(batchDataSource);
+    }
+
+    @Bean
+    public QuoteIdChunkDeleteTasklet quoteIdChunkDeleteTasklet() {
+        return new QuoteIdChunkDeleteTasklet(quoteIdBufferReader(), quoteIdArrayDeleteWriter(),
+                properties.getDelete().getIdChunkSize());
+    }
+
+    Step idArrayDeleteStep(String stepName, QuoteShard shard) {
+        if (properties.getArchive().isEnabled()) {
+            // The id buffers never hold whole rows, and the purge must not silently lose its audit trail
+            throw new IllegalStateException(
+                    "batch.quote.delete.mode=ID_ARRAY cannot archive purged rows; set batch.quote.archive.enabled=false");
+        }
+        QuoteIdBufferReader idReader = shard == null ? quoteIdBufferReader()
+                : new QuoteIdBufferReader(shard.dataSource());
+        QuoteIdChunkDeleteTasklet tasklet = shard == null ? quoteIdChunkDeleteTasklet()
+                : new QuoteIdChunkDeleteTasklet(idReader, new QuoteIdArrayDeleteWriter(shard.dataSource()),
+                        properties.getDelete().getIdChunkSize());
+        // One id buffer per tasklet iteration; the reader position is saved on every commit
+        return batchConfig.instrumented(new StepBuilder(stepName, jobRepository)
+                        .tasklet(tasklet, batchConfig.transactionManager(shard))
+                        .stream(idReader))
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.batch.spring_batch.batch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+
+/**
+ * Streams the whole result through one server-side cursor instead of issuing a
+ * sorted query per page. Rows are fetched {@code fetchSize} at a time on a
+ * dedicated connection with auto-commit off, which is what PostgreSQL needs to
+ * stream rather than buffer the result.
+ * <p>
+ * Restart state is the id of the last item handed out, not a row count: on
+ * restart the cursor is reopened with {@code id > lastId}, so rows that were
+ * updated or deleted in the meantime cannot shift the position.
+ */
+public class KeysetCursorItemReader<T> implements ItemStreamReader<T> {
+
+    static final String LAST_ID_PARAM = "lastSeenId";
+
+    private final String name;
+    private final DataSource dataSource;
+    private final String sql;
+    private final Map<String, Object> parameterValues;
+    private final RowMapper<T> rowMapper;
+    private final ToLongFunction<T> idExtractor;
+    private final int fetchSize;
+
+    private JdbcCursorItemReader<T> delegate;
+    private long lastId;
+
+    /**
+     * @param whereClause a {@code WHERE ...} clause with named parameters; the
+     *                    id keyset predicate and {@code ORDER BY id} are appended
+     */
+    public KeysetCursorItemReader(String name, DataSource dataSource, String selectClause, String fromClause,
+                                  String whereClause, Map<String, Object> parameterValues,
+                                  RowMapper<T> rowMapper, ToLongFunction<T> idExtractor, int fetchSize) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.sql = selectClause + " " + fromClause + " " + whereClause
+                + " AND id > :" + LAST_ID_PARAM + " ORDER BY id ASC";
+        this.parameterValues = parameterValues;
+        this.rowMapper = rowMapper;
+        this.idExtractor = idExtractor;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        lastId = executionContext.getLong(lastIdKey(), Long.MIN_VALUE);
+
+        Map<String, Object> values = new HashMap<>(parameterValues);
+        values.put(LAST_ID_PARAM, lastId);
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+        MapSqlParameterSource source = new MapSqlParameterSource(values);
+
+        delegate = new JdbcCursorItemReader<>();
+        delegate.setName(name);
+        delegate.setDataSource(dataSource);
+        delegate.setSql(NamedParameterUtils.substituteNamedParameters(parsedSql, source));
+        delegate.setPreparedStatementSetter(new ArgumentPreparedStatementSetter(
+                NamedParameterUtils.buildValueArray(parsedSql, source, null)));
+        delegate.setRowMapper(rowMapper);
+        delegate.setFetchSize(fetchSize);
+        delegate.setConnectionAutoCommit(false);
+        // Position is tracked by id here; the delegate's row-count state is not used
+        delegate.setSaveState(false);
+        try {
+            delegate.afterPropertiesSet();
+        } catch (Exception e) {
+            throw new ItemStreamException("Invalid cursor reader configuration for " + name, e);
+        }
+        delegate.open(new ExecutionContext());
+    }
+
+    @Override
+    public T read() throws Exception {
+        T item = delegate.read();
+        if (item != null) {
+            lastId = idExtractor.applyAsLong(item);
+        }
+        return item;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putLong(lastIdKey(), lastId);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate != null) {
+            delegate.close();
+            delegate = null;
+        }
+    }
+
+    private String lastIdKey() {
+        return name + ".lastId";
+    }
+}
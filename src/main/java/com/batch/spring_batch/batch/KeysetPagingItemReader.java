@@ -0,0 +1,62 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.metrics.TimedJdbcPagingItemReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+/**
+ * Paging reader sorted by {@code id} whose restart state is the id of the last
+ * item handed out. {@link org.springframework.batch.item.database.JdbcPagingItemReader}
+ * itself restarts at the start of the page the failure happened in and skips
+ * the items already read by count, so rows that were updated or deleted in the
+ * meantime (an opt-out, a purge) shift the position and later rows are lost.
+ * Here the first page after a restart is simply the page after the last id.
+ */
+public class KeysetPagingItemReader<T> extends TimedJdbcPagingItemReader<T> {
+
+    private static final String START_AFTER_VALUE = "start.after";
+
+    private final ToLongFunction<T> idExtractor;
+    private Long lastId;
+
+    public KeysetPagingItemReader(MeterRegistry registry, ToLongFunction<T> idExtractor) {
+        super(registry);
+        this.idExtractor = idExtractor;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        lastId = null;
+        super.open(executionContext);
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        T item = super.doRead();
+        if (item != null) {
+            lastId = idExtractor.applyAsLong(item);
+        }
+        return item;
+    }
+
+    // The start-after value restored by open() is the last id, so the next item is the first of page one
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        super.jumpToItem(getPageSize());
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState() && lastId != null) {
+            Map<String, Object> startAfter = new LinkedHashMap<>();
+            startAfter.put("id", lastId);
+            executionContext.put(getExecutionContextKey(START_AFTER_VALUE), startAfter);
+        }
+    }
+}
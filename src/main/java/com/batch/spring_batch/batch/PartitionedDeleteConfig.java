@@ -0,0 +1,115 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import com.batch.spring_batch.dto.Quote;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// -----------------------------------------------------------------------
+// PARTITIONED delete: id ranges of the delete window on parallel worker steps
+// -----------------------------------------------------------------------
+@Configuration
+public class PartitionedDeleteConfig {
+    private final Logger log = LoggerFactory.getLogger(PartitionedDeleteConfig.class);
+
+    private final BatchConfig batchConfig;
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource batchDataSource;
+    private final QuoteBatchProperties properties;
+
+    public PartitionedDeleteConfig(BatchConfig batchConfig, JobRepository jobRepository,
+                                   @Qualifier("batchTransactionManager") PlatformTransactionManager transactionManager,
+                                   @Qualifier("batchDataSource") DataSource batchDataSource,
+                                   QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.jobRepository = jobRepository;
+        this.transactionManager = transactionManager;
+        this.batchDataSource = batchDataSource;
+        this.properties = properties;
+    }
+
+    @Bean
+    public QuoteIdRangePartitioner quoteIdRangePartitioner() {
+        return new QuoteIdRangePartitioner(batchDataSource);
+    }
+
+    @Bean
+    public TaskExecutor deletePartitionTaskExecutor() {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("delete-partition-");
+        taskExecutor.setConcurrencyLimit(properties.getDelete().getConcurrency());
+        return taskExecutor;
+    }
+
+    // Reads a single id range handed out by quoteIdRangePartitioner (PARTITIONED delete mode)
+    @Bean
+    @StepScope
+    public ItemStreamReader<Quote> quoteReaderForDeletePartition(
+            @Value("#{stepExecutionContext['minId']}") Long minId,
+            @Value("#{stepExecutionContext['maxId']}") Long maxId,
+            @Value("#{stepExecutionContext['twoYearsAgo']}") String twoYearsAgo) throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("minId", minId);
+        params.put("maxId", maxId);
+        params.put("twoYearsAgo", LocalDateTime.parse(twoYearsAgo));
+
+        log.debug("Executing partitioned delete query with parameters: {}", params);
+
+        QuoteBatchProperties.Reader settings = properties.getDelete().getReader();
+        return batchConfig.quoteReader("quoteReaderForDeletePartition",
+                batchConfig.readDataSource("quoteReaderForDeletePartition", settings),
+                batchConfig.deleteProjection(), "WHERE id >= :minId AND id <= :maxId AND created_time < :twoYearsAgo",
+                params, settings);
+    }
+
+    @Bean
+    public Step deleteOldQuotesWorkerStep() throws Exception {
+        return batchConfig.instrumented(batchConfig.<Quote, Quote>chunked("deleteOldQuotesWorkerStep",
+                        transactionManager, batchDataSource)
+                .reader(quoteReaderForDeletePartition(null, null, null))
+                .writer(batchConfig.compositeDeleteWriter()))
+                .build();
+    }
+
+    Step partitionedDeleteStep(String stepName, QuoteShard shard) throws Exception {
+        if (shard != null) {
+            // The shards already run in parallel, and the partition reader is bound to batchDataSource
+            throw new IllegalStateException(
+                    "batch.quote.delete.mode=PARTITIONED cannot be combined with quote shards; use CHUNK or ID_ARRAY");
+        }
+        batchConfig.requireConcurrentRepository("batch.quote.delete.mode=PARTITIONED");
+        return partitionedStep(stepName, quoteIdRangePartitioner(), deleteOldQuotesWorkerStep());
+    }
+
+    // Each id range runs (and restarts) as its own worker step execution
+    Step partitionedStep(String stepName, QuoteIdRangePartitioner partitioner, Step workerStep) {
+        return new StepBuilder(stepName, jobRepository)
+                .partitioner(workerStep.getName(), partitioner)
+                .step(workerStep)
+                .gridSize(properties.getDelete().getGridSize())
+                .taskExecutor(deletePartitionTaskExecutor())
+                .listener((StepExecutionListener) batchConfig.quoteStepMetricsListener())
+                .listener((StepExecutionListener) batchConfig.quoteAuditListener())
+                .listener(batchConfig.loggingListener())
+                .build();
+    }
+}
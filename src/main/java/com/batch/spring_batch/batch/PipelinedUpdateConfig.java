@@ -0,0 +1,75 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import com.batch.spring_batch.dto.Quote;
+import java.util.concurrent.Future;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+// -----------------------------------------------------------------------
+// PIPELINED update: reads run ahead, the opt-out runs on virtual threads, writes per chunk
+// -----------------------------------------------------------------------
+@Configuration
+public class PipelinedUpdateConfig {
+
+    private final BatchConfig batchConfig;
+    private final QuoteBatchProperties properties;
+
+    public PipelinedUpdateConfig(BatchConfig batchConfig, QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.properties = properties;
+    }
+
+    // Virtual threads for the PIPELINED opt-out; the number of items in flight is bounded
+    // by the chunk size, so the executor itself needs no concurrency limit
+    @Bean
+    public TaskExecutor updateProcessTaskExecutor() {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("opt-in-process-");
+        taskExecutor.setVirtualThreads(true);
+        return taskExecutor;
+    }
+
+    @Bean
+    public AsyncItemProcessor<Quote, Quote> asyncQuoteUpdateProcessor() {
+        AsyncItemProcessor<Quote, Quote> processor = new AsyncItemProcessor<>();
+        processor.setDelegate(batchConfig.quoteUpdateProcessor());
+        processor.setTaskExecutor(updateProcessTaskExecutor());
+        return processor;
+    }
+
+    // Waits for the chunk's futures and writes them on the step thread, inside the chunk transaction
+    @Bean
+    public AsyncItemWriter<Quote> asyncQuoteUpdateWriter() {
+        return asyncUpdateWriter(batchConfig.quoteUpdateWriter());
+    }
+
+    private AsyncItemWriter<Quote> asyncUpdateWriter(JdbcBatchItemWriter<Quote> delegate) {
+        AsyncItemWriter<Quote> writer = new AsyncItemWriter<>();
+        writer.setDelegate(delegate);
+        return writer;
+    }
+
+    // The next page is read while the current chunk is processed and written
+    // (the process timer then only covers handing the item to the executor)
+    Step pipelinedUpdateStep(String stepName, QuoteShard shard) throws Exception {
+        QuoteWindowReader<Quote> reader = batchConfig.updateReader(shard);
+        return batchConfig.instrumented(batchConfig.<Quote, Future<Quote>>chunked(stepName,
+                        batchConfig.transactionManager(shard), batchConfig.writeDataSource(shard))
+                .reader(new ReadAheadItemReader<>(shard == null ? "quoteReaderForUpdate"
+                        : shard.qualified("quoteReaderForUpdate"), reader, properties.getUpdate().getReadAhead()))
+                // The step only registers its reader as a listener, and that is the read-ahead wrapper
+                .listener((StepExecutionListener) reader)
+                .processor(asyncQuoteUpdateProcessor())
+                .writer(shard == null ? asyncQuoteUpdateWriter() : asyncUpdateWriter(batchConfig.updateWriter(shard))))
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.batch.spring_batch.batch;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+
+/**
+ * Commit interval that {@link QuoteRunPlanner} chose for the run, taken from
+ * the job ExecutionContext when the step starts; the configured size when
+ * the run has no plan. Has to be registered as a listener of the step as well.
+ */
+public class PlannedChunkSizePolicy extends SimpleCompletionPolicy implements StepExecutionListener {
+
+    private final String step;
+    private final int defaultSize;
+
+    /**
+     * @param step {@link QuoteRunPlanner#UPDATE} or {@link QuoteRunPlanner#DELETE}
+     */
+    public PlannedChunkSizePolicy(String step, int defaultSize) {
+        super(defaultSize);
+        this.step = step;
+        this.defaultSize = defaultSize;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        setChunkSize(stepExecution.getJobExecution().getExecutionContext()
+                .getInt(QuoteRunPlanner.chunkSizeKey(step), defaultSize));
+    }
+}
@@ -0,0 +1,255 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.dto.Quote;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+
+/**
+ * Appends the full rows of every purged chunk to gzip-compressed CSV segment
+ * files, after the chunk's DELETE ran and before it commits (see
+ * {@link QuoteArchivingDeleteWriter}). Each chunk becomes one gzip member
+ * (plain {@code zcat} reads a segment as one file) and is forced to disk
+ * before {@link #write} returns, so no deletion commits unarchived.
+ * A segment is closed once it exceeds {@code maxSegmentBytes} and a new one
+ * is started.
+ * <p>
+ * The manifest, i.e. the closed segments and the committed length, row count
+ * and CRC32 of the open one, is kept in the step ExecutionContext. On restart
+ * the open segment is checked against its CRC and cut back to the committed
+ * length, which drops the member of a chunk that was rolled back, so its rows
+ * are archived exactly once when they are read again.
+ * <p>
+ * One instance per step execution (step scope); partitions write their own segments.
+ */
+public class QuoteArchiveWriter implements ItemStreamWriter<Quote> {
+
+    static final String SEGMENT_KEY = "quoteArchive.segment";
+    static final String SEGMENT_BYTES_KEY = "quoteArchive.segmentBytes";
+    static final String SEGMENT_ROWS_KEY = "quoteArchive.segmentRows";
+    static final String SEGMENT_CRC_KEY = "quoteArchive.segmentCrc";
+    static final String CLOSED_SEGMENTS_KEY = "quoteArchive.closedSegments";
+
+    static final String HEADER = "id,quote_id,basic_quote_id,customer_name,customer_email,customer_phone,"
+            + "request_text,created_time,opt_in\n";
+
+    private final Logger log = LoggerFactory.getLogger(QuoteArchiveWriter.class);
+
+    private final Path directory;
+    private final String filePrefix;
+    private final long maxSegmentBytes;
+    private final MemberBuffer buffer = new MemberBuffer();
+
+    private FileChannel channel;
+    private int segmentNumber;
+    private String segmentName;
+    private long segmentBytes;
+    private long segmentRows;
+    private final CRC32 segmentCrc = new CRC32();
+    private final List<String> closedSegments = new ArrayList<>();
+
+    /**
+     * @param filePrefix unique per step and job instance, so that a restart finds its own segments again
+     */
+    public QuoteArchiveWriter(Path directory, String filePrefix, long maxSegmentBytes) {
+        this.directory = directory;
+        this.filePrefix = filePrefix.replaceAll("[^A-Za-z0-9._-]", "_");
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            Files.createDirectories(directory);
+            closedSegments.clear();
+            String closed = executionContext.getString(CLOSED_SEGMENTS_KEY, "");
+            if (!closed.isEmpty()) {
+                closedSegments.addAll(List.of(closed.split(";")));
+            }
+            segmentNumber = closedSegments.size();
+            segmentCrc.reset();
+            if (executionContext.containsKey(SEGMENT_KEY)) {
+                segmentName = executionContext.getString(SEGMENT_KEY);
+                segmentBytes = executionContext.getLong(SEGMENT_BYTES_KEY);
+                segmentRows = executionContext.getLong(SEGMENT_ROWS_KEY);
+                reopenSegment(executionContext.getLong(SEGMENT_CRC_KEY));
+            } else {
+                segmentName = null;
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not open the quote archive in " + directory, e);
+        }
+    }
+
+    /**
+     * Cuts the open segment back to what the last commit recorded and checks that what remains is intact.
+     */
+    private void reopenSegment(long expectedCrc) throws IOException {
+        Path file = directory.resolve(segmentName);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        if (channel.size() < segmentBytes) {
+            throw new ItemStreamException("Archive segment " + file + " is shorter (" + channel.size()
+                    + " bytes) than its committed length " + segmentBytes);
+        }
+        if (channel.size() > segmentBytes) {
+            log.info("Dropping {} uncommitted bytes from archive segment {}", channel.size() - segmentBytes, file);
+            channel.truncate(segmentBytes);
+        }
+        ByteBuffer block = ByteBuffer.allocate(64 * 1024);
+        channel.position(0);
+        while (channel.read(block) > 0) {
+            block.flip();
+            segmentCrc.update(block);
+            block.clear();
+        }
+        if (segmentCrc.getValue() != expectedCrc) {
+            throw new ItemStreamException("Archive segment " + file + " does not match its recorded checksum");
+        }
+        channel.position(segmentBytes);
+    }
+
+    @Override
+    public void write(Chunk<? extends Quote> chunk) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        if (channel == null) {
+            startSegment();
+        }
+
+        buffer.reset();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(buffer, 8192), StandardCharsets.UTF_8)) {
+            if (segmentBytes == 0) {
+                out.write(HEADER);
+            }
+            for (Quote quote : chunk) {
+                writeRow(out, quote);
+            }
+        }
+
+        ByteBuffer member = buffer.view();
+        while (member.hasRemaining()) {
+            channel.write(member);
+        }
+        // Durable before the chunk's DELETE commits
+        channel.force(false);
+
+        segmentCrc.update(buffer.view());
+        segmentBytes += buffer.size();
+        segmentRows += chunk.size();
+        if (segmentBytes >= maxSegmentBytes) {
+            closeSegment();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        segmentName = String.format("%s-%05d.csv.gz", filePrefix, segmentNumber);
+        // A leftover file of this name can only hold uncommitted data of a failed execution
+        channel = FileChannel.open(directory.resolve(segmentName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segmentBytes = 0;
+        segmentRows = 0;
+        segmentCrc.reset();
+    }
+
+    private void closeSegment() throws IOException {
+        channel.close();
+        channel = null;
+        closedSegments.add(segmentName + ":" + segmentBytes + ":" + segmentRows + ":" + segmentCrc.getValue());
+        log.info("Closed archive segment {} with {} rows ({} bytes)", segmentName, segmentRows, segmentBytes);
+        segmentNumber++;
+        segmentName = null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putString(CLOSED_SEGMENTS_KEY, String.join(";", closedSegments));
+        if (segmentName != null) {
+            executionContext.putString(SEGMENT_KEY, segmentName);
+            executionContext.putLong(SEGMENT_BYTES_KEY, segmentBytes);
+            executionContext.putLong(SEGMENT_ROWS_KEY, segmentRows);
+            executionContext.putLong(SEGMENT_CRC_KEY, segmentCrc.getValue());
+        } else {
+            executionContext.remove(SEGMENT_KEY);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    private static void writeRow(Writer out, Quote quote) throws IOException {
+        out.write(String.valueOf(quote.getId()));
+        out.write(',');
+        writeField(out, quote.getQuoteId());
+        out.write(',');
+        writeField(out, quote.getBasicQuoteId());
+        out.write(',');
+        writeField(out, quote.getCustomerName());
+        out.write(',');
+        writeField(out, quote.getCustomerEmail());
+        out.write(',');
+        writeField(out, quote.getCustomerPhone());
+        out.write(',');
+        writeField(out, quote.getRequestText());
+        out.write(',');
+        writeField(out, quote.getCreatedTime() == null ? null : quote.getCreatedTime().toString());
+        out.write(',');
+        out.write(quote.isOptIn() ? "true" : "false");
+        out.write('\n');
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks, and double embedded quotes
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /** Exposes the compressed member without copying it. */
+    private static final class MemberBuffer extends ByteArrayOutputStream {
+
+        MemberBuffer() {
+            super(64 * 1024);
+        }
+
+        ByteBuffer view() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.dto.Quote;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Purges a chunk and archives exactly the rows the purge removed. Within the
+ * chunk transaction the rows of the chunk that are still due are locked on
+ * the quote database ({@code SELECT ... FOR UPDATE}) and deleted with the same
+ * predicate, and only then are the locked rows, as the quote database has
+ * them, handed to the {@link QuoteArchiveWriter}. The transaction commits
+ * after the archive is on disk.
+ * <p>
+ * A row that is no longer due, or that a concurrent purge removed first, is
+ * neither deleted nor archived, and a row read from a lagging replica is
+ * archived with its current content. The reader therefore only has to supply
+ * the ids. If the archive write fails, the chunk rolls back with the DELETE.
+ * <p>
+ * Portable: a {@code DELETE ... RETURNING} would save the SELECT on PostgreSQL,
+ * but H2 has no equivalent. Not thread-safe, like the archive it writes to.
+ */
+public class QuoteArchivingDeleteWriter implements ItemStreamWriter<Quote> {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuoteArchiveWriter archive;
+    private final Supplier<LocalDateTime> cutoff;
+
+    /**
+     * @param cutoff the {@code created_time} a row has to be older than to be purged, asked once per chunk
+     */
+    public QuoteArchivingDeleteWriter(DataSource dataSource, QuoteArchiveWriter archive,
+                                      Supplier<LocalDateTime> cutoff) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.archive = archive;
+        this.cutoff = cutoff;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        archive.open(executionContext);
+    }
+
+    @Override
+    public void write(Chunk<? extends Quote> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(chunk.size() + 1);
+        StringBuilder inList = new StringBuilder(chunk.size() * 3);
+        for (Quote quote : chunk) {
+            inList.append(inList.isEmpty() ? "?" : ", ?");
+            args.add(quote.getId());
+        }
+        args.add(Timestamp.valueOf(cutoff.get()));
+        String predicate = " FROM quote WHERE id IN (" + inList + ") AND created_time < ?";
+
+        List<Quote> due = jdbcTemplate.query(
+                QuoteProjection.FULL.selectClause() + predicate + " ORDER BY id FOR UPDATE",
+                QuoteProjection.FULL.rowMapper(), args.toArray());
+        if (due.isEmpty()) {
+            return;
+        }
+        // The locked rows cannot change before the DELETE, so it removes exactly them
+        jdbcTemplate.update("DELETE" + predicate, args.toArray());
+        archive.write(new Chunk<>(due));
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        archive.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        archive.close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.batch.spring_batch.batch;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Deletes a whole buffer of quote ids with one statement. On PostgreSQL the ids
+ * are bound as a single {@code bigint[]} parameter ({@code id = ANY(?)}); other
+ * databases such as H2 get a portable {@code IN (...)} list. The cutoff is
+ * re-checked so that a row is never deleted if it no longer qualifies.
+ * Not thread-safe: one instance serves one step thread.
+ */
+public class QuoteIdArrayDeleteWriter {
+
+    private static final String ARRAY_DELETE_SQL =
+            "DELETE FROM quote WHERE id = ANY(CAST(? AS BIGINT[])) AND created_time < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private Boolean postgres;
+
+    // IN-list statement for the last used buffer size; full chunks keep reusing it
+    private String inListSql;
+    private int inListSize;
+
+    public QuoteIdArrayDeleteWriter(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Deletes the first {@code count} ids of {@code ids}.
+     *
+     * @return the number of rows actually deleted
+     */
+    public int delete(long[] ids, int count, LocalDateTime twoYearsAgo) {
+        if (count == 0) {
+            return 0;
+        }
+        Timestamp cutoff = Timestamp.valueOf(twoYearsAgo);
+        if (isPostgres()) {
+            return jdbcTemplate.update(ARRAY_DELETE_SQL, ps -> {
+                ps.setString(1, toArrayLiteral(ids, count));
+                ps.setTimestamp(2, cutoff);
+            });
+        }
+        return jdbcTemplate.update(inListSql(count), ps -> {
+            for (int i = 0; i < count; i++) {
+                ps.setLong(i + 1, ids[i]);
+            }
+            ps.setTimestamp(count + 1, cutoff);
+        });
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) (Connection con) -> {
+                DatabaseMetaData metaData = con.getMetaData();
+                return metaData.getDatabaseProductName().toLowerCase().contains("postgresql");
+            });
+            postgres = result;
+        }
+        return result;
+    }
+
+    private String inListSql(int count) {
+        if (inListSql == null || inListSize != count) {
+            StringBuilder sql = new StringBuilder(40 + count * 3).append("DELETE FROM quote WHERE id IN (");
+            for (int i = 0; i < count; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            inListSql = sql.append(") AND created_time < ?").toString();
+            inListSize = count;
+        }
+        return inListSql;
+    }
+
+    /** Renders {@code {1,2,3}} directly from the primitive buffer. */
+    static String toArrayLiteral(long[] ids, int count) {
+        StringBuilder literal = new StringBuilder(count * 8 + 2).append('{');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(ids[i]);
+        }
+        return literal.append('}').toString();
+    }
+}
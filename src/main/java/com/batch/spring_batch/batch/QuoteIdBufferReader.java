@@ -0,0 +1,78 @@
+package com.batch.spring_batch.batch;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reads the ids of expired quotes straight into a caller-supplied primitive
+ * buffer, one keyset page per call, without creating an object per row.
+ * The last returned id and the cutoff are saved as stream state, so a restart
+ * continues after the last committed buffer.
+ */
+public class QuoteIdBufferReader implements ItemStream {
+
+    static final String LAST_ID_KEY = "quoteIdBufferReader.lastId";
+    static final String TWO_YEARS_AGO_KEY = "quoteIdBufferReader.twoYearsAgo";
+
+    private static final String SELECT_SQL =
+            "SELECT id FROM quote WHERE created_time < ? AND id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private LocalDateTime twoYearsAgo;
+    private long lastId;
+
+    public QuoteIdBufferReader(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        twoYearsAgo = executionContext.containsKey(TWO_YEARS_AGO_KEY)
+                ? LocalDateTime.parse(executionContext.getString(TWO_YEARS_AGO_KEY))
+                : LocalDateTime.now().minusYears(2);
+        lastId = executionContext.getLong(LAST_ID_KEY, Long.MIN_VALUE);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putString(TWO_YEARS_AGO_KEY, twoYearsAgo.toString());
+        executionContext.putLong(LAST_ID_KEY, lastId);
+    }
+
+    /**
+     * Fills {@code buffer} from index 0 with the next ids in ascending order.
+     *
+     * @return the number of ids written, 0 once the table is exhausted
+     */
+    public int read(long[] buffer) {
+        int count = jdbcTemplate.execute(SELECT_SQL, (PreparedStatement ps) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(twoYearsAgo));
+            ps.setLong(2, lastId);
+            ps.setInt(3, buffer.length);
+            ps.setFetchSize(buffer.length);
+            int n = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    buffer[n++] = rs.getLong(1);
+                }
+            }
+            return n;
+        });
+        if (count > 0) {
+            lastId = buffer[count - 1];
+        }
+        return count;
+    }
+
+    public LocalDateTime getTwoYearsAgo() {
+        return twoYearsAgo;
+    }
+}
@@ -0,0 +1,37 @@
+package com.batch.spring_batch.batch;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+
+/**
+ * Id-only purge loop: every iteration fills one primitive id buffer and deletes
+ * it with a single statement, so each buffer is one transaction. Register the
+ * reader as a stream on the step so its position is saved with each commit.
+ */
+public class QuoteIdChunkDeleteTasklet implements Tasklet {
+
+    private final QuoteIdBufferReader reader;
+    private final QuoteIdArrayDeleteWriter writer;
+    private final long[] buffer;
+
+    public QuoteIdChunkDeleteTasklet(QuoteIdBufferReader reader, QuoteIdArrayDeleteWriter writer, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.reader = reader;
+        this.writer = writer;
+        this.buffer = new long[chunkSize];
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        int count = reader.read(buffer);
+        for (int i = 0; i < count; i++) {
+            contribution.incrementReadCount();
+        }
+        contribution.incrementWriteCount(writer.delete(buffer, count, reader.getTwoYearsAgo()));
+        return count < buffer.length ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+}
@@ -0,0 +1,89 @@
+package com.batch.spring_batch.batch;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Splits the ids of the quotes in a date window (by default: older than two
+ * years) into contiguous ranges, one per partition. Each partition context
+ * carries its inclusive id bounds, the window's cutoffs and the
+ * {@link QuoteRunTime} they derive from, so every worker (and every restart
+ * of a worker) works against the same date window.
+ */
+public class QuoteIdRangePartitioner implements Partitioner {
+
+    public static final String MIN_ID_KEY = "minId";
+    public static final String MAX_ID_KEY = "maxId";
+    public static final String TWO_YEARS_AGO_KEY = "twoYearsAgo";
+    public static final String ONE_MONTH_AGO_KEY = "oneMonthAgo";
+
+    /** Rows due for deletion. */
+    public static final String DELETE_WINDOW = "created_time < :twoYearsAgo";
+    /** Rows due for the opt-out. */
+    public static final String UPDATE_WINDOW = "created_time BETWEEN :twoYearsAgo AND :oneMonthAgo AND opt_in = TRUE";
+
+    private final Logger log = LoggerFactory.getLogger(QuoteIdRangePartitioner.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String window;
+
+    public QuoteIdRangePartitioner(DataSource dataSource) {
+        this(dataSource, DELETE_WINDOW);
+    }
+
+    /**
+     * @param window condition on quote, with {@code :twoYearsAgo} and {@code :oneMonthAgo} as parameters
+     */
+    public QuoteIdRangePartitioner(DataSource dataSource, String window) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.window = window;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime twoYearsAgo = now.minusYears(2);
+        LocalDateTime oneMonthAgo = now.minusMonths(1);
+        long[] bounds = jdbcTemplate.queryForObject("SELECT MIN(id), MAX(id) FROM quote WHERE " + window,
+                new MapSqlParameterSource()
+                        .addValue("twoYearsAgo", Timestamp.valueOf(twoYearsAgo))
+                        .addValue("oneMonthAgo", Timestamp.valueOf(oneMonthAgo)),
+                (rs, rowNum) -> {
+                    long minId = rs.getLong(1);
+                    long maxId = rs.getLong(2);
+                    // MIN/MAX are NULL when nothing matches: use an empty range
+                    return rs.wasNull() ? new long[]{1, 0} : new long[]{minId, maxId};
+                });
+
+        long minId = bounds[0];
+        long maxId = bounds[1];
+        int partitions = (int) Math.max(1, Math.min(gridSize, maxId - minId + 1));
+        long rangeSize = (maxId - minId) / partitions + 1;
+
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+        for (int i = 0; i < partitions; i++) {
+            long lower = minId + i * rangeSize;
+            long upper = i == partitions - 1 ? maxId : Math.min(maxId, lower + rangeSize - 1);
+            ExecutionContext context = new ExecutionContext();
+            context.putLong(MIN_ID_KEY, lower);
+            context.putLong(MAX_ID_KEY, upper);
+            context.putString(TWO_YEARS_AGO_KEY, twoYearsAgo.toString());
+            context.putString(ONE_MONTH_AGO_KEY, oneMonthAgo.toString());
+            QuoteRunTime.store(context, now);
+            result.put("partition" + i, context);
+        }
+        log.info("Split ids [{}, {}] of quotes where {} (twoYearsAgo={}, oneMonthAgo={}) into {} partitions",
+                minId, maxId, window, twoYearsAgo, oneMonthAgo, partitions);
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import com.batch.spring_batch.config.QuoteShardConfig;
+import com.batch.spring_batch.config.QuoteShards;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.builder.SimpleJobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// -----------------------------------------------------------------------
+// processQuotesJob: the retention cycle on the quote database, planned, or on every shard
+// -----------------------------------------------------------------------
+@Configuration
+public class QuoteJobConfig {
+
+    private final BatchConfig batchConfig;
+    private final QuoteStepConfig stepConfig;
+    private final FusedRetentionConfig fusedRetentionConfig;
+    private final QuotePartitionConfig partitionConfig;
+    private final QuotePlannerConfig plannerConfig;
+    private final QuoteShardConfig shardConfig;
+    private final JobRepository jobRepository;
+    private final QuoteBatchProperties properties;
+    private QuoteShards quoteShards;
+
+    public QuoteJobConfig(BatchConfig batchConfig, QuoteStepConfig stepConfig,
+                          FusedRetentionConfig fusedRetentionConfig, QuotePartitionConfig partitionConfig,
+                          QuotePlannerConfig plannerConfig, QuoteShardConfig shardConfig,
+                          JobRepository jobRepository, QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.stepConfig = stepConfig;
+        this.fusedRetentionConfig = fusedRetentionConfig;
+        this.partitionConfig = partitionConfig;
+        this.plannerConfig = plannerConfig;
+        this.shardConfig = shardConfig;
+        this.jobRepository = jobRepository;
+        this.properties = properties;
+    }
+
+    @Autowired(required = false)
+    public void setQuoteShards(QuoteShards quoteShards) {
+        this.quoteShards = quoteShards;
+    }
+
+    @Bean
+    public Job processQuotesJob() throws Exception {
+        JobBuilder job = new JobBuilder("processQuotesJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .listener(batchConfig.jobCompletionListener())
+                .listener((JobExecutionListener) batchConfig.quoteAuditListener());
+        if (properties.getPlanner().isEnabled()) {
+            return job.start(plannerConfig.plannedFlow())
+                    .end()
+                    .build();
+        }
+        if (quoteShards == null || quoteShards.isEmpty()) {
+            List<Step> steps = retentionSteps(null);
+            SimpleJobBuilder sequence = job.start(steps.get(0));
+            for (Step step : steps.subList(1, steps.size())) {
+                sequence.next(step);
+            }
+            if (properties.getMetadata().isPurgeEnabled()) {
+                sequence.next(batchConfig.purgeBatchMetadataStep());
+            }
+            return sequence.build();
+        }
+        batchConfig.requireConcurrentRepository("Quote shards");
+        Flow shardFlows = shardConfig.shardFlows(quoteShards, this::retentionSteps);
+        if (properties.getMetadata().isPurgeEnabled()) {
+            return job.start(shardFlows)
+                    .next(batchConfig.purgeBatchMetadataStep())
+                    .end()
+                    .build();
+        }
+        return job.start(shardFlows)
+                .end()
+                .build();
+    }
+
+    // The steps of one retention cycle, on the quote database or on one shard:
+    // [partition maintenance,] update then delete, or the fused step
+    private List<Step> retentionSteps(QuoteShard shard) throws Exception {
+        List<Step> steps = new ArrayList<>();
+        if (properties.getPartitioning().isEnabled()) {
+            steps.add(shard == null ? partitionConfig.maintainQuotePartitionsStep()
+                    : partitionConfig.partitionMaintenanceStep(shard.qualified("maintainQuotePartitionsStep"), shard));
+        }
+        if (properties.getRetention().getMode() == QuoteBatchProperties.RetentionMode.FUSED) {
+            steps.add(shard == null ? fusedRetentionConfig.retainQuotesStep()
+                    : fusedRetentionConfig.retentionStep(shard.qualified("retainQuotesStep"), shard));
+        } else {
+            steps.add(shard == null ? stepConfig.updateOptInStep()
+                    : stepConfig.updateStep(shard.qualified("updateOptInStep"), shard));
+            steps.add(shard == null ? stepConfig.deleteOldQuotesStep()
+                    : stepConfig.deleteStep(shard.qualified("deleteOldQuotesStep"), shard));
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,89 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import java.time.Clock;
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// -----------------------------------------------------------------------
+// Monthly partitions of quote: maintenance ahead of the inserts, and the DETACH_PARTITIONS purge
+// -----------------------------------------------------------------------
+@Configuration
+public class QuotePartitionConfig {
+
+    private final BatchConfig batchConfig;
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource batchDataSource;
+    private final QuoteBatchProperties properties;
+
+    public QuotePartitionConfig(BatchConfig batchConfig, JobRepository jobRepository,
+                                @Qualifier("batchTransactionManager") PlatformTransactionManager transactionManager,
+                                @Qualifier("batchDataSource") DataSource batchDataSource,
+                                QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.jobRepository = jobRepository;
+        this.transactionManager = transactionManager;
+        this.batchDataSource = batchDataSource;
+        this.properties = properties;
+    }
+
+    @Bean
+    public QuotePartitions quotePartitions() {
+        return new QuotePartitions(batchDataSource);
+    }
+
+    @Bean
+    public QuotePartitionDropTasklet quotePartitionDropTasklet() {
+        return new QuotePartitionDropTasklet(quotePartitions(), batchDataSource,
+                properties.getDelete().getIdChunkSize(), Clock.systemDefaultZone());
+    }
+
+    @Bean
+    public QuotePartitionMaintenanceTasklet quotePartitionMaintenanceTasklet() {
+        return new QuotePartitionMaintenanceTasklet(quotePartitions(), properties.getPartitioning().getMonthsAhead(),
+                Clock.systemDefaultZone());
+    }
+
+    @Bean
+    public Step maintainQuotePartitionsStep() {
+        return partitionMaintenanceStep("maintainQuotePartitionsStep", null);
+    }
+
+    Step partitionMaintenanceStep(String stepName, QuoteShard shard) {
+        return new StepBuilder(stepName, jobRepository)
+                .tasklet(shard == null ? quotePartitionMaintenanceTasklet()
+                        : new QuotePartitionMaintenanceTasklet(new QuotePartitions(shard.dataSource()),
+                                properties.getPartitioning().getMonthsAhead(), Clock.systemDefaultZone()),
+                        shard == null ? transactionManager : shard.transactionManager())
+                .build();
+    }
+
+    // The delete step in DETACH_PARTITIONS mode, on the quote database or on one shard
+    Step detachPartitionsStep(String stepName, QuoteShard shard) {
+        if (!properties.getPartitioning().isEnabled()) {
+            throw new IllegalStateException(
+                    "batch.quote.delete.mode=DETACH_PARTITIONS needs the partitioned quote table; set batch.quote.partitioning.enabled=true");
+        }
+        if (properties.getArchive().isEnabled()) {
+            // Dropped partitions never pass through a writer
+            throw new IllegalStateException(
+                    "batch.quote.delete.mode=DETACH_PARTITIONS cannot archive purged rows; set batch.quote.archive.enabled=false");
+        }
+        QuotePartitionDropTasklet tasklet = shard == null ? quotePartitionDropTasklet()
+                : new QuotePartitionDropTasklet(new QuotePartitions(shard.dataSource()), shard.dataSource(),
+                        properties.getDelete().getIdChunkSize(), Clock.systemDefaultZone());
+        // One dropped partition or one boundary chunk per tasklet iteration
+        return batchConfig.instrumented(new StepBuilder(stepName, jobRepository)
+                        .tasklet(tasklet, shard == null ? transactionManager : shard.transactionManager()))
+                .build();
+    }
+}
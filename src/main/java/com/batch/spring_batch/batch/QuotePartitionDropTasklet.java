@@ -0,0 +1,79 @@
+package com.batch.spring_batch.batch;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.Optional;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Purge for the month-partitioned quote table. Every partition that lies
+ * wholly before the cutoff is detached and dropped, one per call of
+ * {@link #execute} (and so one per commit), whatever the number of rows in
+ * it. What remains past the cutoff can only be in the partition the cutoff
+ * falls into; those rows are deleted in chunks of {@code chunkSize}, one chunk
+ * per call. The cutoff is kept in the step ExecutionContext for restarts.
+ * <p>
+ * Rows of dropped partitions are not counted: counting them would cost the
+ * scan the drop avoids.
+ */
+public class QuotePartitionDropTasklet implements Tasklet {
+
+    static final String CUTOFF_KEY = "partitionDrop.twoYearsAgo";
+
+    private static final String DELETE_SQL = "DELETE FROM quote WHERE id IN"
+            + " (SELECT id FROM quote WHERE created_time < ? LIMIT ?) AND created_time < ?";
+
+    private final Logger log = LoggerFactory.getLogger(QuotePartitionDropTasklet.class);
+
+    private final QuotePartitions partitions;
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final Clock clock;
+
+    public QuotePartitionDropTasklet(QuotePartitions partitions, DataSource dataSource, int chunkSize, Clock clock) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.partitions = partitions;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.chunkSize = chunkSize;
+        this.clock = clock;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        ExecutionContext context = chunkContext.getStepContext().getStepExecution().getExecutionContext();
+        if (!context.containsKey(CUTOFF_KEY)) {
+            context.putString(CUTOFF_KEY, LocalDateTime.now(clock).minusYears(2).toString());
+        }
+        LocalDateTime cutoff = LocalDateTime.parse(context.getString(CUTOFF_KEY));
+
+        Optional<YearMonth> expired = partitions.months().stream()
+                .filter(month -> QuotePartitions.expired(month, cutoff))
+                .min(Comparator.naturalOrder());
+        if (expired.isPresent()) {
+            partitions.detachAndDrop(expired.get());
+            log.info("Dropped quote partition {} (cutoff {})", QuotePartitions.name(expired.get()), cutoff);
+            return RepeatStatus.CONTINUABLE;
+        }
+
+        // Only the partition the cutoff falls into is left with rows before it
+        Timestamp before = Timestamp.valueOf(cutoff);
+        int deleted = jdbcTemplate.update(DELETE_SQL, before, chunkSize, before);
+        contribution.incrementWriteCount(deleted);
+        log.debug("Deleted {} rows created before {} from the boundary partition", deleted, cutoff);
+        return deleted < chunkSize ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+    }
+}
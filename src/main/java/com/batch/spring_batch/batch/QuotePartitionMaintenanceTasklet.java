@@ -0,0 +1,44 @@
+package com.batch.spring_batch.batch;
+
+import java.time.Clock;
+import java.time.YearMonth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+
+/**
+ * Creates the partitions of the current month and the {@code monthsAhead}
+ * months after it, so that an insert never finds its month missing. Creating
+ * a partition that already exists is a no-op.
+ */
+public class QuotePartitionMaintenanceTasklet implements Tasklet {
+
+    private final Logger log = LoggerFactory.getLogger(QuotePartitionMaintenanceTasklet.class);
+
+    private final QuotePartitions partitions;
+    private final int monthsAhead;
+    private final Clock clock;
+
+    public QuotePartitionMaintenanceTasklet(QuotePartitions partitions, int monthsAhead, Clock clock) {
+        if (monthsAhead < 0) {
+            throw new IllegalArgumentException("monthsAhead must not be negative");
+        }
+        this.partitions = partitions;
+        this.monthsAhead = monthsAhead;
+        this.clock = clock;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        YearMonth current = YearMonth.now(clock);
+        for (int i = 0; i <= monthsAhead; i++) {
+            partitions.create(current.plusMonths(i));
+        }
+        log.info("Quote partitions exist up to {}", QuotePartitions.name(current.plusMonths(monthsAhead)));
+        return RepeatStatus.FINISHED;
+    }
+}
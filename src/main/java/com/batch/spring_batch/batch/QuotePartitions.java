@@ -0,0 +1,71 @@
+package com.batch.spring_batch.batch;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The monthly partitions of the quote table, as laid out by
+ * {@code db/quote/migration/V1__partition_quote_by_month.sql}: partition
+ * {@code quote_pYYYYMM} holds the rows created in that month. Partitions
+ * that do not follow the naming scheme are ignored. PostgreSQL only.
+ */
+public class QuotePartitions {
+
+    private static final Pattern NAME = Pattern.compile("quote_p(\\d{6})");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String LIST_SQL = "SELECT c.relname FROM pg_inherits i"
+            + " JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'quote'::regclass";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QuotePartitions(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * @return the months that have a partition, in no particular order
+     */
+    public List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(LIST_SQL, String.class)) {
+            Matcher matcher = NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.parse(matcher.group(1), MONTH));
+            }
+        }
+        return months;
+    }
+
+    public void create(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name(month) + " PARTITION OF quote FOR VALUES FROM ('"
+                + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    /**
+     * Detaches the partition and drops it with all its rows; no row is deleted one by one.
+     */
+    public void detachAndDrop(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE quote DETACH PARTITION " + name(month));
+        jdbcTemplate.execute("DROP TABLE " + name(month));
+    }
+
+    static String name(YearMonth month) {
+        return "quote_p" + month.format(MONTH);
+    }
+
+    /**
+     * A partition can be dropped whole once its last row is older than the cutoff.
+     */
+    static boolean expired(YearMonth month, LocalDateTime cutoff) {
+        return !month.plusMonths(1).atDay(1).atStartOfDay().isAfter(cutoff);
+    }
+}
@@ -0,0 +1,164 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShards;
+import com.batch.spring_batch.dto.Quote;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// -----------------------------------------------------------------------
+// Planned runs: planQuoteRunStep estimates both windows, deciders pick each step's strategy
+// -----------------------------------------------------------------------
+@Configuration
+public class QuotePlannerConfig {
+    private final Logger log = LoggerFactory.getLogger(QuotePlannerConfig.class);
+
+    private final BatchConfig batchConfig;
+    private final QuotePartitionConfig partitionConfig;
+    private final QuoteStepConfig stepConfig;
+    private final PartitionedDeleteConfig partitionedDeleteConfig;
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource batchDataSource;
+    private final QuoteBatchProperties properties;
+    private QuoteShards quoteShards;
+
+    public QuotePlannerConfig(BatchConfig batchConfig, QuotePartitionConfig partitionConfig,
+                              QuoteStepConfig stepConfig, PartitionedDeleteConfig partitionedDeleteConfig,
+                              JobRepository jobRepository,
+                              @Qualifier("batchTransactionManager") PlatformTransactionManager transactionManager,
+                              @Qualifier("batchDataSource") DataSource batchDataSource,
+                              QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.partitionConfig = partitionConfig;
+        this.stepConfig = stepConfig;
+        this.partitionedDeleteConfig = partitionedDeleteConfig;
+        this.jobRepository = jobRepository;
+        this.transactionManager = transactionManager;
+        this.batchDataSource = batchDataSource;
+        this.properties = properties;
+    }
+
+    @Autowired(required = false)
+    public void setQuoteShards(QuoteShards quoteShards) {
+        this.quoteShards = quoteShards;
+    }
+
+    @Bean
+    public Step planQuoteRunStep() {
+        QuoteBatchProperties.Planner planner = properties.getPlanner();
+        QuoteRunPlanner tasklet = new QuoteRunPlanner(batchDataSource, planner.getLargeChunkThreshold(),
+                planner.getPartitionThreshold(), properties.getChunk().getSize(), planner.getLargeChunkSize(),
+                Clock.systemDefaultZone(), Metrics.globalRegistry);
+        return new StepBuilder("planQuoteRunStep", jobRepository)
+                .tasklet(tasklet, transactionManager)
+                .listener((StepExecutionListener) batchConfig.quoteStepMetricsListener())
+                .build();
+    }
+
+    @Bean
+    public QuoteIdRangePartitioner quoteUpdateRangePartitioner() {
+        return new QuoteIdRangePartitioner(batchDataSource, QuoteIdRangePartitioner.UPDATE_WINDOW);
+    }
+
+    // Reads a single id range of the update window handed out by quoteUpdateRangePartitioner (planned PARTITIONED update)
+    @Bean
+    @StepScope
+    public ItemStreamReader<Quote> quoteReaderForUpdatePartition(
+            @Value("#{stepExecutionContext['minId']}") Long minId,
+            @Value("#{stepExecutionContext['maxId']}") Long maxId,
+            @Value("#{stepExecutionContext['twoYearsAgo']}") String twoYearsAgo,
+            @Value("#{stepExecutionContext['oneMonthAgo']}") String oneMonthAgo) throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("minId", minId);
+        params.put("maxId", maxId);
+        params.put("twoYearsAgo", LocalDateTime.parse(twoYearsAgo));
+        params.put("oneMonthAgo", LocalDateTime.parse(oneMonthAgo));
+        params.put("optIn", true);
+
+        log.debug("Executing partitioned update query with parameters: {}", params);
+
+        QuoteBatchProperties.Reader settings = properties.getUpdate().getReader();
+        return batchConfig.quoteReader("quoteReaderForUpdatePartition",
+                batchConfig.readDataSource("quoteReaderForUpdatePartition", settings),
+                QuoteProjection.OPT_IN, "WHERE id >= :minId AND id <= :maxId"
+                        + " AND created_time BETWEEN :twoYearsAgo AND :oneMonthAgo AND opt_in = :optIn",
+                params, settings);
+    }
+
+    @Bean
+    public Step updateOptInPartitionedStep() throws Exception {
+        return partitionedDeleteConfig.partitionedStep("updateOptInPartitionedStep", quoteUpdateRangePartitioner(),
+                updateOptInWorkerStep());
+    }
+
+    @Bean
+    public Step updateOptInWorkerStep() throws Exception {
+        return batchConfig.instrumented(batchConfig.<Quote, Quote>chunked("updateOptInWorkerStep", transactionManager,
+                        batchDataSource)
+                .reader(quoteReaderForUpdatePartition(null, null, null, null))
+                .processor(batchConfig.quoteUpdateProcessor())
+                .writer(batchConfig.quoteUpdateWriter()))
+                .build();
+    }
+
+    @Bean
+    public Step deleteOldQuotesPartitionedStep() throws Exception {
+        return partitionedDeleteConfig.partitionedStep("deleteOldQuotesPartitionedStep",
+                partitionedDeleteConfig.quoteIdRangePartitioner(), partitionedDeleteConfig.deleteOldQuotesWorkerStep());
+    }
+
+    // [partition maintenance,] the planned update, the planned delete [, metadata purge]
+    Flow plannedFlow() throws Exception {
+        if ((quoteShards != null && !quoteShards.isEmpty())
+                || properties.getRetention().getMode() != QuoteBatchProperties.RetentionMode.SPLIT
+                || properties.getUpdate().getMode() != QuoteBatchProperties.UpdateMode.CHUNK
+                || properties.getDelete().getMode() != QuoteBatchProperties.DeleteMode.CHUNK) {
+            throw new IllegalStateException("batch.quote.planner.enabled plans the CHUNK update and delete steps;"
+                    + " it cannot be combined with quote shards, FUSED retention or other update and delete modes");
+        }
+        // Any run may be planned as PARTITIONED
+        batchConfig.requireConcurrentRepository("batch.quote.planner.enabled");
+        FlowBuilder<Flow> flow = new FlowBuilder<Flow>("plannedRun").start(planQuoteRunStep());
+        if (properties.getPartitioning().isEnabled()) {
+            flow.next(partitionConfig.maintainQuotePartitionsStep());
+        }
+        flow.next(plannedStep(QuoteRunPlanner.UPDATE, stepConfig.updateOptInStep(), updateOptInPartitionedStep()))
+                .next(plannedStep(QuoteRunPlanner.DELETE, stepConfig.deleteOldQuotesStep(),
+                        deleteOldQuotesPartitionedStep()));
+        if (properties.getMetadata().isPurgeEnabled()) {
+            flow.next(batchConfig.purgeBatchMetadataStep());
+        }
+        return flow.build();
+    }
+
+    // CHUNK and LARGE_CHUNK run the chunk step, PARTITIONED the partitioned one
+    private static Flow plannedStep(String step, Step chunkStep, Step partitionedStep) {
+        QuoteRunPlanDecider decider = new QuoteRunPlanDecider(step);
+        return new FlowBuilder<Flow>("planned-" + step)
+                .start(decider).on(QuoteRunPlanner.Strategy.PARTITIONED.name()).to(partitionedStep)
+                .from(decider).on("*").to(chunkStep)
+                .build();
+    }
+}
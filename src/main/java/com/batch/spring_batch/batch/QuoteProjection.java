@@ -0,0 +1,59 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.dto.Quote;
+import java.time.LocalDateTime;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * The column sets the quote readers fetch, each matched to what the downstream
+ * processor and writers actually use. Mappers read by column index in the order
+ * of the select list, so no column-name lookup happens per row and unused
+ * columns never leave the database.
+ */
+public enum QuoteProjection {
+
+    /** quoteUpdateProcessor reads created_time and opt_in, quoteUpdateWriter binds id and opt_in. */
+    OPT_IN("SELECT id, created_time, opt_in", (rs, rowNum) -> {
+        Quote q = new Quote();
+        q.setId(rs.getLong(1));
+        q.setCreatedTime(rs.getObject(2, LocalDateTime.class));
+        q.setOptIn(rs.getBoolean(3));
+        return q;
+    }),
+
+    /** The delete writers only bind the id. */
+    ID("SELECT id", (rs, rowNum) -> {
+        Quote q = new Quote();
+        q.setId(rs.getLong(1));
+        return q;
+    }),
+
+    /** Every column, which QuoteArchivingDeleteWriter reads back from the rows it purges for the archive. */
+    FULL("SELECT id, quote_id, basic_quote_id, customer_name, customer_email, customer_phone, request_text,"
+            + " created_time, opt_in", (rs, rowNum) -> new Quote(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getString(7),
+            rs.getObject(8, LocalDateTime.class),
+            rs.getBoolean(9)));
+
+    private final String selectClause;
+    private final RowMapper<Quote> rowMapper;
+
+    QuoteProjection(String selectClause, RowMapper<Quote> rowMapper) {
+        this.selectClause = selectClause;
+        this.rowMapper = rowMapper;
+    }
+
+    public String selectClause() {
+        return selectClause;
+    }
+
+    public RowMapper<Quote> rowMapper() {
+        return rowMapper;
+    }
+}
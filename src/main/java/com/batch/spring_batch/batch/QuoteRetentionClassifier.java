@@ -0,0 +1,44 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.dto.Quote;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.classify.Classifier;
+
+/**
+ * Routes the rows of the fused retention scan: rows past the retention period
+ * go to the delete writer, rows the update processor opted out go to the
+ * update writer, and the rest are written nowhere. The bounds are those of the
+ * run's window, like the reader's. Both writers re-check their predicate on
+ * the quote database, so a row that changed between the read and the write
+ * is left for the next run rather than mishandled.
+ */
+public class QuoteRetentionClassifier implements Classifier<Quote, ItemWriter<? super Quote>> {
+
+    private static final ItemWriter<Quote> UNTOUCHED = chunk -> {
+    };
+
+    private final ItemWriter<? super Quote> updateWriter;
+    private final ItemWriter<? super Quote> deleteWriter;
+    private final Supplier<LocalDateTime> runTime;
+
+    /**
+     * @param runTime the reference time of the run's window, usually {@link QuoteRunTime#current()}
+     */
+    public QuoteRetentionClassifier(ItemWriter<? super Quote> updateWriter, ItemWriter<? super Quote> deleteWriter,
+                                    Supplier<LocalDateTime> runTime) {
+        this.updateWriter = updateWriter;
+        this.deleteWriter = deleteWriter;
+        this.runTime = runTime;
+    }
+
+    @Override
+    public ItemWriter<? super Quote> classify(Quote quote) {
+        if (quote.getCreatedTime().isBefore(runTime.get().minusYears(2))) {
+            return deleteWriter;
+        }
+        return quote.isOptIn() ? UNTOUCHED : updateWriter;
+    }
+}
@@ -0,0 +1,29 @@
+package com.batch.spring_batch.batch;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
+
+/**
+ * Routes a planned step by the strategy {@link QuoteRunPlanner} chose for it:
+ * the status is the {@link QuoteRunPlanner.Strategy} name, CHUNK when the
+ * run has no plan.
+ */
+public class QuoteRunPlanDecider implements JobExecutionDecider {
+
+    private final String step;
+
+    /**
+     * @param step {@link QuoteRunPlanner#UPDATE} or {@link QuoteRunPlanner#DELETE}
+     */
+    public QuoteRunPlanDecider(String step) {
+        this.step = step;
+    }
+
+    @Override
+    public FlowExecutionStatus decide(JobExecution jobExecution, StepExecution stepExecution) {
+        return new FlowExecutionStatus(jobExecution.getExecutionContext()
+                .getString(QuoteRunPlanner.strategyKey(step), QuoteRunPlanner.Strategy.CHUNK.name()));
+    }
+}
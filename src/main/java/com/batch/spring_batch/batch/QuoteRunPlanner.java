@@ -0,0 +1,163 @@
+package com.batch.spring_batch.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * First step of a planned processQuotesJob run. It estimates how many rows
+ * the update and delete windows hold and picks a {@link Strategy} for each of
+ * the two steps:
+ * <ul>
+ *     <li>PARTITIONED from {@code partitionThreshold} rows,</li>
+ *     <li>LARGE_CHUNK from {@code largeChunkThreshold} rows,</li>
+ *     <li>CHUNK otherwise.</li>
+ * </ul>
+ * On PostgreSQL the estimate is the planner's row estimate from EXPLAIN, which
+ * costs no scan. On any other database, H2 in the tests, it is an exact
+ * COUNT(*).
+ * <p>
+ * The plan goes to the job ExecutionContext: per step {@code plan.<step>.estimate},
+ * {@code plan.<step>.strategy} and {@code plan.<step>.chunkSize}, plus
+ * {@code plan.estimator} and {@code plan.runTime}. {@link QuoteRunPlanDecider}
+ * and {@link PlannedChunkSizePolicy} read it from there. A restarted execution
+ * inherits the context, and so keeps the plan of the failed one. Every
+ * decision counts towards {@code quote.batch.plan}, tagged with the step and
+ * the strategy.
+ */
+public class QuoteRunPlanner implements Tasklet {
+
+    public enum Strategy {
+        /** The chunk step at the configured commit interval. */
+        CHUNK,
+        /** The chunk step at the planner's larger commit interval. */
+        LARGE_CHUNK,
+        /** The id ranges of the window in parallel worker steps. */
+        PARTITIONED
+    }
+
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    static final String ESTIMATOR_KEY = "plan.estimator";
+    static final String RUN_TIME_KEY = "plan.runTime";
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private final Logger log = LoggerFactory.getLogger(QuoteRunPlanner.class);
+
+    private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final long largeChunkThreshold;
+    private final long partitionThreshold;
+    private final int chunkSize;
+    private final int largeChunkSize;
+    private final Clock clock;
+    private final MeterRegistry registry;
+
+    /**
+     * @param dataSource the quote database
+     * @param chunkSize  commit interval of the CHUNK strategy
+     */
+    public QuoteRunPlanner(DataSource dataSource, long largeChunkThreshold, long partitionThreshold, int chunkSize,
+                           int largeChunkSize, Clock clock, MeterRegistry registry) {
+        if (largeChunkThreshold > partitionThreshold) {
+            throw new IllegalArgumentException("largeChunkThreshold must not exceed partitionThreshold");
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.largeChunkThreshold = largeChunkThreshold;
+        this.partitionThreshold = partitionThreshold;
+        this.chunkSize = chunkSize;
+        this.largeChunkSize = largeChunkSize;
+        this.clock = clock;
+        this.registry = registry;
+    }
+
+    public static String strategyKey(String step) {
+        return "plan." + step + ".strategy";
+    }
+
+    public static String estimateKey(String step) {
+        return "plan." + step + ".estimate";
+    }
+
+    public static String chunkSizeKey(String step) {
+        return "plan." + step + ".chunkSize";
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        ExecutionContext plan = chunkContext.getStepContext().getStepExecution().getJobExecution()
+                .getExecutionContext();
+        LocalDateTime runTime = LocalDateTime.now(clock);
+        boolean explain = "PostgreSQL".equals(
+                JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("twoYearsAgo", Timestamp.valueOf(runTime.minusYears(2)))
+                .addValue("oneMonthAgo", Timestamp.valueOf(runTime.minusMonths(1)));
+
+        long start = System.nanoTime();
+        plan.putString(ESTIMATOR_KEY, explain ? "explain" : "count");
+        plan.putString(RUN_TIME_KEY, runTime.toString());
+        plan(plan, UPDATE, estimate(QuoteIdRangePartitioner.UPDATE_WINDOW, params, explain));
+        plan(plan, DELETE, estimate(QuoteIdRangePartitioner.DELETE_WINDOW, params, explain));
+        log.info("Planned the run in {} ms ({}): update ~{} rows as {} x{}, delete ~{} rows as {} x{}",
+                (System.nanoTime() - start) / 1_000_000, plan.getString(ESTIMATOR_KEY),
+                plan.getLong(estimateKey(UPDATE)), plan.getString(strategyKey(UPDATE)), plan.getInt(chunkSizeKey(UPDATE)),
+                plan.getLong(estimateKey(DELETE)), plan.getString(strategyKey(DELETE)), plan.getInt(chunkSizeKey(DELETE)));
+        return RepeatStatus.FINISHED;
+    }
+
+    private void plan(ExecutionContext plan, String step, long estimate) {
+        Strategy strategy = estimate >= partitionThreshold ? Strategy.PARTITIONED
+                : estimate >= largeChunkThreshold ? Strategy.LARGE_CHUNK : Strategy.CHUNK;
+        plan.putLong(estimateKey(step), estimate);
+        plan.putString(strategyKey(step), strategy.name());
+        plan.putInt(chunkSizeKey(step), strategy == Strategy.LARGE_CHUNK ? largeChunkSize : chunkSize);
+        Counter.builder("quote.batch.plan").tag("step", step).tag("strategy", strategy.name()).register(registry)
+                .increment();
+    }
+
+    private long estimate(String window, MapSqlParameterSource params, boolean explain) {
+        if (!explain) {
+            Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote WHERE " + window, params, Long.class);
+            return count == null ? 0 : count;
+        }
+        // EXPLAIN takes no bind parameters; the values are our own timestamps, never input
+        String sql = window;
+        for (String name : params.getParameterNames()) {
+            sql = sql.replace(":" + name, "TIMESTAMP '" + params.getValue(name) + "'");
+        }
+        return planRows(jdbcTemplate.getJdbcTemplate()
+                .queryForList("EXPLAIN SELECT id FROM quote WHERE " + sql, String.class).get(0));
+    }
+
+    /**
+     * @param planLine the top line of a PostgreSQL text plan
+     */
+    static long planRows(String planLine) {
+        Matcher matcher = PLAN_ROWS.matcher(planLine);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No row estimate in the plan: " + planLine);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
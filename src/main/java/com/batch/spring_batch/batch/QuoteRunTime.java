@@ -0,0 +1,49 @@
+package com.batch.spring_batch.batch;
+
+import java.time.LocalDateTime;
+
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * The reference time of the running step's date window, as its
+ * {@link QuoteWindowReader} fixed it when the step opened, or the
+ * {@link QuoteIdRangePartitioner} when it split the run. Writers re-check
+ * their predicate against this window rather than the clock, so they judge a
+ * row by the window it was read in, also late in a long run or on a restart.
+ */
+public final class QuoteRunTime {
+
+    /** Step ExecutionContext key, an ISO {@link LocalDateTime}. */
+    public static final String KEY = "quote.runTime";
+
+    private QuoteRunTime() {
+    }
+
+    public static void store(ExecutionContext executionContext, LocalDateTime runTime) {
+        executionContext.putString(KEY, runTime.toString());
+    }
+
+    /**
+     * @throws IllegalStateException outside a step, or in a step whose reader does not set the run time
+     */
+    public static LocalDateTime current() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            throw new IllegalStateException("No step execution on this thread to take " + KEY + " from");
+        }
+        // Parsed once per step execution; the attribute lives as long as the step's context
+        if (context.getAttribute(KEY) instanceof LocalDateTime runTime) {
+            return runTime;
+        }
+        ExecutionContext executionContext = context.getStepExecution().getExecutionContext();
+        if (!executionContext.containsKey(KEY)) {
+            throw new IllegalStateException("Step " + context.getStepName() + " has no " + KEY
+                    + " in its execution context; its reader or partitioner has to set it");
+        }
+        LocalDateTime runTime = LocalDateTime.parse(executionContext.getString(KEY));
+        context.setAttribute(KEY, runTime);
+        return runTime;
+    }
+}
@@ -0,0 +1,85 @@
+package com.batch.spring_batch.batch;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import com.batch.spring_batch.distributed.DistributedConfig;
+import com.batch.spring_batch.distributed.QuoteWorkItem;
+import com.batch.spring_batch.dto.Quote;
+
+import org.springframework.batch.core.Step;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// -----------------------------------------------------------------------
+// updateOptInStep and deleteOldQuotesStep, built by the configuration of their mode
+// -----------------------------------------------------------------------
+@Configuration
+public class QuoteStepConfig {
+
+    private final BatchConfig batchConfig;
+    private final PipelinedUpdateConfig pipelinedUpdateConfig;
+    private final BulkUpdateConfig bulkUpdateConfig;
+    private final PartitionedDeleteConfig partitionedDeleteConfig;
+    private final IdArrayDeleteConfig idArrayDeleteConfig;
+    private final QuotePartitionConfig partitionConfig;
+    private final DistributedConfig distributedConfig;
+    private final QuoteBatchProperties properties;
+
+    public QuoteStepConfig(BatchConfig batchConfig, PipelinedUpdateConfig pipelinedUpdateConfig,
+                           BulkUpdateConfig bulkUpdateConfig, PartitionedDeleteConfig partitionedDeleteConfig,
+                           IdArrayDeleteConfig idArrayDeleteConfig, QuotePartitionConfig partitionConfig,
+                           DistributedConfig distributedConfig, QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.pipelinedUpdateConfig = pipelinedUpdateConfig;
+        this.bulkUpdateConfig = bulkUpdateConfig;
+        this.partitionedDeleteConfig = partitionedDeleteConfig;
+        this.idArrayDeleteConfig = idArrayDeleteConfig;
+        this.partitionConfig = partitionConfig;
+        this.distributedConfig = distributedConfig;
+        this.properties = properties;
+    }
+
+    @Bean
+    public Step updateOptInStep() throws Exception {
+        return updateStep("updateOptInStep", null);
+    }
+
+    @Bean
+    public Step deleteOldQuotesStep() throws Exception {
+        return deleteStep("deleteOldQuotesStep", null);
+    }
+
+    // The steps run against the quote database beans, or against one shard (then every reader,
+    // writer and tasklet is created for the shard's pool and commits on its transaction manager)
+    Step updateStep(String stepName, QuoteShard shard) throws Exception {
+        return switch (properties.getUpdate().getMode()) {
+            case DISTRIBUTED -> distributedConfig.distributedStep(stepName, shard, QuoteWorkItem.Kind.UPDATE,
+                    batchConfig.readDataSource("quoteReaderForUpdate", properties.getUpdate().getReader()));
+            case BULK -> bulkUpdateConfig.bulkUpdateStep(stepName, shard);
+            case PIPELINED -> pipelinedUpdateConfig.pipelinedUpdateStep(stepName, shard);
+            case CHUNK -> batchConfig.instrumented(batchConfig.<Quote, Quote>chunked(stepName,
+                            batchConfig.transactionManager(shard), batchConfig.writeDataSource(shard),
+                            shard == null ? batchConfig.plan(QuoteRunPlanner.UPDATE) : null)
+                    .reader(batchConfig.updateReader(shard))
+                    .processor(batchConfig.quoteUpdateProcessor())
+                    .writer(batchConfig.updateWriter(shard)))
+                    .build();
+        };
+    }
+
+    Step deleteStep(String stepName, QuoteShard shard) throws Exception {
+        return switch (properties.getDelete().getMode()) {
+            case DISTRIBUTED -> distributedConfig.distributedStep(stepName, shard, QuoteWorkItem.Kind.DELETE,
+                    batchConfig.readDataSource("quoteReaderForDelete", properties.getDelete().getReader()));
+            case PARTITIONED -> partitionedDeleteConfig.partitionedDeleteStep(stepName, shard);
+            case DETACH_PARTITIONS -> partitionConfig.detachPartitionsStep(stepName, shard);
+            case ID_ARRAY -> idArrayDeleteConfig.idArrayDeleteStep(stepName, shard);
+            case CHUNK -> batchConfig.instrumented(batchConfig.<Quote, Quote>chunked(stepName,
+                            batchConfig.transactionManager(shard), batchConfig.writeDataSource(shard),
+                            shard == null ? batchConfig.plan(QuoteRunPlanner.DELETE) : null)
+                    .reader(batchConfig.deleteReader(shard))
+                    .writer(batchConfig.deleteWriter(shard)))
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.batch.spring_batch.batch;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import javax.sql.DataSource;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Per-step high-water marks in {@code batch_quote_watermark} of the quote
+ * database. They outlive job instances, which is what lets every run continue
+ * where the previous completed one stopped.
+ */
+public class QuoteWatermarkStore {
+
+    private static final String SELECT_SQL = "SELECT high_water, last_full_scan FROM batch_quote_watermark"
+            + " WHERE step_name = ?";
+    private static final String UPDATE_SQL = "UPDATE batch_quote_watermark"
+            + " SET high_water = ?, last_full_scan = ?, updated_at = ? WHERE step_name = ?";
+    private static final String INSERT_SQL = "INSERT INTO batch_quote_watermark"
+            + " (step_name, high_water, last_full_scan, updated_at) VALUES (?, ?, ?, ?)";
+
+    /**
+     * @param highWater    rows created up to here have been handled
+     * @param lastFullScan start of the last run that ignored the high-water mark
+     */
+    public record Watermark(LocalDateTime highWater, LocalDateTime lastFullScan) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QuoteWatermarkStore(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public Optional<Watermark> find(String stepName) {
+        List<Watermark> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Watermark(
+                rs.getTimestamp("high_water").toLocalDateTime(),
+                rs.getTimestamp("last_full_scan").toLocalDateTime()), stepName);
+        return rows.stream().findFirst();
+    }
+
+    public void save(String stepName, Watermark watermark) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update(UPDATE_SQL, watermark.highWater(), watermark.lastFullScan(), now, stepName) == 1) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, stepName, watermark.highWater(), watermark.lastFullScan(), now);
+        } catch (DuplicateKeyException e) {
+            // Inserted concurrently by another execution of the same step; this one is as recent
+            jdbcTemplate.update(UPDATE_SQL, watermark.highWater(), watermark.lastFullScan(), now, stepName);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.batch.spring_batch.batch;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Reader over a {@code created_time} window that is evaluated when the step
+ * opens, not when the job is defined, so every run sees its own window. The
+ * run time and lower bound are kept in the step ExecutionContext, and a
+ * restarted execution reads exactly the window of the failed one. The run time
+ * is also published as {@link QuoteRunTime}, for the writers of the step.
+ * <p>
+ * With a {@link QuoteWatermarkStore}, the reader is incremental: the window
+ * starts at the high-water mark that the step's last completed run left
+ * behind, i.e. the upper bound of that run's window. Rows created or
+ * backdated behind the mark are caught by a full scan of the whole window,
+ * which runs once {@code fullScanInterval} has passed since the last one.
+ * The mark only moves when the step completes.
+ * <p>
+ * Has to be registered as a {@link StepExecutionListener} of its step, which
+ * is where the step name (the watermark key) and the completion come from.
+ */
+public class QuoteWindowReader<T> implements ItemStreamReader<T>, StepExecutionListener {
+
+    /**
+     * Creates the actual reader for one window.
+     */
+    @FunctionalInterface
+    public interface WindowReaderFactory<T> {
+
+        /**
+         * @param runTime the reference time the window is computed from
+         * @param since   the high-water mark to start after, or {@code null} to scan the whole window
+         */
+        ItemStreamReader<T> create(LocalDateTime runTime, LocalDateTime since) throws Exception;
+    }
+
+    private final Logger log = LoggerFactory.getLogger(QuoteWindowReader.class);
+
+    private final String name;
+    private final WindowReaderFactory<T> factory;
+    private final UnaryOperator<LocalDateTime> highWaterOf;
+    private final QuoteWatermarkStore watermarkStore;
+    private final Duration fullScanInterval;
+    private final Clock clock;
+
+    private String stepName;
+    private LocalDateTime runTime;
+    private LocalDateTime since;
+    private ItemStreamReader<T> delegate;
+
+    /**
+     * @param highWaterOf    the upper {@code created_time} bound of the window of a run at the given time
+     * @param watermarkStore {@code null} to always scan the whole window
+     */
+    public QuoteWindowReader(String name, WindowReaderFactory<T> factory, UnaryOperator<LocalDateTime> highWaterOf,
+                             QuoteWatermarkStore watermarkStore, Duration fullScanInterval, Clock clock) {
+        this.name = name;
+        this.factory = factory;
+        this.highWaterOf = highWaterOf;
+        this.watermarkStore = watermarkStore;
+        this.fullScanInterval = fullScanInterval;
+        this.clock = clock;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        stepName = stepExecution.getStepName();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (executionContext.containsKey(runTimeKey())) {
+            runTime = LocalDateTime.parse(executionContext.getString(runTimeKey()));
+            since = executionContext.containsKey(sinceKey())
+                    ? LocalDateTime.parse(executionContext.getString(sinceKey())) : null;
+        } else {
+            runTime = LocalDateTime.now(clock);
+            since = incrementalStart().orElse(null);
+        }
+        QuoteRunTime.store(executionContext, runTime);
+        log.info("Reader [{}] window at {} {}", name, runTime, since == null ? "(full scan)" : "after " + since);
+        try {
+            delegate = factory.create(runTime, since);
+            if (delegate instanceof InitializingBean initializingBean) {
+                initializingBean.afterPropertiesSet();
+            }
+        } catch (Exception e) {
+            throw new ItemStreamException("Could not create the reader for " + name, e);
+        }
+        delegate.open(executionContext);
+    }
+
+    private Optional<LocalDateTime> incrementalStart() {
+        if (watermarkStore == null || stepName == null) {
+            return Optional.empty();
+        }
+        return watermarkStore.find(stepName)
+                .filter(watermark -> watermark.lastFullScan().plus(fullScanInterval).isAfter(runTime))
+                .map(QuoteWatermarkStore.Watermark::highWater);
+    }
+
+    @Override
+    public T read() throws Exception {
+        return delegate.read();
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putString(runTimeKey(), runTime.toString());
+        if (since != null) {
+            executionContext.putString(sinceKey(), since.toString());
+        }
+        delegate.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate != null) {
+            delegate.close();
+            delegate = null;
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (watermarkStore != null && runTime != null && stepExecution.getStatus() == BatchStatus.COMPLETED) {
+            LocalDateTime lastFullScan = since == null ? runTime
+                    : watermarkStore.find(stepExecution.getStepName())
+                            .map(QuoteWatermarkStore.Watermark::lastFullScan)
+                            .orElse(runTime);
+            watermarkStore.save(stepExecution.getStepName(),
+                    new QuoteWatermarkStore.Watermark(highWaterOf.apply(runTime), lastFullScan));
+        }
+        return null;
+    }
+
+    private String runTimeKey() {
+        return name + ".window.runTime";
+    }
+
+    private String sinceKey() {
+        return name + ".window.since";
+    }
+}
@@ -0,0 +1,132 @@
+package com.batch.spring_batch.batch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+/**
+ * Reads the delegate on its own virtual thread into a bounded queue, so the
+ * next page is fetched while the chunk thread is still processing and writing
+ * the current one. The queue capacity is the backpressure: the read-ahead
+ * thread blocks once that many items are waiting.
+ * <p>
+ * Items are handed out in delegate order and the chunk transaction is still
+ * owned by the step thread. The read position is deliberately not saved,
+ * because the delegate is ahead of the last commit; a restart re-reads from
+ * the start and relies on the reader's predicate skipping rows that were
+ * already written (for the opt-out, rows that are no longer {@code opt_in}).
+ * The delegate's {@link QuoteRunTime} is still copied into the step context,
+ * where the writers of the step look it up.
+ * Not thread-safe: one consumer per step execution.
+ */
+public class ReadAheadItemReader<T> implements ItemStreamReader<T> {
+
+    private static final Object END = new Object();
+
+    private final String name;
+    private final ItemStreamReader<T> delegate;
+    private final int capacity;
+
+    private ExecutionContext delegateContext;
+    private BlockingQueue<Object> queue;
+    private Thread producer;
+    private volatile boolean stopped;
+    private boolean exhausted;
+
+    public ReadAheadItemReader(String name, ItemStreamReader<T> delegate, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.name = name;
+        this.delegate = delegate;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        // The delegate always starts from the beginning, see the class comment
+        delegateContext = new ExecutionContext();
+        delegate.open(delegateContext);
+        copyRunTime(executionContext);
+        queue = new ArrayBlockingQueue<>(capacity);
+        stopped = false;
+        exhausted = false;
+        producer = Thread.ofVirtual().name(name + "-read-ahead").start(this::fill);
+    }
+
+    private void fill() {
+        try {
+            T item;
+            while (!stopped && (item = delegate.read()) != null) {
+                queue.put(item);
+            }
+            queue.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            try {
+                queue.put(new Failure(e));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read() throws Exception {
+        if (exhausted) {
+            return null;
+        }
+        Object next = queue.take();
+        if (next == END) {
+            exhausted = true;
+            return null;
+        }
+        if (next instanceof Failure failure) {
+            exhausted = true;
+            if (failure.cause() instanceof Exception e) {
+                throw e;
+            }
+            throw (Error) failure.cause();
+        }
+        return (T) next;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        // No read position to save, see the class comment
+        copyRunTime(executionContext);
+    }
+
+    private void copyRunTime(ExecutionContext executionContext) {
+        if (delegateContext != null && delegateContext.containsKey(QuoteRunTime.KEY)) {
+            executionContext.putString(QuoteRunTime.KEY, delegateContext.getString(QuoteRunTime.KEY));
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        stopped = true;
+        if (producer != null) {
+            // Draining unblocks a producer waiting on a full queue. It is not interrupted,
+            // as that would abort a page query half way and break the pooled connection.
+            try {
+                while (producer.isAlive()) {
+                    queue.clear();
+                    producer.join(50);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            producer = null;
+        }
+        delegate.close();
+    }
+
+    private record Failure(Throwable cause) {
+    }
+}
@@ -0,0 +1,315 @@
+package com.batch.spring_batch.batch;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.retry.backoff.Sleeper;
+
+/**
+ * Paces the writes of a chunk step, so a daytime run does not crowd out the
+ * foreground traffic on the quote table. A token bucket holds the step to a
+ * rows-per-second limit: every chunk pays for its written rows after it has
+ * committed, outside the transaction, so no row locks or connections are held
+ * while it waits. The bucket holds at most one second of rows.
+ * <p>
+ * The limit is the lower of two values:
+ * <ul>
+ *     <li>the schedule: the rate of the first {@link Window} that contains
+ *     the time of day, else the default rate, where 0 means no limit;</li>
+ *     <li>a feedback ceiling. Once per adjust interval, if the slowest commit
+ *     or any {@link Pressure} went past its threshold, the ceiling drops to
+ *     {@code backoffFactor} times the current limit (or the measured rate, if
+ *     there was no limit), but never below {@code minRowsPerSecond}.
+ *     Otherwise it grows by {@code recoveryFactor} until the schedule takes
+ *     over again.</li>
+ * </ul>
+ * <p>
+ * Partition workers share one instance and so one bucket. The time a step
+ * execution spent waiting is kept under {@code throttle.waitMillis} in its
+ * ExecutionContext. It is also published as {@code quote.batch.throttle.wait},
+ * next to the current limit {@code quote.batch.throttle.limit} (0 when there is
+ * none) and {@code quote.batch.throttle.backoff}, tagged with the signal that
+ * caused it; all are tagged with the step.
+ */
+public class WriteThrottle implements StepExecutionListener, ChunkListener, ItemWriteListener<Object> {
+
+    static final String WAIT_KEY = "throttle.waitMillis";
+    static final String COMMIT_LATENCY = "commit-latency";
+
+    private final Logger log = LoggerFactory.getLogger(WriteThrottle.class);
+
+    private final String stepName;
+    private final double defaultRowsPerSecond;
+    private final List<Window> windows;
+    private final List<Pressure> pressures;
+    private final long maxCommitNanos;
+    private final double minRowsPerSecond;
+    private final double backoffFactor;
+    private final double recoveryFactor;
+    private final long adjustIntervalMillis;
+    private final Clock clock;
+    private final Sleeper sleeper;
+    private final MeterRegistry registry;
+    private final Timer waitTimer;
+    private final ThreadLocal<ChunkWrites> chunkWrites = new ThreadLocal<>();
+    private final Map<Long, AtomicLong> waitByExecution = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private double tokens;
+    private long lastRefill = -1;
+    private double ceiling = Double.POSITIVE_INFINITY;
+    private long intervalStart = -1;
+    private long intervalRows;
+    private long slowestCommitNanos;
+
+    public WriteThrottle(String stepName, double defaultRowsPerSecond, List<Window> windows, List<Pressure> pressures,
+                         Duration maxCommitLatency, double minRowsPerSecond, double backoffFactor,
+                         double recoveryFactor, Duration adjustInterval, Clock clock, Sleeper sleeper,
+                         MeterRegistry registry) {
+        if (minRowsPerSecond <= 0 || backoffFactor <= 0 || backoffFactor >= 1 || recoveryFactor <= 1) {
+            throw new IllegalArgumentException(
+                    "Throttle needs minRowsPerSecond > 0, 0 < backoffFactor < 1 and recoveryFactor > 1");
+        }
+        this.stepName = stepName;
+        this.defaultRowsPerSecond = defaultRowsPerSecond;
+        this.windows = List.copyOf(windows);
+        this.pressures = List.copyOf(pressures);
+        this.maxCommitNanos = maxCommitLatency.toNanos();
+        this.minRowsPerSecond = minRowsPerSecond;
+        this.backoffFactor = backoffFactor;
+        this.recoveryFactor = recoveryFactor;
+        this.adjustIntervalMillis = adjustInterval.toMillis();
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.registry = registry;
+        this.waitTimer = Timer.builder("quote.batch.throttle.wait")
+                .description("Time a step waited for the write throttle")
+                .tag("step", stepName)
+                .register(registry);
+        Gauge.builder("quote.batch.throttle.limit", this, throttle -> {
+                    double limit = throttle.currentLimit();
+                    return Double.isInfinite(limit) ? 0 : limit;
+                })
+                .description("Rows per second a throttled step is currently held to, 0 when unlimited")
+                .tag("step", stepName)
+                .register(registry);
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        waitByExecution.put(stepExecution.getId(), new AtomicLong());
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        AtomicLong waited = waitByExecution.remove(stepExecution.getId());
+        if (waited != null) {
+            stepExecution.getExecutionContext().putLong(WAIT_KEY, waited.get());
+            double limit = currentLimit();
+            log.info("Step [{}] waited {} ms for the write throttle (limit now {} rows/s)", stepExecution.getStepName(),
+                    waited.get(), Double.isInfinite(limit) ? "no" : String.format("%.0f", limit));
+        }
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkWrites.set(new ChunkWrites());
+    }
+
+    @Override
+    public void afterWrite(Chunk<?> items) {
+        ChunkWrites writes = chunkWrites.get();
+        if (writes != null) {
+            writes.rows += items.size();
+            writes.writtenAt = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkWrites writes = chunkWrites.get();
+        chunkWrites.remove();
+        if (writes == null || writes.rows == 0) {
+            return;
+        }
+        recordCommit(System.nanoTime() - writes.writtenAt);
+        long waitMillis = acquire(writes.rows);
+        if (waitMillis > 0) {
+            AtomicLong waited = waitByExecution.get(context.getStepContext().getStepExecution().getId());
+            if (waited != null) {
+                waited.addAndGet(waitMillis);
+            }
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        chunkWrites.remove();
+    }
+
+    /**
+     * Takes {@code rows} from the bucket and waits until they are paid for.
+     *
+     * @return the time waited in milliseconds
+     */
+    long acquire(int rows) {
+        long waitMillis = reserve(rows);
+        if (waitMillis > 0) {
+            try {
+                sleeper.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            waitTimer.record(waitMillis, TimeUnit.MILLISECONDS);
+        }
+        return waitMillis;
+    }
+
+    // The bucket may go into debt, which the caller then waits out; later callers queue behind it
+    private synchronized long reserve(int rows) {
+        long now = clock.millis();
+        adjustIfDue(now);
+        intervalRows += rows;
+        double limit = limit(now);
+        if (Double.isInfinite(limit)) {
+            tokens = 0;
+            lastRefill = -1;
+            return 0;
+        }
+        tokens = lastRefill < 0 ? limit : Math.min(limit, tokens + (now - lastRefill) * limit / 1000);
+        lastRefill = now;
+        tokens -= rows;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * 1000 / limit);
+    }
+
+    /**
+     * @param commitNanos last write to commit of a chunk
+     */
+    synchronized void recordCommit(long commitNanos) {
+        slowestCommitNanos = Math.max(slowestCommitNanos, commitNanos);
+    }
+
+    private void adjustIfDue(long now) {
+        if (intervalStart < 0) {
+            intervalStart = now;
+            return;
+        }
+        long elapsed = now - intervalStart;
+        if (elapsed < adjustIntervalMillis) {
+            return;
+        }
+        List<String> causes = new ArrayList<>();
+        if (slowestCommitNanos > maxCommitNanos) {
+            causes.add(COMMIT_LATENCY);
+        }
+        for (Pressure pressure : pressures) {
+            if (pressure.high().getAsBoolean()) {
+                causes.add(pressure.name());
+            }
+        }
+        double scheduled = scheduled(now);
+        if (!causes.isEmpty()) {
+            double current = Math.min(scheduled, ceiling);
+            double base = Double.isInfinite(current) ? intervalRows * 1000.0 / Math.max(1, elapsed) : current;
+            ceiling = Math.max(minRowsPerSecond, base * backoffFactor);
+            causes.forEach(cause -> Counter.builder("quote.batch.throttle.backoff").tag("step", stepName)
+                    .tag("cause", cause).register(registry).increment());
+            log.info("Step [{}] write throttle backs off to {} rows/s ({}, slowest commit {} ms)", stepName,
+                    String.format("%.0f", ceiling), String.join(", ", causes), slowestCommitNanos / 1_000_000);
+        } else if (!Double.isInfinite(ceiling)) {
+            ceiling *= recoveryFactor;
+            if (ceiling >= scheduled) {
+                ceiling = Double.POSITIVE_INFINITY;
+                log.info("Step [{}] write throttle recovered to its schedule", stepName);
+            }
+        }
+        intervalStart = now;
+        intervalRows = 0;
+        slowestCommitNanos = 0;
+    }
+
+    synchronized double currentLimit() {
+        return limit(clock.millis());
+    }
+
+    private double limit(long now) {
+        return Math.min(scheduled(now), ceiling);
+    }
+
+    private double scheduled(long now) {
+        LocalTime time = LocalTime.ofInstant(Instant.ofEpochMilli(now), clock.getZone());
+        double rowsPerSecond = windows.stream()
+                .filter(window -> window.contains(time))
+                .mapToDouble(Window::rowsPerSecond)
+                .findFirst()
+                .orElse(defaultRowsPerSecond);
+        return rowsPerSecond > 0 ? rowsPerSecond : Double.POSITIVE_INFINITY;
+    }
+
+    private static class ChunkWrites {
+        int rows;
+        long writtenAt;
+    }
+
+    /**
+     * A time-of-day rate, from inclusive to exclusive; it wraps past midnight
+     * when {@code to} is not after {@code from}. 0 means no limit.
+     */
+    public record Window(LocalTime from, LocalTime to, double rowsPerSecond) {
+
+        boolean contains(LocalTime time) {
+            if (from.isBefore(to)) {
+                return !time.isBefore(from) && time.isBefore(to);
+            }
+            return !time.isBefore(from) || time.isBefore(to);
+        }
+    }
+
+    /** A signal of foreground load, checked once per adjust interval. */
+    public record Pressure(String name, BooleanSupplier high) {
+
+        /** Threads waiting for a connection of the Hikari pool the step writes through. */
+        public static Pressure pendingConnections(DataSource dataSource, int maxPending) {
+            return new Pressure("pending-connections", () -> {
+                if (!(dataSource instanceof HikariDataSource hikari)) {
+                    return false;
+                }
+                // Null until the pool has started
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool != null && pool.getThreadsAwaitingConnection() > maxPending;
+            });
+        }
+
+        /** Replication delay in seconds; NaN, i.e. a replica that could not be asked, is no signal. */
+        public static Pressure replicaLag(DoubleSupplier lagSeconds, Duration maxLag) {
+            return new Pressure("replica-lag", () -> lagSeconds.getAsDouble() * 1000 > maxLag.toMillis());
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.batch.spring_batch.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+
+/**
+ * Job repository that writes the per-chunk updates of a running step (its
+ * counts and ExecutionContext) only every {@code commitInterval} chunks or
+ * {@code flushInterval}, whichever comes first. Everything else goes straight
+ * to the delegate: job instances and executions, the step's first update, and
+ * every update once the step has left STARTED, so a step that completes,
+ * fails or stops always leaves its final counts and restart position.
+ * <p>
+ * Restart guarantees: after a crash that skipped the step's final update, a
+ * restart resumes from the last written ExecutionContext and re-reads up to
+ * {@code commitInterval} chunks. The opt-out and delete writers only touch
+ * rows that still match their window, so the repeated chunks change nothing.
+ * While the step runs, BATCH_STEP_EXECUTION lags behind by as much, and a
+ * stop request is only noticed at a written update.
+ * <p>
+ * Publishes {@code quote.batch.repository.updates}, tagged with the outcome
+ * ({@code written} or {@code coalesced}).
+ * <p>
+ * Not for steps whose streams keep state outside the database: the archive
+ * manifest of {@code QuoteArchiveWriter} would fall behind DELETEs that have
+ * already committed, so JobRepositoryConfig refuses the mode with archiving.
+ */
+public class CoalescingJobRepository implements JobRepository {
+
+    private final JobRepository delegate;
+    private final int commitInterval;
+    private final Duration flushInterval;
+    private final Clock clock;
+    private final Counter written;
+    private final Counter coalesced;
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    public CoalescingJobRepository(JobRepository delegate, int commitInterval, Duration flushInterval, Clock clock,
+                                   MeterRegistry registry) {
+        if (commitInterval <= 0) {
+            throw new IllegalArgumentException("commitInterval must be positive");
+        }
+        this.delegate = delegate;
+        this.commitInterval = commitInterval;
+        this.flushInterval = flushInterval;
+        this.clock = clock;
+        this.written = counter(registry, "written");
+        this.coalesced = counter(registry, "coalesced");
+    }
+
+    // A chunk writes the ExecutionContext first and the StepExecution second; the second follows the first's decision
+    @Override
+    public void updateExecutionContext(StepExecution stepExecution) {
+        Pending state = stepExecution.getStatus() == BatchStatus.STARTED ? pending.get(stepExecution.getId()) : null;
+        if (state == null || state.chunkDue(commitInterval, flushInterval, clock.instant())) {
+            delegate.updateExecutionContext(stepExecution);
+            written.increment();
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    @Override
+    public void update(StepExecution stepExecution) {
+        if (stepExecution.getStatus() != BatchStatus.STARTED) {
+            pending.remove(stepExecution.getId());
+            delegate.update(stepExecution);
+            written.increment();
+            return;
+        }
+        Pending state = pending.get(stepExecution.getId());
+        Instant now = clock.instant();
+        if (state == null) {
+            // The update that marks the step as started
+            delegate.update(stepExecution);
+            written.increment();
+            pending.put(stepExecution.getId(), new Pending(now));
+        } else if (state.flush(now)) {
+            delegate.update(stepExecution);
+            written.increment();
+        } else if (state.overdue(flushInterval, now)) {
+            // A chunk that left the ExecutionContext clean never asked for it to be written; the time bound holds anyway
+            delegate.updateExecutionContext(stepExecution);
+            delegate.update(stepExecution);
+            written.increment(2);
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    @Override
+    public List<String> getJobNames() {
+        return delegate.getJobNames();
+    }
+
+    @Override
+    public List<JobInstance> findJobInstancesByName(String jobName, int start, int count) {
+        return delegate.findJobInstancesByName(jobName, start, count);
+    }
+
+    @Override
+    public List<JobExecution> findJobExecutions(JobInstance jobInstance) {
+        return delegate.findJobExecutions(jobInstance);
+    }
+
+    @Override
+    public boolean isJobInstanceExists(String jobName, JobParameters jobParameters) {
+        return delegate.isJobInstanceExists(jobName, jobParameters);
+    }
+
+    @Override
+    public JobInstance createJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.createJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public JobExecution createJobExecution(String jobName, JobParameters jobParameters)
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException {
+        return delegate.createJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public void update(JobExecution jobExecution) {
+        delegate.update(jobExecution);
+    }
+
+    @Override
+    public void add(StepExecution stepExecution) {
+        delegate.add(stepExecution);
+    }
+
+    @Override
+    public void addAll(Collection<StepExecution> stepExecutions) {
+        delegate.addAll(stepExecutions);
+    }
+
+    @Override
+    public void updateExecutionContext(JobExecution jobExecution) {
+        delegate.updateExecutionContext(jobExecution);
+    }
+
+    @Override
+    public JobInstance getJobInstance(String jobName, JobParameters jobParameters) {
+        return delegate.getJobInstance(jobName, jobParameters);
+    }
+
+    @Override
+    public StepExecution getLastStepExecution(JobInstance jobInstance, String stepName) {
+        return delegate.getLastStepExecution(jobInstance, stepName);
+    }
+
+    @Override
+    public long getStepExecutionCount(JobInstance jobInstance, String stepName) {
+        return delegate.getStepExecutionCount(jobInstance, stepName);
+    }
+
+    @Override
+    public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+        return delegate.getLastJobExecution(jobName, jobParameters);
+    }
+
+    @Override
+    public void deleteStepExecution(StepExecution stepExecution) {
+        delegate.deleteStepExecution(stepExecution);
+    }
+
+    @Override
+    public void deleteJobExecution(JobExecution jobExecution) {
+        delegate.deleteJobExecution(jobExecution);
+    }
+
+    @Override
+    public void deleteJobInstance(JobInstance jobInstance) {
+        delegate.deleteJobInstance(jobInstance);
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder("quote.batch.repository.updates").tag("outcome", outcome).register(registry);
+    }
+
+    // Chunks of one running step since its last written update
+    private static final class Pending {
+
+        private int chunks;
+        private Instant lastFlush;
+        private boolean due;
+
+        Pending(Instant now) {
+            this.lastFlush = now;
+        }
+
+        synchronized boolean chunkDue(int commitInterval, Duration flushInterval, Instant now) {
+            chunks++;
+            due = chunks >= commitInterval || !now.isBefore(lastFlush.plus(flushInterval));
+            return due;
+        }
+
+        synchronized boolean flush(Instant now) {
+            if (!due) {
+                return false;
+            }
+            reset(now);
+            return true;
+        }
+
+        synchronized boolean overdue(Duration flushInterval, Instant now) {
+            if (now.isBefore(lastFlush.plus(flushInterval))) {
+                return false;
+            }
+            reset(now);
+            return true;
+        }
+
+        private void reset(Instant now) {
+            chunks = 0;
+            lastFlush = now;
+            due = false;
+        }
+    }
+}
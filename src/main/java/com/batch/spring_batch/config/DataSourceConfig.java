@@ -1,12 +1,18 @@
 package com.batch.spring_batch.config;
 
 import javax.sql.DataSource;
+import com.batch.spring_batch.metrics.ReplicaLagMeter;
 import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Configuration
 public class DataSourceConfig {
@@ -27,4 +33,37 @@ public class DataSourceConfig {
                 .type(HikariDataSource.class)
                 .build();
     }
+
+    // Optional read-only copy of batchdb for the quote page reads; its own pool, so scans
+    // neither wait for nor hold connections the chunk writes need
+    @Bean(name = "replicaDataSource")
+    @ConditionalOnProperty(prefix = "spring.datasource.replica", name = "jdbc-url")
+    @ConfigurationProperties(prefix = "spring.datasource.replica")
+    public DataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.datasource.replica", name = "jdbc-url")
+    public ReplicaLagMeter replicaLagMeter(@Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new ReplicaLagMeter(replicaDataSource, Metrics.globalRegistry);
+    }
+
+    // Declared explicitly: a second transaction manager switches off Boot's default one,
+    // which the job repository still needs for the metadata tables.
+    @Bean(name = "transactionManager")
+    @Primary
+    public PlatformTransactionManager transactionManager(@Qualifier("dataSource") DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
+    // Chunk transactions of the quote steps, so their writes commit together with the chunk.
+    @Bean(name = "batchTransactionManager")
+    public PlatformTransactionManager batchTransactionManager(@Qualifier("batchDataSource") DataSource batchDataSource) {
+        return new DataSourceTransactionManager(batchDataSource);
+    }
 }
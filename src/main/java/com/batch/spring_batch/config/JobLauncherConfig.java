@@ -0,0 +1,85 @@
+package com.batch.spring_batch.config;
+
+import com.batch.spring_batch.metrics.StartupTimeRecorder;
+import com.batch.spring_batch.scheduler.BoundedJobLauncher;
+import com.batch.spring_batch.scheduler.JdbcJobLease;
+import com.batch.spring_batch.scheduler.JobLaunchTaskExecutor;
+import com.batch.spring_batch.scheduler.QuoteJobRunner;
+import com.batch.spring_batch.scheduler.SingleFlightJobLauncher;
+import io.micrometer.core.instrument.Metrics;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+
+@Configuration
+public class JobLauncherConfig {
+
+    @Bean
+    public JobLaunchTaskExecutor jobLaunchTaskExecutor(QuoteBatchProperties properties) {
+        if (properties.getLauncher().getMaxConcurrentJobs() > 1
+                && properties.getRepository().getMode() == QuoteBatchProperties.RepositoryMode.RESOURCELESS) {
+            // ResourcelessJobRepository holds one job execution and is not thread-safe
+            throw new IllegalStateException(
+                    "batch.quote.launcher.max-concurrent-jobs > 1 needs a JDBC or COALESCED job repository");
+        }
+        return new JobLaunchTaskExecutor(properties.getLauncher().getMaxConcurrentJobs(), Metrics.globalRegistry);
+    }
+
+    // Returns as soon as the execution is created; the synchronous "jobLauncher" from
+    // @EnableBatchProcessing is left in place for callers that want to wait for the result
+    @Bean
+    public JobLauncher asyncJobLauncher(JobRepository jobRepository, JobLaunchTaskExecutor jobLaunchTaskExecutor)
+            throws Exception {
+        BoundedJobLauncher jobLauncher = new BoundedJobLauncher(jobLaunchTaskExecutor);
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+        return jobLauncher;
+    }
+
+    // pid@host plus a random part, so a restarted node never mistakes its predecessor's lease for its own
+    @Bean
+    @DependsOn("quoteSchemaInitializer")
+    public JdbcJobLease processQuotesJobLease(@Qualifier("batchDataSource") DataSource batchDataSource) {
+        String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+        return new JdbcJobLease(batchDataSource, "processQuotesJob", owner, Clock.systemUTC());
+    }
+
+    @Bean
+    public SingleFlightJobLauncher singleFlightJobLauncher(@Qualifier("asyncJobLauncher") JobLauncher jobLauncher,
+                                                           JobRepository jobRepository,
+                                                           JdbcJobLease processQuotesJobLease,
+                                                           QuoteBatchProperties properties) {
+        QuoteBatchProperties.Scheduler scheduler = properties.getScheduler();
+        return new SingleFlightJobLauncher(jobLauncher, jobRepository, processQuotesJobLease,
+                scheduler.getLeaseTtl(), scheduler.getMinInterval(), Clock.systemUTC(), Metrics.globalRegistry);
+    }
+
+    // Not conditional on run-once: an AOT build fixes its conditions at build time, this flag stays a runtime switch.
+    // Launches through the lease as well, so a one-shot run never overlaps a scheduled one on another node
+    @Bean
+    public QuoteJobRunner quoteJobRunner(SingleFlightJobLauncher singleFlightJobLauncher, Job processQuotesJob,
+                                         QuoteBatchProperties properties) {
+        return new QuoteJobRunner(singleFlightJobLauncher, processQuotesJob, properties.getLauncher().isRunOnce(),
+                properties.getScheduler().getHeartbeatInterval(), new ThreadWaitSleeper());
+    }
+
+    // Eager even with lazy initialisation, otherwise it would never be created
+    @Bean
+    @Lazy(false)
+    public StartupTimeRecorder startupTimeRecorder(QuoteBatchProperties properties, Environment environment) {
+        String report = properties.getLauncher().getStartupReport();
+        return new StartupTimeRecorder(report.isEmpty() ? null : Path.of(report), environment, Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.batch.spring_batch.config;
+
+import io.micrometer.core.instrument.Metrics;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.repository.support.ResourcelessJobRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JobRepositoryConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(JobRepositoryConfig.class);
+
+    // Swaps the JDBC repository of @EnableBatchProcessing according to batch.quote.repository.mode. Static, and
+    // the properties are looked up lazily, so the post-processor does not pull other beans in early
+    @Bean
+    public static BeanPostProcessor jobRepositoryModePostProcessor(ObjectProvider<QuoteBatchProperties> properties) {
+        return new BeanPostProcessor() {
+            // A configured database type spares the factory a connection at startup
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof JobRepositoryFactoryBean factory) {
+                    String databaseType = properties.getObject().getRepository().getDatabaseType();
+                    if (!databaseType.isEmpty()) {
+                        factory.setDatabaseType(databaseType);
+                    }
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof JobRepository jobRepository) || !"jobRepository".equals(beanName)) {
+                    return bean;
+                }
+                QuoteBatchProperties.Repository settings = properties.getObject().getRepository();
+                log.info("Job repository mode: {}", settings.getMode());
+                return switch (settings.getMode()) {
+                    case JDBC -> jobRepository;
+                    case COALESCED -> coalescing(jobRepository, settings.getCommitInterval(),
+                            settings.getFlushInterval(), properties.getObject());
+                    case RESOURCELESS -> new StepIdResourcelessJobRepository();
+                };
+            }
+        };
+    }
+
+    // The archive's manifest is the step ExecutionContext: a coalesced (stale) one would let a restart truncate
+    // the segment back past rows whose DELETE had already committed
+    private static JobRepository coalescing(JobRepository jobRepository, int commitInterval, Duration flushInterval,
+                                            QuoteBatchProperties properties) {
+        if (properties.getArchive().isEnabled()) {
+            throw new IllegalStateException(
+                    "batch.quote.repository.mode=COALESCED cannot keep the archive manifest; set batch.quote.archive.enabled=false");
+        }
+        return new CoalescingJobRepository(jobRepository, commitInterval, flushInterval, Clock.systemUTC(),
+                Metrics.globalRegistry);
+    }
+
+    // ResourcelessJobRepository leaves the step executions without ids, which the step listeners key their state by
+    private static class StepIdResourcelessJobRepository extends ResourcelessJobRepository {
+
+        private final AtomicLong stepExecutionIds = new AtomicLong();
+
+        @Override
+        public void add(StepExecution stepExecution) {
+            stepExecution.setId(stepExecutionIds.incrementAndGet());
+            super.add(stepExecution);
+        }
+
+        @Override
+        public void addAll(Collection<StepExecution> stepExecutions) {
+            stepExecutions.forEach(stepExecution -> stepExecution.setId(stepExecutionIds.incrementAndGet()));
+            super.addAll(stepExecutions);
+        }
+    }
+}
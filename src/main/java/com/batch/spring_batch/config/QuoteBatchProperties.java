@@ -0,0 +1,960 @@
+package com.batch.spring_batch.config;
+
+import com.batch.spring_batch.audit.QuoteAuditSink;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Tuning switches for the quote retention job, bound from {@code batch.quote.*}.
+ */
+@ConfigurationProperties(prefix = "batch.quote")
+public class QuoteBatchProperties {
+
+    private final Update update = new Update();
+    private final Delete delete = new Delete();
+    private final Launcher launcher = new Launcher();
+    private final Scheduler scheduler = new Scheduler();
+    private final ChunkSizing chunk = new ChunkSizing();
+    private final Archive archive = new Archive();
+    private final Audit audit = new Audit();
+    private final Sharding sharding = new Sharding();
+    private final Incremental incremental = new Incremental();
+    private final Retention retention = new Retention();
+    private final Partitioning partitioning = new Partitioning();
+    private final Distributed distributed = new Distributed();
+    private final Repository repository = new Repository();
+    private final Metadata metadata = new Metadata();
+    private final Throttle throttle = new Throttle();
+    private final Planner planner = new Planner();
+
+    public Update getUpdate() {
+        return update;
+    }
+
+    public Delete getDelete() {
+        return delete;
+    }
+
+    public Launcher getLauncher() {
+        return launcher;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public ChunkSizing getChunk() {
+        return chunk;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public Sharding getSharding() {
+        return sharding;
+    }
+
+    public Incremental getIncremental() {
+        return incremental;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public Partitioning getPartitioning() {
+        return partitioning;
+    }
+
+    public Distributed getDistributed() {
+        return distributed;
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    public Throttle getThrottle() {
+        return throttle;
+    }
+
+    public Planner getPlanner() {
+        return planner;
+    }
+
+    public enum RetentionMode {
+        /** updateOptInStep, then deleteOldQuotesStep: one scan per step. */
+        SPLIT,
+        /** One chunk step that opts out and deletes in a single scan, both in the chunk's transaction. */
+        FUSED
+    }
+
+    public enum UpdateMode {
+        /** Read, process and write every row through the chunk step. */
+        CHUNK,
+        /** Run the opt-out as keyset-ranged set-based UPDATE statements. */
+        BULK,
+        /** Chunk step whose reads run ahead of the writes and whose processing runs on virtual threads. */
+        PIPELINED,
+        /** Publish id ranges as work items for the worker nodes and wait for them. */
+        DISTRIBUTED
+    }
+
+    public enum DeleteMode {
+        /** Single-threaded chunk step over the whole table. */
+        CHUNK,
+        /** Split the id space into ranges and delete them in parallel worker steps. */
+        PARTITIONED,
+        /** Read ids into a primitive buffer and delete each buffer with one statement. */
+        ID_ARRAY,
+        /** Drop the monthly partitions past the cutoff; delete the rest of the boundary month in chunks. */
+        DETACH_PARTITIONS,
+        /** Publish id ranges as work items for the worker nodes and wait for them. */
+        DISTRIBUTED
+    }
+
+    public enum RepositoryMode {
+        /** Every job, step and chunk update is written to the BATCH_* tables; restarts resume at the last chunk. */
+        JDBC,
+        /** Running steps write their chunk updates every commit-interval chunks or flush-interval; not with the archive. */
+        COALESCED,
+        /** Nothing is written to the BATCH_* tables; a failed run cannot be restarted, the next run starts over. */
+        RESOURCELESS
+    }
+
+    public enum ReaderType {
+        /** JdbcPagingItemReader: one sorted keyset query per page. */
+        PAGING,
+        /** One streaming server-side cursor per step execution. */
+        CURSOR
+    }
+
+    /** How a step reads its quote rows. */
+    public static class Reader {
+
+        private ReaderType type = ReaderType.PAGING;
+
+        /** Rows per query in PAGING mode. */
+        private int pageSize = 50;
+
+        /** Rows per round trip of the cursor in CURSOR mode. */
+        private int fetchSize = 1000;
+
+        /** Read from the replica DataSource (spring.datasource.replica.*); writes still go to the quote database. */
+        private boolean replica;
+
+        public ReaderType getType() {
+            return type;
+        }
+
+        public void setType(ReaderType type) {
+            this.type = type;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public boolean isReplica() {
+            return replica;
+        }
+
+        public void setReplica(boolean replica) {
+            this.replica = replica;
+        }
+    }
+
+    /** How processQuotesJob walks the quote table. */
+    public static class Retention {
+
+        private RetentionMode mode = RetentionMode.SPLIT;
+
+        /** Reader of the FUSED step; the update and delete readers are only used by SPLIT. */
+        private final Reader reader = new Reader();
+
+        public RetentionMode getMode() {
+            return mode;
+        }
+
+        public void setMode(RetentionMode mode) {
+            this.mode = mode;
+        }
+
+        public Reader getReader() {
+            return reader;
+        }
+    }
+
+    public static class Update {
+
+        private UpdateMode mode = UpdateMode.CHUNK;
+
+        private final Reader reader = new Reader();
+
+        /** Width of the id range touched by one bulk UPDATE (and one commit). */
+        private int bulkRangeSize = 10000;
+
+        /** Items the PIPELINED reader may buffer ahead of the chunk being written. */
+        private int readAhead = 100;
+
+        public UpdateMode getMode() {
+            return mode;
+        }
+
+        public void setMode(UpdateMode mode) {
+            this.mode = mode;
+        }
+
+        public Reader getReader() {
+            return reader;
+        }
+
+        public int getBulkRangeSize() {
+            return bulkRangeSize;
+        }
+
+        public void setBulkRangeSize(int bulkRangeSize) {
+            this.bulkRangeSize = bulkRangeSize;
+        }
+
+        public int getReadAhead() {
+            return readAhead;
+        }
+
+        public void setReadAhead(int readAhead) {
+            this.readAhead = readAhead;
+        }
+    }
+
+    public static class Delete {
+
+        private DeleteMode mode = DeleteMode.CHUNK;
+
+        private final Reader reader = new Reader();
+
+        /** Number of id ranges the purge is split into in PARTITIONED mode. */
+        private int gridSize = 4;
+
+        /** Maximum number of partitions running at the same time. */
+        private int concurrency = 4;
+
+        /** Ids deleted per statement (and per commit) in ID_ARRAY mode. */
+        private int idChunkSize = 1000;
+
+        public DeleteMode getMode() {
+            return mode;
+        }
+
+        public void setMode(DeleteMode mode) {
+            this.mode = mode;
+        }
+
+        public Reader getReader() {
+            return reader;
+        }
+
+        public int getGridSize() {
+            return gridSize;
+        }
+
+        public void setGridSize(int gridSize) {
+            this.gridSize = gridSize;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getIdChunkSize() {
+            return idChunkSize;
+        }
+
+        public void setIdChunkSize(int idChunkSize) {
+            this.idChunkSize = idChunkSize;
+        }
+    }
+
+    /** How scheduled job executions are started. */
+    public static class Launcher {
+
+        /** Job executions allowed to run at once; further launches are rejected, not queued. */
+        private int maxConcurrentJobs = 1;
+
+        /** Run processQuotesJob once after startup and exit with its outcome (the job profile). */
+        private boolean runOnce = false;
+
+        /** CSV file that every start appends its startup time to; none when empty. */
+        private String startupReport = "";
+
+        public int getMaxConcurrentJobs() {
+            return maxConcurrentJobs;
+        }
+
+        public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+            this.maxConcurrentJobs = maxConcurrentJobs;
+        }
+
+        public boolean isRunOnce() {
+            return runOnce;
+        }
+
+        public void setRunOnce(boolean runOnce) {
+            this.runOnce = runOnce;
+        }
+
+        public String getStartupReport() {
+            return startupReport;
+        }
+
+        public void setStartupReport(String startupReport) {
+            this.startupReport = startupReport;
+        }
+    }
+
+    /** Scheduled runs and the cluster-wide lease that keeps them single-flight. */
+    public static class Scheduler {
+
+        private boolean enabled = true;
+
+        /** How long a lease stays valid without a heartbeat, e.g. after the holder died. */
+        private Duration leaseTtl = Duration.ofMinutes(2);
+
+        /** How often the holder renews its lease; well below the TTL. */
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+        /** Minimum time between two runs anywhere in the cluster, however quickly a run finishes. */
+        private Duration minInterval = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getLeaseTtl() {
+            return leaseTtl;
+        }
+
+        public void setLeaseTtl(Duration leaseTtl) {
+            this.leaseTtl = leaseTtl;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getMinInterval() {
+            return minInterval;
+        }
+
+        public void setMinInterval(Duration minInterval) {
+            this.minInterval = minInterval;
+        }
+    }
+
+    /** Commit interval of the chunk-oriented steps. */
+    public static class ChunkSizing {
+
+        /** Items per commit when the size is fixed. */
+        private int size = 50;
+
+        /** Follow the measured lock hold time instead of using the fixed size. */
+        private boolean adaptive = false;
+
+        private int minSize = 50;
+
+        private int maxSize = 1000;
+
+        /** Lock hold time (first write to commit) the adaptive size aims for. */
+        private Duration targetLockHold = Duration.ofMillis(200);
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(int minSize) {
+            this.minSize = minSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTargetLockHold() {
+            return targetLockHold;
+        }
+
+        public void setTargetLockHold(Duration targetLockHold) {
+            this.targetLockHold = targetLockHold;
+        }
+    }
+
+    /** Compressed copy of every purged row, written before the rows are deleted. */
+    public static class Archive {
+
+        /** Archive the full rows of purged quotes; not supported in ID_ARRAY mode. */
+        private boolean enabled = false;
+
+        /** Absolute path of the segment files, required when enabled. */
+        private String directory = "";
+
+        /** Size after which the current segment file is closed and a new one started. */
+        private DataSize maxSegmentSize = DataSize.ofMegabytes(64);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSegmentSize() {
+            return maxSegmentSize;
+        }
+
+        public void setMaxSegmentSize(DataSize maxSegmentSize) {
+            this.maxSegmentSize = maxSegmentSize;
+        }
+    }
+
+    /** Per-chunk audit events, summarised per step and job off the chunk threads. */
+    public static class Audit {
+
+        /** Chunk events that may wait for the background writer. */
+        private int queueCapacity = 10000;
+
+        /** What a chunk thread does when the queue is full. */
+        private QuoteAuditSink.OverflowPolicy overflow = QuoteAuditSink.OverflowPolicy.DROP;
+
+        /** Longest wait for room in BLOCK mode before the event is dropped after all. */
+        private Duration blockTimeout = Duration.ofMillis(100);
+
+        /** Log every row the CHUNK and PARTITIONED delete steps purge, which makes them read the full rows. */
+        private boolean logDeletedRows = false;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public QuoteAuditSink.OverflowPolicy getOverflow() {
+            return overflow;
+        }
+
+        public void setOverflow(QuoteAuditSink.OverflowPolicy overflow) {
+            this.overflow = overflow;
+        }
+
+        public Duration getBlockTimeout() {
+            return blockTimeout;
+        }
+
+        public void setBlockTimeout(Duration blockTimeout) {
+            this.blockTimeout = blockTimeout;
+        }
+
+        public boolean isLogDeletedRows() {
+            return logDeletedRows;
+        }
+
+        public void setLogDeletedRows(boolean logDeletedRows) {
+            this.logDeletedRows = logDeletedRows;
+        }
+    }
+
+    /** Fan-out over the quote shards defined under {@code spring.datasource.shards.<name>.*}. */
+    public static class Sharding {
+
+        /** Shards whose update and delete steps run at the same time. */
+        private int concurrency = 4;
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+
+    /** High-water marks that let the CHUNK and PIPELINED readers skip rows a previous run already handled. */
+    public static class Incremental {
+
+        /** Start every reader window at the step's high-water mark instead of scanning it whole. */
+        private boolean enabled = false;
+
+        /** How often a run still scans the whole window, for rows created or backdated behind the mark. */
+        private Duration fullScanInterval = Duration.ofDays(7);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getFullScanInterval() {
+            return fullScanInterval;
+        }
+
+        public void setFullScanInterval(Duration fullScanInterval) {
+            this.fullScanInterval = fullScanInterval;
+        }
+    }
+
+    /** The quote table is partitioned by month on created_time (db/quote/migration). */
+    public static class Partitioning {
+
+        /** Start processQuotesJob with a step that creates the partitions of the coming months. */
+        private boolean enabled = false;
+
+        /** Months after the current one that must already have a partition. */
+        private int monthsAhead = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMonthsAhead() {
+            return monthsAhead;
+        }
+
+        public void setMonthsAhead(int monthsAhead) {
+            this.monthsAhead = monthsAhead;
+        }
+    }
+
+    /** DISTRIBUTED steps: id ranges in batch_quote_work_item, claimed by the worker threads of any node. */
+    public static class Distributed {
+
+        /** Work items a distributed step is split into. */
+        private int gridSize = 16;
+
+        /** How often the manager checks the items, and idle workers look for new ones. */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /** How long the manager waits for the workers before it fails the step. */
+        private Duration maxWait = Duration.ofHours(6);
+
+        /** A claim not renewed by a committed chunk for this long is taken over by another worker. */
+        private Duration claimTimeout = Duration.ofMinutes(5);
+
+        /** Claims of an item before it fails the step. */
+        private int maxAttempts = 3;
+
+        /** Run worker threads on this node. */
+        private boolean workerEnabled = false;
+
+        /** Worker threads on this node. */
+        private int workerThreads = 2;
+
+        public int getGridSize() {
+            return gridSize;
+        }
+
+        public void setGridSize(int gridSize) {
+            this.gridSize = gridSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Duration getClaimTimeout() {
+            return claimTimeout;
+        }
+
+        public void setClaimTimeout(Duration claimTimeout) {
+            this.claimTimeout = claimTimeout;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public boolean isWorkerEnabled() {
+            return workerEnabled;
+        }
+
+        public void setWorkerEnabled(boolean workerEnabled) {
+            this.workerEnabled = workerEnabled;
+        }
+
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+    }
+
+    /** How much of each run the job repository writes to the BATCH_* tables. */
+    public static class Repository {
+
+        private RepositoryMode mode = RepositoryMode.JDBC;
+
+        /** COALESCED: chunks of a running step per written update. */
+        private int commitInterval = 10;
+
+        /** COALESCED: longest time a running step goes without a written update. */
+        private Duration flushInterval = Duration.ofSeconds(10);
+
+        /** Database type of the BATCH_* tables, e.g. POSTGRES; detected over a connection at startup when empty. */
+        private String databaseType = "";
+
+        public RepositoryMode getMode() {
+            return mode;
+        }
+
+        public void setMode(RepositoryMode mode) {
+            this.mode = mode;
+        }
+
+        public int getCommitInterval() {
+            return commitInterval;
+        }
+
+        public void setCommitInterval(int commitInterval) {
+            this.commitInterval = commitInterval;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public String getDatabaseType() {
+            return databaseType;
+        }
+
+        public void setDatabaseType(String databaseType) {
+            this.databaseType = databaseType;
+        }
+    }
+
+    /** Housekeeping of the BATCH_* tables in the job repository's database. */
+    public static class Metadata {
+
+        /** End processQuotesJob with purgeBatchMetadataStep. */
+        private boolean purgeEnabled = false;
+
+        /** Job instances whose completed execution ended longer ago than this are purged. */
+        private Duration retention = Duration.ofDays(30);
+
+        /** Job instances purged per commit. */
+        private int purgeBatchSize = 500;
+
+        public boolean isPurgeEnabled() {
+            return purgeEnabled;
+        }
+
+        public void setPurgeEnabled(boolean purgeEnabled) {
+            this.purgeEnabled = purgeEnabled;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public int getPurgeBatchSize() {
+            return purgeBatchSize;
+        }
+
+        public void setPurgeBatchSize(int purgeBatchSize) {
+            this.purgeBatchSize = purgeBatchSize;
+        }
+    }
+
+    /** Rows-per-second pacing of the chunk steps' writes, backing off under foreground load. */
+    public static class Throttle {
+
+        private boolean enabled = false;
+
+        /** Limit outside the profiles; 0 means no limit. */
+        private double rowsPerSecond = 0;
+
+        /** Time-of-day limits; the first profile that contains the current time applies. */
+        private List<ThrottleProfile> profiles = new ArrayList<>();
+
+        /** Back off when the slowest commit of an adjust interval takes longer than this. */
+        private Duration maxCommitLatency = Duration.ofMillis(500);
+
+        /** Back off when more threads than this wait for a connection of the step's pool. */
+        private int maxPendingConnections = 0;
+
+        /** Back off when the replica (spring.datasource.replica) lags further behind than this. */
+        private Duration maxReplicaLag = Duration.ofSeconds(10);
+
+        /** Share of the current limit kept on a back-off. */
+        private double backoffFactor = 0.5;
+
+        /** Growth of a backed-off limit per interval without pressure, until the profile's limit is reached. */
+        private double recoveryFactor = 1.25;
+
+        /** Floor for backing off. */
+        private double minRowsPerSecond = 100;
+
+        /** How often the back-off signals are checked. */
+        private Duration adjustInterval = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getRowsPerSecond() {
+            return rowsPerSecond;
+        }
+
+        public void setRowsPerSecond(double rowsPerSecond) {
+            this.rowsPerSecond = rowsPerSecond;
+        }
+
+        public List<ThrottleProfile> getProfiles() {
+            return profiles;
+        }
+
+        public void setProfiles(List<ThrottleProfile> profiles) {
+            this.profiles = profiles;
+        }
+
+        public Duration getMaxCommitLatency() {
+            return maxCommitLatency;
+        }
+
+        public void setMaxCommitLatency(Duration maxCommitLatency) {
+            this.maxCommitLatency = maxCommitLatency;
+        }
+
+        public int getMaxPendingConnections() {
+            return maxPendingConnections;
+        }
+
+        public void setMaxPendingConnections(int maxPendingConnections) {
+            this.maxPendingConnections = maxPendingConnections;
+        }
+
+        public Duration getMaxReplicaLag() {
+            return maxReplicaLag;
+        }
+
+        public void setMaxReplicaLag(Duration maxReplicaLag) {
+            this.maxReplicaLag = maxReplicaLag;
+        }
+
+        public double getBackoffFactor() {
+            return backoffFactor;
+        }
+
+        public void setBackoffFactor(double backoffFactor) {
+            this.backoffFactor = backoffFactor;
+        }
+
+        public double getRecoveryFactor() {
+            return recoveryFactor;
+        }
+
+        public void setRecoveryFactor(double recoveryFactor) {
+            this.recoveryFactor = recoveryFactor;
+        }
+
+        public double getMinRowsPerSecond() {
+            return minRowsPerSecond;
+        }
+
+        public void setMinRowsPerSecond(double minRowsPerSecond) {
+            this.minRowsPerSecond = minRowsPerSecond;
+        }
+
+        public Duration getAdjustInterval() {
+            return adjustInterval;
+        }
+
+        public void setAdjustInterval(Duration adjustInterval) {
+            this.adjustInterval = adjustInterval;
+        }
+    }
+
+    /** Per-run choice between the chunk steps and partitioned parallel ones, by the estimated row counts. */
+    public static class Planner {
+
+        /** Start processQuotesJob with planQuoteRunStep; needs the CHUNK update and delete modes without shards. */
+        private boolean enabled = false;
+
+        /** Estimated rows from which a step runs with large-chunk-size. */
+        private long largeChunkThreshold = 50_000;
+
+        /** Estimated rows from which a step runs partitioned (delete.grid-size ranges, delete.concurrency threads). */
+        private long partitionThreshold = 1_000_000;
+
+        /** Commit interval of the LARGE_CHUNK strategy. */
+        private int largeChunkSize = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getLargeChunkThreshold() {
+            return largeChunkThreshold;
+        }
+
+        public void setLargeChunkThreshold(long largeChunkThreshold) {
+            this.largeChunkThreshold = largeChunkThreshold;
+        }
+
+        public long getPartitionThreshold() {
+            return partitionThreshold;
+        }
+
+        public void setPartitionThreshold(long partitionThreshold) {
+            this.partitionThreshold = partitionThreshold;
+        }
+
+        public int getLargeChunkSize() {
+            return largeChunkSize;
+        }
+
+        public void setLargeChunkSize(int largeChunkSize) {
+            this.largeChunkSize = largeChunkSize;
+        }
+    }
+
+    /** A write limit for part of the day; wraps past midnight when {@code to} is not after {@code from}. */
+    public static class ThrottleProfile {
+
+        private LocalTime from = LocalTime.MIDNIGHT;
+
+        private LocalTime to = LocalTime.MIDNIGHT;
+
+        /** 0 means no limit. */
+        private double rowsPerSecond = 0;
+
+        public LocalTime getFrom() {
+            return from;
+        }
+
+        public void setFrom(LocalTime from) {
+            this.from = from;
+        }
+
+        public LocalTime getTo() {
+            return to;
+        }
+
+        public void setTo(LocalTime to) {
+            this.to = to;
+        }
+
+        public double getRowsPerSecond() {
+            return rowsPerSecond;
+        }
+
+        public void setRowsPerSecond(double rowsPerSecond) {
+            this.rowsPerSecond = rowsPerSecond;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.batch.spring_batch.config;
+
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+@Configuration
+public class QuoteSchemaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(QuoteSchemaConfig.class);
+
+    // The job's own tables in the quote database (the quote table itself is managed elsewhere).
+    // The script only uses IF NOT EXISTS statements, so it is safe to run on every start.
+    // Eager even with lazy initialisation (the job profile): the steps use the tables without depending on this bean
+    @Bean
+    @Lazy(false)
+    public InitializingBean quoteSchemaInitializer(@Qualifier("batchDataSource") DataSource batchDataSource) {
+        return () -> new ResourceDatabasePopulator(new ClassPathResource("db/quote/schema.sql"))
+                .execute(batchDataSource);
+    }
+
+    // Flyway is not on the classpath, so db/migration never runs by itself. The job repository tables are
+    // created outside the application; their indexes (IF NOT EXISTS as well) are added here once they exist
+    @Bean
+    @Lazy(false)
+    public InitializingBean batchMetadataIndexInitializer(@Qualifier("dataSource") DataSource dataSource) {
+        return () -> {
+            Integer tables = new JdbcTemplate(dataSource).queryForObject(
+                    "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE UPPER(TABLE_NAME) = 'BATCH_JOB_EXECUTION'",
+                    Integer.class);
+            if (tables == null || tables == 0) {
+                log.warn("No job repository tables yet; db/migration/V2__batch_metadata_indexes.sql not applied");
+                return;
+            }
+            new ResourceDatabasePopulator(new ClassPathResource("db/migration/V2__batch_metadata_indexes.sql"))
+                    .execute(dataSource);
+        };
+    }
+}
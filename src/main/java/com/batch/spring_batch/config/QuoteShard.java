@@ -0,0 +1,18 @@
+package com.batch.spring_batch.config;
+
+import javax.sql.DataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * One quote database the retention job fans out to, with its own pool and
+ * chunk transaction manager.
+ */
+public record QuoteShard(String name, DataSource dataSource, PlatformTransactionManager transactionManager) {
+
+    /**
+     * @return the name of a step, flow or reader of this shard, e.g. {@code updateOptInStep:<shard>}
+     */
+    public String qualified(String name) {
+        return name + ":" + this.name;
+    }
+}
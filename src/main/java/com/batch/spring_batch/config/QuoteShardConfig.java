@@ -0,0 +1,97 @@
+package com.batch.spring_batch.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+@Configuration
+public class QuoteShardConfig {
+
+    private final Logger log = LoggerFactory.getLogger(QuoteShardConfig.class);
+
+    private final QuoteBatchProperties properties;
+
+    public QuoteShardConfig(QuoteBatchProperties properties) {
+        this.properties = properties;
+    }
+
+    // One Hikari pool per spring.datasource.shards.<name>.* block, bound like the other pools.
+    // The pools are not beans, so their hikaricp.* meters are wired up here rather than by Boot.
+    @Bean(destroyMethod = "close")
+    public QuoteShards quoteShards(Environment environment) {
+        Map<String, HikariConfig> configs = new TreeMap<>(Binder.get(environment)
+                .bind("spring.datasource.shards", Bindable.mapOf(String.class, HikariConfig.class))
+                .orElse(Map.of()));
+        List<QuoteShard> shards = new ArrayList<>();
+        configs.forEach((name, config) -> {
+            HikariDataSource dataSource = new HikariDataSource();
+            config.copyStateTo(dataSource);
+            if (config.getPoolName() == null) {
+                dataSource.setPoolName("shard-" + name);
+            }
+            dataSource.setMetricRegistry(Metrics.globalRegistry);
+            shards.add(new QuoteShard(name, dataSource, new DataSourceTransactionManager(dataSource)));
+            log.info("Quote shard [{}]: {}", name, config.getJdbcUrl());
+        });
+        return new QuoteShards(shards);
+    }
+
+    // -----------------------------------------------------------------------
+    // Fan-out: one retention cycle per shard, one flow per shard in a split
+    // -----------------------------------------------------------------------
+
+    /** The steps of one retention cycle, built for one shard. */
+    @FunctionalInterface
+    public interface ShardSteps {
+
+        List<Step> of(QuoteShard shard) throws Exception;
+    }
+
+    // Each shard gets its own step executions (updateOptInStep:<shard>, ...), so a shard restarts
+    // from its own state; a slow or failed shard does not stop the other flows
+    public Flow shardFlows(QuoteShards quoteShards, ShardSteps retentionSteps) throws Exception {
+        if (properties.getUpdate().getReader().isReplica() || properties.getDelete().getReader().isReplica()
+                || properties.getRetention().getReader().isReplica()) {
+            throw new IllegalStateException("Replica reads are only supported without quote shards");
+        }
+        List<Flow> flows = new ArrayList<>();
+        for (QuoteShard shard : quoteShards.getShards()) {
+            List<Step> steps = retentionSteps.of(shard);
+            FlowBuilder<Flow> flow = new FlowBuilder<Flow>(shard.qualified("quoteShardFlow")).start(steps.get(0));
+            for (Step step : steps.subList(1, steps.size())) {
+                flow.next(step);
+            }
+            flows.add(flow.build());
+        }
+        return new FlowBuilder<Flow>("quoteShards")
+                .split(shardTaskExecutor())
+                .add(flows.toArray(new Flow[0]))
+                .build();
+    }
+
+    // Flows beyond the limit wait for a running shard to finish
+    @Bean
+    public TaskExecutor shardTaskExecutor() {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("quote-shard-");
+        taskExecutor.setConcurrencyLimit(properties.getSharding().getConcurrency());
+        return taskExecutor;
+    }
+}
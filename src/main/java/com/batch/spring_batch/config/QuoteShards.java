@@ -0,0 +1,36 @@
+package com.batch.spring_batch.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * The configured quote shards, in name order. Empty when the quote table only
+ * lives in {@code batchDataSource}. Owns the shard pools and closes them on shutdown.
+ */
+public class QuoteShards implements AutoCloseable {
+
+    private final List<QuoteShard> shards;
+
+    public QuoteShards(List<QuoteShard> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    public List<QuoteShard> getShards() {
+        return shards;
+    }
+
+    public boolean isEmpty() {
+        return shards.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        for (QuoteShard shard : shards) {
+            DataSource dataSource = shard.dataSource();
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.batch.spring_batch.distributed;
+
+import com.batch.spring_batch.batch.BatchConfig;
+import com.batch.spring_batch.batch.QuoteArchiveWriter;
+import com.batch.spring_batch.batch.QuoteArchivingDeleteWriter;
+import com.batch.spring_batch.batch.QuoteProjection;
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.config.QuoteShard;
+import com.batch.spring_batch.dto.Quote;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+
+// -----------------------------------------------------------------------
+// DISTRIBUTED mode: this node publishes id ranges, the worker threads of any node run them
+// -----------------------------------------------------------------------
+@Configuration
+public class DistributedConfig {
+
+    private final BatchConfig batchConfig;
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource batchDataSource;
+    private final QuoteBatchProperties properties;
+
+    // The ranges are read and written with the readers and writers of the CHUNK steps
+    public DistributedConfig(BatchConfig batchConfig, JobRepository jobRepository,
+                             @Qualifier("batchTransactionManager") PlatformTransactionManager transactionManager,
+                             @Qualifier("batchDataSource") DataSource batchDataSource,
+                             QuoteBatchProperties properties) {
+        this.batchConfig = batchConfig;
+        this.jobRepository = jobRepository;
+        this.transactionManager = transactionManager;
+        this.batchDataSource = batchDataSource;
+        this.properties = properties;
+    }
+
+    @Bean
+    public QuoteWorkQueue quoteWorkQueue() {
+        return new QuoteWorkQueue(batchDataSource, Clock.systemUTC());
+    }
+
+    public Step distributedStep(String stepName, QuoteShard shard, QuoteWorkItem.Kind kind,
+                                DataSource rangeDataSource) {
+        if (shard != null) {
+            // The work items carry no shard, and every worker writes to batchDataSource
+            throw new IllegalStateException("DISTRIBUTED update and delete modes cannot be combined with quote shards");
+        }
+        if (properties.getRepository().getMode() == QuoteBatchProperties.RepositoryMode.RESOURCELESS) {
+            // The work items are keyed by job instance id, which is the same for every resourceless run
+            throw new IllegalStateException("DISTRIBUTED update and delete modes need a JDBC or COALESCED job repository");
+        }
+        QuoteBatchProperties.Distributed distributed = properties.getDistributed();
+        QuoteWorkManagerTasklet tasklet = new QuoteWorkManagerTasklet(quoteWorkQueue(), kind, rangeDataSource,
+                distributed.getGridSize(), distributed.getPollInterval(), distributed.getMaxWait(),
+                Clock.systemDefaultZone());
+        // No transaction around the polls, so the manager holds no connection while it waits for the workers
+        return new StepBuilder(stepName, jobRepository)
+                .tasklet(tasklet, transactionManager)
+                .transactionAttribute(new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_NOT_SUPPORTED))
+                .listener((StepExecutionListener) batchConfig.quoteStepMetricsListener())
+                .listener((StepExecutionListener) batchConfig.quoteAuditListener())
+                .listener(batchConfig.loggingListener())
+                .build();
+    }
+
+    // Only on nodes that take part as workers; a node can be manager and worker at once
+    @Bean
+    @ConditionalOnProperty(name = "batch.quote.distributed.worker-enabled", havingValue = "true")
+    public QuoteWorkerPool quoteWorkerPool() throws Exception {
+        QuoteBatchProperties.Distributed distributed = properties.getDistributed();
+        String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+        QuoteWorker worker = new QuoteWorker(quoteWorkQueue(),
+                Map.of(QuoteWorkItem.Kind.UPDATE, updateRangeTask(), QuoteWorkItem.Kind.DELETE, deleteRangeTask()),
+                transactionManager, owner, properties.getChunk().getSize(), distributed.getClaimTimeout(),
+                distributed.getMaxAttempts());
+        return new QuoteWorkerPool(worker, distributed.getWorkerThreads(), distributed.getPollInterval());
+    }
+
+    // The CHUNK update logic over (lastId, maxId] of a work item, in the window the manager fixed
+    QuoteRangeTask updateRangeTask() throws Exception {
+        return new QuoteRangeTask() {
+            @Override
+            public ItemStreamReader<Quote> reader(QuoteWorkItem item) throws Exception {
+                Map<String, Object> params = rangeParams(item);
+                params.put("oneMonthAgo", item.runTime().minusMonths(1));
+                params.put("optIn", true);
+                QuoteBatchProperties.Reader settings = properties.getUpdate().getReader();
+                return BatchConfig.initialized(batchConfig.quoteReader("quoteReaderForUpdate#" + item.workId(),
+                        batchConfig.readDataSource("quoteReaderForUpdate", settings), QuoteProjection.OPT_IN,
+                        "WHERE id > :lastId AND id <= :maxId"
+                                + " AND created_time BETWEEN :twoYearsAgo AND :oneMonthAgo AND opt_in = :optIn",
+                        params, settings));
+            }
+
+            // Outside a step: the processor and the writer take the window of the item
+            @Override
+            public ItemProcessor<Quote, Quote> processor(QuoteWorkItem item) {
+                return batchConfig.updateProcessor(item::runTime);
+            }
+
+            @Override
+            public ItemWriter<Quote> writer(QuoteWorkItem item) throws Exception {
+                return BatchConfig.initialized(batchConfig.updateWriter(batchDataSource, item::runTime));
+            }
+        };
+    }
+
+    // The CHUNK delete logic over (lastId, maxId] of a work item; the attempts of an item share its segments, and
+    // the worker keeps their manifest with the item, so a retry cuts a rolled back chunk out of the archive
+    QuoteRangeTask deleteRangeTask() throws Exception {
+        return new QuoteRangeTask() {
+            @Override
+            public ItemStreamReader<Quote> reader(QuoteWorkItem item) throws Exception {
+                QuoteBatchProperties.Reader settings = properties.getDelete().getReader();
+                return BatchConfig.initialized(batchConfig.quoteReader("quoteReaderForDelete#" + item.workId(),
+                        batchConfig.readDataSource("quoteReaderForDelete", settings), QuoteProjection.ID,
+                        "WHERE id > :lastId AND id <= :maxId AND created_time < :twoYearsAgo",
+                        rangeParams(item), settings));
+            }
+
+            @Override
+            public ItemProcessor<Quote, Quote> processor(QuoteWorkItem item) {
+                return null;
+            }
+
+            @Override
+            public ItemWriter<Quote> writer(QuoteWorkItem item) throws Exception {
+                QuoteBatchProperties.Archive archive = properties.getArchive();
+                if (!archive.isEnabled()) {
+                    return BatchConfig.initialized(batchConfig.deleteWriter(batchDataSource, item::runTime));
+                }
+                QuoteArchiveWriter archiveWriter = new QuoteArchiveWriter(batchConfig.archiveDirectory(),
+                        "processQuotesJob-" + item.batchKey() + "-item" + item.workId(),
+                        archive.getMaxSegmentSize().toBytes());
+                return new QuoteArchivingDeleteWriter(batchDataSource, archiveWriter,
+                        () -> item.runTime().minusYears(2));
+            }
+        };
+    }
+
+    private static Map<String, Object> rangeParams(QuoteWorkItem item) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("lastId", item.lastId());
+        params.put("maxId", item.maxId());
+        params.put("twoYearsAgo", item.runTime().minusYears(2));
+        return params;
+    }
+}
@@ -0,0 +1,27 @@
+package com.batch.spring_batch.distributed;
+
+import com.batch.spring_batch.dto.Quote;
+
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+
+/**
+ * The chunk logic of one step kind, restricted to a claimed id range. The
+ * reader must only return the rows of {@code (item.lastId(), item.maxId()]}
+ * in id order, within the date window of {@code item.runTime()}.
+ */
+public interface QuoteRangeTask {
+
+    ItemStreamReader<Quote> reader(QuoteWorkItem item) throws Exception;
+
+    /**
+     * @return {@code null} to write the items as read
+     */
+    ItemProcessor<Quote, Quote> processor(QuoteWorkItem item);
+
+    /**
+     * Opened and closed around the item when it is an {@link org.springframework.batch.item.ItemStream}.
+     */
+    ItemWriter<Quote> writer(QuoteWorkItem item) throws Exception;
+}
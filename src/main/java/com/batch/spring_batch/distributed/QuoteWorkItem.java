@@ -0,0 +1,22 @@
+package com.batch.spring_batch.distributed;
+
+import java.time.LocalDateTime;
+
+/**
+ * One claimed id range of a distributed step.
+ *
+ * @param batchKey identifies the publishing step across restarts: {@code <job instance id>:<step name>}
+ * @param lastId   the highest id already handled; the range continues after it
+ * @param runTime  reference time of the date window, fixed by the manager for every range of the step
+ * @param attempts claims so far, including this one
+ */
+public record QuoteWorkItem(long workId, String batchKey, Kind kind, long minId, long maxId, long lastId,
+                            LocalDateTime runTime, int attempts) {
+
+    public enum Kind {
+        /** The opt-out of updateOptInStep. */
+        UPDATE,
+        /** The purge of deleteOldQuotesStep. */
+        DELETE
+    }
+}
@@ -0,0 +1,152 @@
+package com.batch.spring_batch.distributed;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Manager side of a distributed step. The first call splits the ids of the
+ * step's date window into {@code gridSize} ranges and publishes them as work
+ * items; the following calls check the items every {@code pollInterval}
+ * until the workers have finished them all. The step's write count is the sum
+ * of the items'. An item that failed {@code maxAttempts} times fails the
+ * step, and so do items still open {@code maxWait} after the step started;
+ * restarting it makes the failed items claimable again, while the finished
+ * ones are kept and the open ones stay with their workers.
+ * <p>
+ * The step has to run the tasklet without a transaction (propagation
+ * NOT_SUPPORTED): the queue commits its own statements, and the sleep between
+ * two checks must not hold a connection.
+ * <p>
+ * The items are keyed by job instance and step name, which is what a restart
+ * shares with the failed execution.
+ */
+public class QuoteWorkManagerTasklet implements Tasklet {
+
+    static final String EXECUTION_KEY = "distributed.stepExecutionId";
+
+    private static final String UPDATE_BOUNDS_SQL =
+            "SELECT MIN(id), MAX(id) FROM quote WHERE created_time BETWEEN ? AND ? AND opt_in = TRUE";
+    private static final String DELETE_BOUNDS_SQL = "SELECT MIN(id), MAX(id) FROM quote WHERE created_time < ?";
+
+    private final Logger log = LoggerFactory.getLogger(QuoteWorkManagerTasklet.class);
+
+    private final QuoteWorkQueue queue;
+    private final QuoteWorkItem.Kind kind;
+    private final JdbcTemplate jdbcTemplate;
+    private final int gridSize;
+    private final Duration pollInterval;
+    private final Duration maxWait;
+    private final Clock clock;
+
+    /**
+     * @param dataSource where the ranges are computed, i.e. the quote database or its replica
+     */
+    public QuoteWorkManagerTasklet(QuoteWorkQueue queue, QuoteWorkItem.Kind kind, DataSource dataSource,
+                                   int gridSize, Duration pollInterval, Duration maxWait, Clock clock) {
+        if (gridSize <= 0) {
+            throw new IllegalArgumentException("gridSize must be positive");
+        }
+        this.queue = queue;
+        this.kind = kind;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.gridSize = gridSize;
+        this.pollInterval = pollInterval;
+        this.maxWait = maxWait;
+        this.clock = clock;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws InterruptedException {
+        StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+        ExecutionContext context = stepExecution.getExecutionContext();
+        String batchKey = stepExecution.getJobExecution().getJobInstance().getInstanceId()
+                + ":" + stepExecution.getStepName();
+
+        if (!context.containsKey(EXECUTION_KEY) || context.getLong(EXECUTION_KEY) != stepExecution.getId()) {
+            // First call of this execution: publish, or pick up the items of the failed execution
+            if (queue.summary(batchKey).total() == 0) {
+                publish(batchKey);
+            } else {
+                log.info("Resuming the work items of {}; {} failed items are retried", batchKey,
+                        queue.retryFailed(batchKey));
+            }
+            context.putLong(EXECUTION_KEY, stepExecution.getId());
+            return RepeatStatus.CONTINUABLE;
+        }
+
+        QuoteWorkQueue.Summary summary = queue.summary(batchKey);
+        if (summary.failed() > 0) {
+            throw new IllegalStateException(summary.failed() + " work items of " + batchKey
+                    + " failed on every attempt; see batch_quote_work_item.error");
+        }
+        if (summary.open() > 0) {
+            if (Duration.between(stepExecution.getStartTime(), LocalDateTime.now(clock)).compareTo(maxWait) > 0) {
+                throw new IllegalStateException(summary.open() + " of " + summary.total() + " work items of "
+                        + batchKey + " are not finished after batch.quote.distributed.max-wait=" + maxWait);
+            }
+            Thread.sleep(pollInterval.toMillis());
+            return RepeatStatus.CONTINUABLE;
+        }
+        contribution.incrementWriteCount(summary.written());
+        queue.purge(batchKey);
+        log.info("Workers finished the {} work items of {}: {} rows written", summary.total(), batchKey,
+                summary.written());
+        return RepeatStatus.FINISHED;
+    }
+
+    private void publish(String batchKey) {
+        LocalDateTime runTime = LocalDateTime.now(clock);
+        long[] bounds = kind == QuoteWorkItem.Kind.UPDATE
+                ? bounds(UPDATE_BOUNDS_SQL, Timestamp.valueOf(runTime.minusYears(2)),
+                        Timestamp.valueOf(runTime.minusMonths(1)))
+                : bounds(DELETE_BOUNDS_SQL, Timestamp.valueOf(runTime.minusYears(2)));
+        List<long[]> ranges = split(bounds[0], bounds[1], gridSize);
+        queue.publish(batchKey, kind, ranges, runTime);
+        log.info("Published ids [{}, {}] of {} as {} work items", bounds[0], bounds[1], batchKey, ranges.size());
+    }
+
+    private long[] bounds(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+            long minId = rs.getLong(1);
+            long maxId = rs.getLong(2);
+            // MIN/MAX are NULL when nothing matches: use an empty range
+            return rs.wasNull() ? new long[]{1, 0} : new long[]{minId, maxId};
+        }, args);
+    }
+
+    /**
+     * Contiguous inclusive ranges covering {@code [minId, maxId]}; none for an empty range.
+     */
+    static List<long[]> split(long minId, long maxId, int gridSize) {
+        List<long[]> ranges = new ArrayList<>();
+        if (maxId < minId) {
+            return ranges;
+        }
+        int count = (int) Math.min(gridSize, maxId - minId + 1);
+        long rangeSize = (maxId - minId) / count + 1;
+        for (int i = 0; i < count; i++) {
+            long lower = minId + i * rangeSize;
+            if (lower > maxId) {
+                break;
+            }
+            long upper = i == count - 1 ? maxId : Math.min(maxId, lower + rangeSize - 1);
+            ranges.add(new long[]{lower, upper});
+        }
+        return ranges;
+    }
+}
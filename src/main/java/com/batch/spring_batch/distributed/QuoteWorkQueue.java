@@ -0,0 +1,193 @@
+package com.batch.spring_batch.distributed;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.repository.dao.DefaultExecutionContextSerializer;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The work items of distributed steps in {@code batch_quote_work_item} of the
+ * quote database. A worker claims the oldest item that is pending, or whose
+ * claim has not been renewed for {@code claimTimeout}, by locking it with
+ * {@code FOR UPDATE SKIP LOCKED}: competing workers skip each other's rows
+ * instead of queueing behind them. Every later write of a worker is
+ * conditional on still owning the claim.
+ * <p>
+ * Like the scheduler lease, claim expiry uses the nodes' clocks.
+ */
+public class QuoteWorkQueue {
+
+    static final String PENDING = "PENDING";
+    static final String CLAIMED = "CLAIMED";
+    static final String DONE = "DONE";
+    static final String FAILED = "FAILED";
+
+    private static final String INSERT_SQL = "INSERT INTO batch_quote_work_item"
+            + " (batch_key, kind, min_id, max_id, last_id, run_time, status, attempts, write_count)"
+            + " VALUES (?, ?, ?, ?, ?, ?, '" + PENDING + "', 0, 0)";
+    private static final String CLAIMABLE_SQL = "SELECT work_id FROM batch_quote_work_item"
+            + " WHERE status = '" + PENDING + "' OR (status = '" + CLAIMED + "' AND heartbeat_at < ?)"
+            + " ORDER BY work_id LIMIT 1 FOR UPDATE SKIP LOCKED";
+    private static final String CLAIM_SQL = "UPDATE batch_quote_work_item"
+            + " SET status = '" + CLAIMED + "', owner = ?, attempts = attempts + 1, heartbeat_at = ?"
+            + " WHERE work_id = ?";
+    private static final String SELECT_SQL = "SELECT work_id, batch_key, kind, min_id, max_id, last_id, run_time,"
+            + " attempts FROM batch_quote_work_item WHERE work_id = ?";
+    private static final String PROGRESS_SQL = "UPDATE batch_quote_work_item"
+            + " SET last_id = ?, write_count = write_count + ?, heartbeat_at = ?"
+            + " WHERE work_id = ? AND owner = ? AND status = '" + CLAIMED + "'";
+    private static final String STREAM_STATE_SQL = "SELECT stream_state FROM batch_quote_work_item WHERE work_id = ?";
+    private static final String SAVE_STREAM_STATE_SQL = "UPDATE batch_quote_work_item SET stream_state = ?"
+            + " WHERE work_id = ? AND owner = ? AND status = '" + CLAIMED + "'";
+    private static final String COMPLETE_SQL = "UPDATE batch_quote_work_item SET status = '" + DONE + "'"
+            + " WHERE work_id = ? AND owner = ? AND status = '" + CLAIMED + "'";
+    private static final String RELEASE_SQL = "UPDATE batch_quote_work_item"
+            + " SET status = CASE WHEN attempts >= ? THEN '" + FAILED + "' ELSE '" + PENDING + "' END,"
+            + " owner = NULL, error = ? WHERE work_id = ? AND owner = ? AND status = '" + CLAIMED + "'";
+    private static final String SUMMARY_SQL = "SELECT"
+            + " COALESCE(SUM(CASE WHEN status IN ('" + PENDING + "', '" + CLAIMED + "') THEN 1 ELSE 0 END), 0),"
+            + " COALESCE(SUM(CASE WHEN status = '" + FAILED + "' THEN 1 ELSE 0 END), 0),"
+            + " COALESCE(SUM(write_count), 0), COUNT(*)"
+            + " FROM batch_quote_work_item WHERE batch_key = ?";
+    private static final String RETRY_SQL = "UPDATE batch_quote_work_item"
+            + " SET status = '" + PENDING + "', attempts = 0, error = NULL"
+            + " WHERE batch_key = ? AND status = '" + FAILED + "'";
+    private static final String PURGE_SQL = "DELETE FROM batch_quote_work_item WHERE batch_key = ?";
+
+    /**
+     * @param open    items pending or claimed
+     * @param failed  items that used up their attempts
+     * @param written rows written by all items
+     * @param total   items published
+     */
+    public record Summary(long open, long failed, long written, long total) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DefaultExecutionContextSerializer serializer = new DefaultExecutionContextSerializer();
+    private final Clock clock;
+
+    public QuoteWorkQueue(DataSource dataSource, Clock clock) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.clock = clock;
+    }
+
+    /**
+     * @param ranges inclusive {@code [minId, maxId]} bounds, one item each
+     */
+    public void publish(String batchKey, QuoteWorkItem.Kind kind, List<long[]> ranges, LocalDateTime runTime) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, ranges, ranges.size(), (ps, range) -> {
+            ps.setString(1, batchKey);
+            ps.setString(2, kind.name());
+            ps.setLong(3, range[0]);
+            ps.setLong(4, range[1]);
+            ps.setLong(5, range[0] - 1);
+            ps.setTimestamp(6, Timestamp.valueOf(runTime));
+        });
+    }
+
+    /**
+     * Claims the next item for {@code owner} in a transaction of its own.
+     */
+    public Optional<QuoteWorkItem> claim(String owner, Duration claimTimeout) {
+        return transactionTemplate.execute(status -> {
+            OffsetDateTime now = OffsetDateTime.now(clock);
+            List<Long> ids = jdbcTemplate.queryForList(CLAIMABLE_SQL, Long.class, now.minus(claimTimeout));
+            if (ids.isEmpty()) {
+                return Optional.empty();
+            }
+            jdbcTemplate.update(CLAIM_SQL, owner, now, ids.get(0));
+            return Optional.of(jdbcTemplate.queryForObject(SELECT_SQL, (rs, rowNum) -> new QuoteWorkItem(
+                    rs.getLong(1), rs.getString(2), QuoteWorkItem.Kind.valueOf(rs.getString(3)),
+                    rs.getLong(4), rs.getLong(5), rs.getLong(6), rs.getTimestamp(7).toLocalDateTime(),
+                    rs.getInt(8)), ids.get(0)));
+        });
+    }
+
+    /**
+     * Records a committed chunk and renews the claim. Call it inside the
+     * chunk's transaction, so the chunk and its progress commit together.
+     *
+     * @return false if the claim was lost to another worker; roll the chunk back then
+     */
+    public boolean progress(QuoteWorkItem item, String owner, long lastId, long written) {
+        return jdbcTemplate.update(PROGRESS_SQL, lastId, written, OffsetDateTime.now(clock), item.workId(),
+                owner) == 1;
+    }
+
+    /**
+     * @return the stream state the item's last committed chunk saved, empty before the first one
+     */
+    public ExecutionContext streamState(QuoteWorkItem item) {
+        String state = jdbcTemplate.queryForObject(STREAM_STATE_SQL, String.class, item.workId());
+        if (state == null) {
+            return new ExecutionContext();
+        }
+        try {
+            return new ExecutionContext(serializer.deserialize(
+                    new ByteArrayInputStream(state.getBytes(StandardCharsets.ISO_8859_1))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the stream state of work item " + item.workId(), e);
+        }
+    }
+
+    /**
+     * Saves the writer's stream state. Call it inside the chunk's transaction, after {@link #progress}, so a
+     * rolled back chunk leaves the state of the previous one.
+     */
+    public void saveStreamState(QuoteWorkItem item, String owner, ExecutionContext streamState) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            serializer.serialize(streamState.toMap(), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the stream state of work item " + item.workId(), e);
+        }
+        // The serializer's output is Base64 already
+        jdbcTemplate.update(SAVE_STREAM_STATE_SQL, out.toString(StandardCharsets.ISO_8859_1), item.workId(), owner);
+    }
+
+    public boolean complete(QuoteWorkItem item, String owner) {
+        return jdbcTemplate.update(COMPLETE_SQL, item.workId(), owner) == 1;
+    }
+
+    /**
+     * Gives a failed item back: pending again, or failed for good after {@code maxAttempts} claims.
+     */
+    public void release(QuoteWorkItem item, String owner, String error, int maxAttempts) {
+        String message = error == null || error.length() <= 2500 ? error : error.substring(0, 2500);
+        jdbcTemplate.update(RELEASE_SQL, maxAttempts, message, item.workId(), owner);
+    }
+
+    public Summary summary(String batchKey) {
+        return jdbcTemplate.queryForObject(SUMMARY_SQL, (rs, rowNum) -> new Summary(
+                rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)), batchKey);
+    }
+
+    /**
+     * Makes the failed items of a restarted step claimable again, with fresh attempts.
+     */
+    public int retryFailed(String batchKey) {
+        return jdbcTemplate.update(RETRY_SQL, batchKey);
+    }
+
+    public void purge(String batchKey) {
+        jdbcTemplate.update(PURGE_SQL, batchKey);
+    }
+}
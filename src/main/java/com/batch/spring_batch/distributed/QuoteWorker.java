@@ -0,0 +1,160 @@
+package com.batch.spring_batch.distributed;
+
+import com.batch.spring_batch.dto.Quote;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Claims work items and runs them: the range is read, processed and written
+ * in chunks, and each chunk commits together with the item's new
+ * {@code last_id}. A worker that takes over a stalled claim therefore resumes
+ * after the last committed chunk. When the claim turns out to be lost, the
+ * chunk is rolled back and the item abandoned to its new owner.
+ * <p>
+ * A writer that is an {@link ItemStream} (the archive) is opened with the
+ * stream state saved by the item's last committed chunk, and saves its state
+ * with every chunk, so a later attempt continues its output instead of
+ * repeating rows of a rolled back chunk.
+ * <p>
+ * A worker that is asked to stop leaves its item after the current chunk;
+ * another worker takes the claim over once it has timed out.
+ */
+public class QuoteWorker {
+
+    private final Logger log = LoggerFactory.getLogger(QuoteWorker.class);
+
+    private final QuoteWorkQueue queue;
+    private final Map<QuoteWorkItem.Kind, QuoteRangeTask> tasks;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner;
+    private final int chunkSize;
+    private final Duration claimTimeout;
+    private final int maxAttempts;
+
+    /**
+     * @param transactionManager of the quote database, which also holds the work items
+     */
+    public QuoteWorker(QuoteWorkQueue queue, Map<QuoteWorkItem.Kind, QuoteRangeTask> tasks,
+                       PlatformTransactionManager transactionManager, String owner, int chunkSize,
+                       Duration claimTimeout, int maxAttempts) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.queue = queue;
+        this.tasks = tasks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.owner = owner;
+        this.chunkSize = chunkSize;
+        this.claimTimeout = claimTimeout;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Claims and runs one item.
+     *
+     * @param stopping checked between chunks
+     * @return false if there was nothing to claim
+     */
+    public boolean runNext(BooleanSupplier stopping) {
+        Optional<QuoteWorkItem> claimed = queue.claim(owner, claimTimeout);
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        QuoteWorkItem item = claimed.get();
+        try {
+            run(item, stopping);
+        } catch (Exception e) {
+            log.warn("Work item {} ({} ids {}..{}) failed on attempt {}", item.workId(), item.kind(),
+                    item.minId(), item.maxId(), item.attempts(), e);
+            queue.release(item, owner, e.toString(), maxAttempts);
+        }
+        return true;
+    }
+
+    private void run(QuoteWorkItem item, BooleanSupplier stopping) throws Exception {
+        QuoteRangeTask task = tasks.get(item.kind());
+        ItemStreamReader<Quote> reader = task.reader(item);
+        ItemProcessor<Quote, Quote> processor = task.processor(item);
+        ItemWriter<Quote> writer = task.writer(item);
+        ExecutionContext streamState = queue.streamState(item);
+        reader.open(new ExecutionContext());
+        if (writer instanceof ItemStream stream) {
+            stream.open(streamState);
+        }
+        try {
+            Chunk<Quote> chunk;
+            while (!(chunk = read(reader)).isEmpty()) {
+                if (stopping.getAsBoolean()) {
+                    log.info("Leaving work item {} at id {} for another worker", item.workId(),
+                            chunk.getItems().get(0).getId() - 1);
+                    return;
+                }
+                long lastId = chunk.getItems().get(chunk.size() - 1).getId();
+                Chunk<Quote> processed = process(processor, chunk);
+                Boolean owned = transactionTemplate.execute(status -> {
+                    // Progress first: it locks the item row, and fails when the claim was taken over
+                    if (!queue.progress(item, owner, lastId, processed.size())) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    try {
+                        writer.write(processed);
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Could not write the chunk ending at id " + lastId, e);
+                    }
+                    if (writer instanceof ItemStream stream) {
+                        stream.update(streamState);
+                        queue.saveStreamState(item, owner, streamState);
+                    }
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(owned)) {
+                    log.warn("Lost the claim on work item {} to another worker; abandoning it", item.workId());
+                    return;
+                }
+            }
+            queue.complete(item, owner);
+        } finally {
+            if (writer instanceof ItemStream stream) {
+                stream.close();
+            }
+            reader.close();
+        }
+    }
+
+    private Chunk<Quote> read(ItemStreamReader<Quote> reader) throws Exception {
+        Chunk<Quote> chunk = new Chunk<>();
+        Quote quote;
+        while (chunk.size() < chunkSize && (quote = reader.read()) != null) {
+            chunk.add(quote);
+        }
+        return chunk;
+    }
+
+    private static Chunk<Quote> process(ItemProcessor<Quote, Quote> processor, Chunk<Quote> chunk) throws Exception {
+        if (processor == null) {
+            return chunk;
+        }
+        Chunk<Quote> processed = new Chunk<>();
+        for (Quote quote : chunk) {
+            Quote result = processor.process(quote);
+            if (result != null) {
+                processed.add(result);
+            }
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,106 @@
+package com.batch.spring_batch.distributed;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Worker threads of this node: each one claims and runs work items until the
+ * queue is empty, then polls it every {@code pollInterval}. Several pools, in
+ * one JVM or on many nodes, can share a queue.
+ */
+public class QuoteWorkerPool implements SmartLifecycle {
+
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Logger log = LoggerFactory.getLogger(QuoteWorkerPool.class);
+
+    private final QuoteWorker worker;
+    private final int threads;
+    private final Duration pollInterval;
+    private final List<Thread> running = new ArrayList<>();
+    private final Object idle = new Object();
+    private volatile boolean stopped = true;
+
+    public QuoteWorkerPool(QuoteWorker worker, int threads, Duration pollInterval) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.worker = worker;
+        this.threads = threads;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!stopped) {
+            return;
+        }
+        stopped = false;
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::poll, "quote-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            running.add(thread);
+        }
+        log.info("Started {} quote worker threads", threads);
+    }
+
+    private void poll() {
+        while (!stopped && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (!worker.runNext(() -> stopped)) {
+                    pause();
+                }
+            } catch (Exception e) {
+                // The queue itself is unreachable; try again after a pause
+                log.error("Quote worker could not claim work", e);
+                pause();
+            }
+        }
+    }
+
+    private void pause() {
+        synchronized (idle) {
+            if (stopped) {
+                return;
+            }
+            try {
+                idle.wait(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Lets the running items finish their current chunk; a claim left
+     * unfinished is taken over by another worker after the claim timeout.
+     * The threads are not interrupted, which could break a JDBC call.
+     */
+    @Override
+    public synchronized void stop() {
+        synchronized (idle) {
+            stopped = true;
+            idle.notifyAll();
+        }
+        for (Thread thread : running) {
+            try {
+                thread.join(STOP_TIMEOUT.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        running.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !stopped;
+    }
+}
@@ -0,0 +1,143 @@
+package com.batch.spring_batch.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+
+/**
+ * Publishes where each chunk spends its time, tagged by job and step:
+ * <ul>
+ *     <li>{@code quote.batch.chunk} - whole chunk including commit,</li>
+ *     <li>{@code quote.batch.chunk.read|process|write} - time spent in each phase of a chunk,</li>
+ *     <li>{@code quote.batch.items.written} and {@code quote.batch.step.throughput} (items/sec per step).</li>
+ * </ul>
+ * Connection-acquire waits are Hikari's own {@code hikaricp.connections.acquire} timer, tagged by pool: a
+ * per-step delta of that pool-wide timer would count the waits of concurrent steps again for every step.
+ * Partition workers run on several threads, so per-chunk state is thread-local. Items are only
+ * counted, never inspected, so the same listener serves steps whose processor returns futures.
+ */
+public class QuoteStepMetricsListener implements StepExecutionListener, ChunkListener,
+        ItemReadListener<Object>, ItemProcessListener<Object, Object>, ItemWriteListener<Object> {
+
+    private final MeterRegistry registry;
+    private final ThreadLocal<ChunkTimings> timings = ThreadLocal.withInitial(ChunkTimings::new);
+
+    public QuoteStepMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        Tags tags = tags(stepExecution.getJobExecution().getJobInstance().getJobName(), stepExecution.getStepName());
+
+        if (stepExecution.getStartTime() != null) {
+            long millis = Math.max(1, Duration.between(stepExecution.getStartTime(),
+                    stepExecution.getLastUpdated() != null ? stepExecution.getLastUpdated()
+                            : stepExecution.getStartTime()).toMillis());
+            DistributionSummary.builder("quote.batch.step.throughput")
+                    .description("Items written per second over the whole step")
+                    .baseUnit("items/s")
+                    .tags(tags)
+                    .register(registry)
+                    .record(stepExecution.getWriteCount() * 1000.0 / millis);
+        }
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        timings.get().reset();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkTimings chunk = timings.get();
+        Tags tags = tags(context.getStepContext().getJobName(), context.getStepContext().getStepName());
+        record("quote.batch.chunk", tags, System.nanoTime() - chunk.chunkStart);
+        record("quote.batch.chunk.read", tags, chunk.readNanos);
+        record("quote.batch.chunk.process", tags, chunk.processNanos);
+        record("quote.batch.chunk.write", tags, chunk.writeNanos);
+        Counter.builder("quote.batch.items.written").tags(tags).register(registry).increment(chunk.written);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        Counter.builder("quote.batch.chunk.failed")
+                .tags(tags(context.getStepContext().getJobName(), context.getStepContext().getStepName()))
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void beforeRead() {
+        timings.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        ChunkTimings chunk = timings.get();
+        chunk.readNanos += System.nanoTime() - chunk.phaseStart;
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+        timings.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        ChunkTimings chunk = timings.get();
+        chunk.processNanos += System.nanoTime() - chunk.phaseStart;
+    }
+
+    @Override
+    public void beforeWrite(Chunk<?> items) {
+        timings.get().phaseStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterWrite(Chunk<?> items) {
+        ChunkTimings chunk = timings.get();
+        chunk.writeNanos += System.nanoTime() - chunk.phaseStart;
+        chunk.written += items.size();
+    }
+
+    private void record(String name, Tags tags, long nanos) {
+        Timer.builder(name).tags(tags).register(registry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Tags tags(String jobName, String stepName) {
+        return Tags.of("job", jobName, "step", stepName);
+    }
+
+    private static final class ChunkTimings {
+        long chunkStart;
+        long phaseStart;
+        long readNanos;
+        long processNanos;
+        long writeNanos;
+        long written;
+
+        void reset() {
+            chunkStart = System.nanoTime();
+            readNanos = 0;
+            processNanos = 0;
+            writeNanos = 0;
+            written = 0;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.batch.spring_batch.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Publishes how far the read replica is behind as {@code quote.batch.replica.lag}
+ * (seconds), queried on the replica whenever the gauge is read.
+ * <p>
+ * A PostgreSQL standby reports the age of the last replayed transaction, which
+ * also grows while the primary is simply idle, so it is reported as 0 once all
+ * received WAL has been replayed. NaN means the replica could not be asked.
+ */
+public class ReplicaLagMeter {
+
+    static final String LAG_SQL = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaLagMeter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+
+    public ReplicaLagMeter(DataSource replicaDataSource, MeterRegistry registry) {
+        this(replicaDataSource, LAG_SQL, registry);
+    }
+
+    // Tests run against H2, which has no replication functions
+    ReplicaLagMeter(DataSource replicaDataSource, String sql, MeterRegistry registry) {
+        this.jdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.sql = sql;
+        Gauge.builder("quote.batch.replica.lag", this, ReplicaLagMeter::lagSeconds)
+                .description("Replication delay of the replica the quote readers page from")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public double lagSeconds() {
+        try {
+            Number lag = jdbcTemplate.queryForObject(sql, Number.class);
+            return lag == null ? 0 : lag.doubleValue();
+        } catch (DataAccessException e) {
+            log.debug("Could not query the replica lag", e);
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.batch.spring_batch.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.env.Environment;
+
+/**
+ * Measures the time from JVM start until every eager singleton exists, which
+ * is also the point where {@code -Dspring.context.exit=onRefresh} stops a CDS
+ * training run. Publishes it as {@code quote.batch.startup} and appends it to
+ * the startup report, one CSV line per start, so the fast-startup build can be
+ * compared with the plain one from build to build.
+ */
+public class StartupTimeRecorder implements SmartInitializingSingleton {
+
+    static final String HEADER = "recorded_at,aot,cds,lazy,startup_ms";
+
+    private final Logger log = LoggerFactory.getLogger(StartupTimeRecorder.class);
+
+    private final Path report;
+    private final Environment environment;
+    private final MeterRegistry registry;
+
+    /**
+     * @param report the CSV file, or {@code null} for none
+     */
+    public StartupTimeRecorder(Path report, Environment environment, MeterRegistry registry) {
+        this.report = report;
+        this.environment = environment;
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        long startupMillis = runtime.getUptime();
+        boolean aot = environment.getProperty("spring.aot.enabled", Boolean.class, false);
+        boolean cds = runtime.getInputArguments().stream().anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"));
+        boolean lazy = environment.getProperty("spring.main.lazy-initialization", Boolean.class, false);
+        log.info("Started in {} ms since JVM start (AOT {}, CDS archive {}, lazy initialisation {})", startupMillis,
+                aot, cds, lazy);
+        TimeGauge.builder("quote.batch.startup", () -> startupMillis, TimeUnit.MILLISECONDS)
+                .description("Time from JVM start until the application context's singletons were ready")
+                .register(registry);
+        if (report != null) {
+            append(String.join(",", Instant.now().toString(), String.valueOf(aot), String.valueOf(cds),
+                    String.valueOf(lazy), String.valueOf(startupMillis)));
+        }
+    }
+
+    private void append(String line) {
+        try {
+            if (report.getParent() != null) {
+                Files.createDirectories(report.getParent());
+            }
+            String content = Files.exists(report) ? line + "\n" : HEADER + "\n" + line + "\n";
+            Files.writeString(report, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            // The measurement must never keep the job from running
+            log.warn("Could not append to the startup report {}", report, e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.batch.spring_batch.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+
+/**
+ * {@link JdbcPagingItemReader} that times every page query as
+ * {@code quote.batch.reader.page}, tagged with the reader name.
+ */
+public class TimedJdbcPagingItemReader<T> extends JdbcPagingItemReader<T> {
+
+    private final MeterRegistry registry;
+    private String name;
+    private Timer pageTimer;
+
+    public TimedJdbcPagingItemReader(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // Also called from the superclass constructor, before the registry is assigned,
+    // so the timer is only registered once the reader is opened
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        this.name = name;
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        pageTimer = Timer.builder("quote.batch.reader.page")
+                .description("Query time of one reader page")
+                .tag("reader", name)
+                .register(registry);
+        super.doOpen();
+    }
+
+    @Override
+    protected void doReadPage() {
+        long start = System.nanoTime();
+        try {
+            super.doReadPage();
+        } finally {
+            pageTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.batch.spring_batch.scheduler;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Asynchronous launcher that checks the {@link JobLaunchTaskExecutor}'s
+ * concurrency limit before the job execution is created. A launch over the
+ * limit throws {@link TaskRejectedException} and is only counted in
+ * {@code quote.batch.job.rejected}, instead of leaving a FAILED execution in
+ * the job repository as a plain {@link TaskExecutorJobLauncher} would.
+ */
+public class BoundedJobLauncher extends TaskExecutorJobLauncher {
+
+    private final JobLaunchTaskExecutor taskExecutor;
+
+    public BoundedJobLauncher(JobLaunchTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+        setTaskExecutor(taskExecutor);
+    }
+
+    @Override
+    public JobExecution run(Job job, JobParameters jobParameters) throws JobExecutionAlreadyRunningException,
+            JobRestartException, JobInstanceAlreadyCompleteException, JobParametersInvalidException {
+        taskExecutor.reserve();
+        try {
+            return super.run(job, jobParameters);
+        } finally {
+            // Only if the launch failed before the execution was handed to the executor
+            taskExecutor.cancelReservation();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.batch.spring_batch.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import javax.sql.DataSource;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * A named lease row in {@code batch_job_lease} of the quote database. A node
+ * may take the lease when no row exists yet or when the current one has
+ * expired; the holder keeps it alive by renewing before it expires. Every
+ * statement is a single conditional write, so the database decides which of
+ * several competing nodes wins.
+ * <p>
+ * Expiry uses the nodes' clocks, so they need to agree to well within the TTL.
+ */
+public class JdbcJobLease {
+
+    private static final String TAKE_OVER_SQL = "UPDATE batch_job_lease"
+            + " SET owner = ?, acquired_at = ?, heartbeat_at = ?, expires_at = ?"
+            + " WHERE lease_name = ? AND expires_at < ?";
+    private static final String INSERT_SQL = "INSERT INTO batch_job_lease"
+            + " (lease_name, owner, acquired_at, heartbeat_at, expires_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String RENEW_SQL = "UPDATE batch_job_lease SET heartbeat_at = ?, expires_at = ?"
+            + " WHERE lease_name = ? AND owner = ?";
+    private static final String RELEASE_SQL = "UPDATE batch_job_lease SET expires_at = ?"
+            + " WHERE lease_name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String leaseName;
+    private final String owner;
+    private final Clock clock;
+
+    public JdbcJobLease(DataSource dataSource, String leaseName, String owner, Clock clock) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.leaseName = leaseName;
+        this.owner = owner;
+        this.clock = clock;
+    }
+
+    /**
+     * @return whether this node now holds the lease for {@code ttl}
+     */
+    public boolean tryAcquire(Duration ttl) {
+        OffsetDateTime now = now();
+        OffsetDateTime expiresAt = now.plus(ttl);
+        if (jdbcTemplate.update(TAKE_OVER_SQL, owner, now, now, expiresAt, leaseName, now) == 1) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_SQL, leaseName, owner, now, now, expiresAt) == 1;
+        } catch (DuplicateKeyException e) {
+            // The row exists and is held by someone else, or another node inserted it first
+            return false;
+        }
+    }
+
+    /**
+     * Extends the lease by {@code ttl} from now.
+     *
+     * @return false if another node has taken the lease over in the meantime
+     */
+    public boolean renew(Duration ttl) {
+        OffsetDateTime now = now();
+        return jdbcTemplate.update(RENEW_SQL, now, now.plus(ttl), leaseName, owner) == 1;
+    }
+
+    /**
+     * Gives the lease up, but not before {@code notBefore}, so that a run that
+     * finishes early still blocks the other nodes for the rest of its window.
+     */
+    public void release(Instant notBefore) {
+        Instant now = clock.instant();
+        Instant expiresAt = notBefore.isAfter(now) ? notBefore : now;
+        jdbcTemplate.update(RELEASE_SQL, OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC), leaseName, owner);
+    }
+
+    public String getLeaseName() {
+        return leaseName;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    private OffsetDateTime now() {
+        return OffsetDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+}
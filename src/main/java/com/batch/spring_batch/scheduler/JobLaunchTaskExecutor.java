@@ -0,0 +1,99 @@
+package com.batch.spring_batch.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Runs every job execution on its own virtual thread, at most
+ * {@code maxConcurrentJobs} at a time. Unlike the concurrency limit of
+ * {@link SimpleAsyncTaskExecutor}, which blocks the submitting thread, a launch
+ * over the limit is rejected straight away, so the scheduler thread never
+ * waits for a running purge. {@link BoundedJobLauncher} takes the permit with
+ * {@link #reserve()} before it creates the job execution, so a rejected launch
+ * leaves no execution behind.
+ * <p>
+ * Publishes {@code quote.batch.job.running} and {@code quote.batch.job.rejected};
+ * durations and outcomes are in Spring Batch's own {@code spring.batch.job} timer.
+ */
+public class JobLaunchTaskExecutor implements TaskExecutor {
+
+    private final SimpleAsyncTaskExecutor delegate = new SimpleAsyncTaskExecutor("job-");
+    private final int maxConcurrentJobs;
+    private final Semaphore permits;
+    private final Counter rejected;
+    // A permit reserve() took for the next execute() on the same thread
+    private final ThreadLocal<Boolean> reserved = new ThreadLocal<>();
+
+    public JobLaunchTaskExecutor(int maxConcurrentJobs, MeterRegistry registry) {
+        if (maxConcurrentJobs <= 0) {
+            throw new IllegalArgumentException("maxConcurrentJobs must be positive");
+        }
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.permits = new Semaphore(maxConcurrentJobs);
+        this.delegate.setVirtualThreads(true);
+        Gauge.builder("quote.batch.job.running", this, JobLaunchTaskExecutor::getRunningJobs)
+                .description("Job executions currently running on the launcher")
+                .register(registry);
+        this.rejected = Counter.builder("quote.batch.job.rejected")
+                .description("Job launches rejected because the concurrency limit was reached")
+                .register(registry);
+    }
+
+    /**
+     * Takes a permit for the next {@link #execute} on this thread.
+     *
+     * @throws TaskRejectedException if {@code maxConcurrentJobs} executions are running
+     */
+    public void reserve() {
+        acquire();
+        reserved.set(Boolean.TRUE);
+    }
+
+    /**
+     * Gives back a permit {@link #reserve()} took if no {@link #execute} used it.
+     */
+    public void cancelReservation() {
+        if (reserved.get() != null) {
+            reserved.remove();
+            permits.release();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (reserved.get() != null) {
+            reserved.remove();
+        } else {
+            acquire();
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new TaskRejectedException("Already running " + maxConcurrentJobs + " job execution(s)");
+        }
+    }
+
+    public int getRunningJobs() {
+        return maxConcurrentJobs - permits.availablePermits();
+    }
+}
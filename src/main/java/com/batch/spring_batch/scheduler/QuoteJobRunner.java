@@ -0,0 +1,93 @@
+package com.batch.spring_batch.scheduler;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.retry.backoff.Sleeper;
+
+/**
+ * One-shot mode: with {@code runOnce} the job runs once as soon as the
+ * application has started, and the exit code reports whether it completed.
+ * Without it the runner does nothing and the scheduler launches the job.
+ * <p>
+ * The run goes through the {@link SingleFlightJobLauncher} like a scheduled
+ * one, so it never overlaps a run on another node: the runner waits for the
+ * execution and renews the lease every {@code heartbeatInterval} meanwhile.
+ * When another node holds the lease the run is skipped with exit code 2.
+ * <p>
+ * {@code @EnableBatchProcessing} switches off Spring Boot's own job runner,
+ * so {@code spring.batch.job.enabled} has no effect here.
+ */
+public class QuoteJobRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    // How often the runner looks at the execution; the lease is only renewed every heartbeatInterval
+    private static final long POLL_MILLIS = 200;
+
+    private final Logger log = LoggerFactory.getLogger(QuoteJobRunner.class);
+
+    private final SingleFlightJobLauncher jobLauncher;
+    private final Job job;
+    private final boolean runOnce;
+    private final Duration heartbeatInterval;
+    private final Sleeper sleeper;
+
+    private volatile boolean done;
+    private volatile JobExecution execution;
+
+    public QuoteJobRunner(SingleFlightJobLauncher jobLauncher, Job job, boolean runOnce, Duration heartbeatInterval,
+                          Sleeper sleeper) {
+        this.jobLauncher = jobLauncher;
+        this.job = job;
+        this.runOnce = runOnce;
+        this.heartbeatInterval = heartbeatInterval;
+        this.sleeper = sleeper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!runOnce) {
+            return;
+        }
+        JobExecution launched = jobLauncher.launch(job, new JobParametersBuilder()
+                .addLong("timestamp", System.currentTimeMillis())
+                .toJobParameters());
+        if (launched == null) {
+            log.warn("One-shot run of {} skipped: another node is running it", job.getName());
+            done = true;
+            return;
+        }
+        long nextHeartbeat = System.nanoTime() + heartbeatInterval.toNanos();
+        // The launcher lets go of the execution (and the lease) once the repository has its final status
+        while (jobLauncher.isInFlight()) {
+            sleeper.sleep(POLL_MILLIS);
+            if (!launched.getStatus().isRunning() || System.nanoTime() - nextHeartbeat >= 0) {
+                jobLauncher.heartbeat();
+                nextHeartbeat = System.nanoTime() + heartbeatInterval.toNanos();
+            }
+        }
+        execution = launched;
+        done = true;
+        log.info("One-shot run of {} finished as execution {} with {}", job.getName(), execution.getId(),
+                execution.getStatus());
+    }
+
+    public boolean hasRun() {
+        return done;
+    }
+
+    @Override
+    public int getExitCode() {
+        if (done && execution == null) {
+            return 2;
+        }
+        return execution == null || execution.getStatus() == BatchStatus.COMPLETED ? 0 : 1;
+    }
+}
@@ -3,19 +3,24 @@ package com.batch.spring_batch.scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnProperty(name = "batch.quote.scheduler.enabled", havingValue = "true", matchIfMissing = true)
 public class SchedulerConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(SchedulerConfig.class);
-    private final JobLauncher jobLauncher;
+    private final SingleFlightJobLauncher jobLauncher;
     private final Job updateOptInJob;
 
-    public SchedulerConfig(JobLauncher jobLauncher, Job updateOptInJob) {
+    // Launches through the cluster lease and the async launcher, so overlapping triggers (here and on
+    // other nodes) do not start a second run, and the scheduler thread is free again at once
+    public SchedulerConfig(SingleFlightJobLauncher jobLauncher, Job updateOptInJob) {
         this.jobLauncher = jobLauncher;
         this.updateOptInJob = updateOptInJob;
     }
@@ -24,13 +29,27 @@ public class SchedulerConfig {
     @Scheduled(cron = "* * * * * 0")// Run every minute
     public void runUpdateOptInJob() {
         try {
-            jobLauncher.run(updateOptInJob,
+            JobExecution execution = jobLauncher.launch(updateOptInJob,
                     new JobParametersBuilder()
                             .addLong("timestamp", System.currentTimeMillis())
                             .toJobParameters());
-            logger.info("Job updateOptInJob executed successfully");
+            if (execution != null) {
+                logger.info("Job updateOptInJob running as execution {}", execution.getId());
+            }
+        } catch (TaskRejectedException e) {
+            // Counted in quote.batch.job.rejected; no execution was created
+            logger.warn("Launch of updateOptInJob rejected: {}", e.getMessage());
         } catch (Exception e) {
-            logger.error("Error executing updateOptInJob", e);
+            logger.error("Error launching updateOptInJob", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${batch.quote.scheduler.heartbeat-interval:30s}")
+    public void renewLease() {
+        try {
+            jobLauncher.heartbeat();
+        } catch (Exception e) {
+            logger.error("Error renewing the updateOptInJob lease", e);
         }
     }
 }
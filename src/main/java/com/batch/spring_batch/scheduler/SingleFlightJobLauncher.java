@@ -0,0 +1,135 @@
+package com.batch.spring_batch.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+
+/**
+ * Launches a job only when no execution of it is in flight, on this node or
+ * anywhere else in the cluster:
+ * <ul>
+ *     <li>a launch while this node's last execution is still running is coalesced into that execution;</li>
+ *     <li>otherwise the node has to take the {@link JdbcJobLease} first, and skips the launch if another
+ *     node holds it.</li>
+ * </ul>
+ * The lease is kept alive by {@link #heartbeat()} while the execution runs and released once it has
+ * finished, but never before {@code minInterval} after it was taken, so one window gets one run.
+ * <p>
+ * Publishes {@code quote.batch.lease.acquired}, {@code quote.batch.lease.skipped} (tagged with the
+ * reason) and {@code quote.batch.lease.lost}.
+ */
+public class SingleFlightJobLauncher {
+
+    private final Logger log = LoggerFactory.getLogger(SingleFlightJobLauncher.class);
+
+    private final JobLauncher jobLauncher;
+    private final JobRepository jobRepository;
+    private final JdbcJobLease lease;
+    private final Duration ttl;
+    private final Duration minInterval;
+    private final Clock clock;
+    private final MeterRegistry registry;
+
+    private JobExecution current;
+    private Instant acquiredAt;
+
+    public SingleFlightJobLauncher(JobLauncher jobLauncher, JobRepository jobRepository, JdbcJobLease lease,
+                                   Duration ttl, Duration minInterval, Clock clock, MeterRegistry registry) {
+        this.jobLauncher = jobLauncher;
+        this.jobRepository = jobRepository;
+        this.lease = lease;
+        this.ttl = ttl;
+        this.minInterval = minInterval;
+        this.clock = clock;
+        this.registry = registry;
+    }
+
+    /**
+     * @return the new execution, the still running one the launch was coalesced
+     * into, or {@code null} when another node holds the lease
+     */
+    public synchronized JobExecution launch(Job job, JobParameters jobParameters) throws Exception {
+        if (current != null) {
+            if (isRunning(current)) {
+                skipped("in_flight");
+                log.info("Launch of {} coalesced into running execution {}", job.getName(), current.getId());
+                return current;
+            }
+            release();
+        }
+        if (!lease.tryAcquire(ttl)) {
+            skipped("lease_held");
+            log.info("Launch of {} skipped, lease {} is held by another node", job.getName(), lease.getLeaseName());
+            return null;
+        }
+        counter("quote.batch.lease.acquired").increment();
+        acquiredAt = clock.instant();
+        try {
+            current = jobLauncher.run(job, jobParameters);
+        } catch (Exception e) {
+            lease.release(acquiredAt);
+            throw e;
+        }
+        return current;
+    }
+
+    /**
+     * Renews the lease while the execution runs and releases it once it has finished.
+     */
+    public synchronized void heartbeat() {
+        if (current == null) {
+            return;
+        }
+        if (!isRunning(current)) {
+            release();
+            return;
+        }
+        if (!lease.renew(ttl)) {
+            counter("quote.batch.lease.lost").increment();
+            log.error("Lease {} was taken over while execution {} is still running; "
+                    + "check the lease TTL against the heartbeat interval", lease.getLeaseName(), current.getId());
+        }
+    }
+
+    /**
+     * @return whether this node holds an execution that {@link #heartbeat()} has not released yet
+     */
+    public synchronized boolean isInFlight() {
+        return current != null;
+    }
+
+    private boolean isRunning(JobExecution execution) {
+        // The repository has the status the job thread last committed; in RESOURCELESS mode only in memory
+        JobExecution latest = jobRepository.getLastJobExecution(execution.getJobInstance().getJobName(),
+                execution.getJobParameters());
+        return latest != null && latest.isRunning();
+    }
+
+    private void release() {
+        lease.release(acquiredAt.plus(minInterval));
+        log.debug("Lease {} released after execution {}", lease.getLeaseName(), current.getId());
+        current = null;
+    }
+
+    private void skipped(String reason) {
+        Counter.builder("quote.batch.lease.skipped")
+                .tag("lease", lease.getLeaseName())
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    private Counter counter(String name) {
+        return Counter.builder(name).tag("lease", lease.getLeaseName()).register(registry);
+    }
+}
@@ -0,0 +1,16 @@
+-- Indexes for the job repository lookups and for purgeBatchMetadataStep (BatchMetadataPurgeTasklet).
+-- PostgreSQL does not index foreign keys by itself, so without these every purge and every
+-- "last execution of this instance" lookup scans the child tables.
+
+-- Completed executions past the retention
+CREATE INDEX IF NOT EXISTS BATCH_JOB_EXEC_STATUS_END_IDX ON BATCH_JOB_EXECUTION (STATUS, END_TIME, JOB_INSTANCE_ID);
+
+-- Executions of an instance (launch checks, purge)
+CREATE INDEX IF NOT EXISTS BATCH_JOB_EXEC_INSTANCE_IDX ON BATCH_JOB_EXECUTION (JOB_INSTANCE_ID);
+
+-- Step executions and parameters of an execution
+CREATE INDEX IF NOT EXISTS BATCH_STEP_EXEC_JOB_EXEC_IDX ON BATCH_STEP_EXECUTION (JOB_EXECUTION_ID);
+CREATE INDEX IF NOT EXISTS BATCH_JOB_EXEC_PARAMS_JOB_EXEC_IDX ON BATCH_JOB_EXECUTION_PARAMS (JOB_EXECUTION_ID);
+
+-- Newest instances of a job (Spring Boot Admin and JobExplorer listings)
+CREATE INDEX IF NOT EXISTS BATCH_JOB_INST_NAME_IDX ON BATCH_JOB_INSTANCE (JOB_NAME, JOB_INSTANCE_ID);
@@ -0,0 +1,53 @@
+-- Turns quote (in the quote database, batchdb) into a table range-partitioned by month on created_time,
+-- one partition per month named quote_pYYYYMM. Needed by batch.quote.partitioning.enabled=true and
+-- batch.quote.delete.mode=DETACH_PARTITIONS; maintainQuotePartitionsStep keeps creating the months ahead.
+-- PostgreSQL 13+. Copies every row once, so run it in a maintenance window; rows without a created_time
+-- fit no partition and have to be fixed or removed first.
+
+ALTER TABLE quote RENAME TO quote_unpartitioned;
+
+-- The renamed table keeps its id sequence, quote_id_seq, which frees its name for the plain sequence
+-- of the partitioned table once it is gone: dropping an IDENTITY drops its sequence, while the
+-- sequence of a BIGSERIAL column stays behind with the column default until it is dropped itself
+ALTER TABLE quote_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE quote_unpartitioned ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE IF EXISTS quote_id_seq;
+
+CREATE SEQUENCE quote_id_seq AS BIGINT;
+
+-- The primary key of a partitioned table has to contain the partition key
+CREATE TABLE quote (
+    id BIGINT NOT NULL DEFAULT nextval('quote_id_seq'),
+    quote_id VARCHAR(50),
+    basic_quote_id VARCHAR(50),
+    customer_name VARCHAR(100),
+    customer_email VARCHAR(100),
+    customer_phone VARCHAR(20),
+    request_text VARCHAR(255),
+    created_time TIMESTAMP NOT NULL,
+    opt_in BOOLEAN,
+    PRIMARY KEY (id, created_time)
+) PARTITION BY RANGE (created_time);
+
+ALTER SEQUENCE quote_id_seq OWNED BY quote.id;
+
+-- One partition per month from the oldest row up to three months ahead
+DO $$
+DECLARE
+    month DATE := date_trunc('month', COALESCE((SELECT MIN(created_time) FROM quote_unpartitioned), now()));
+BEGIN
+    WHILE month <= date_trunc('month', now()) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF quote FOR VALUES FROM (%L) TO (%L)',
+                'quote_p' || to_char(month, 'YYYYMM'), month, month + INTERVAL '1 month');
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO quote SELECT * FROM quote_unpartitioned;
+
+SELECT setval('quote_id_seq', COALESCE((SELECT MAX(id) FROM quote), 0) + 1, false);
+
+DROP TABLE quote_unpartitioned;
+
+-- The readers page by id within a created_time window
+CREATE INDEX quote_created_time_id_idx ON quote (created_time, id);
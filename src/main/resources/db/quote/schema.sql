@@ -0,0 +1,43 @@
+-- Support tables of the retention job in the quote database. Run at startup, so every statement is idempotent.
+
+-- Scheduler lease: the node whose lease has not expired is the only one allowed to launch the job
+CREATE TABLE IF NOT EXISTS batch_job_lease (
+    lease_name VARCHAR(100) NOT NULL PRIMARY KEY,
+    owner VARCHAR(200) NOT NULL,
+    acquired_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- High-water marks of the incremental readers: the created_time bound up to which a step's last
+-- completed run handled every row, and when the step last scanned its whole window
+CREATE TABLE IF NOT EXISTS batch_quote_watermark (
+    step_name VARCHAR(200) NOT NULL PRIMARY KEY,
+    high_water TIMESTAMP NOT NULL,
+    last_full_scan TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Distributed mode: id ranges published by the manager step, claimed by worker nodes with
+-- SELECT ... FOR UPDATE SKIP LOCKED; last_id is the highest id whose chunk committed
+CREATE TABLE IF NOT EXISTS batch_quote_work_item (
+    work_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    batch_key VARCHAR(200) NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    min_id BIGINT NOT NULL,
+    max_id BIGINT NOT NULL,
+    last_id BIGINT NOT NULL,
+    run_time TIMESTAMP NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    owner VARCHAR(200),
+    attempts INT NOT NULL,
+    heartbeat_at TIMESTAMP WITH TIME ZONE,
+    write_count BIGINT NOT NULL,
+    error VARCHAR(2500)
+);
+
+-- The writer's stream state (the archive manifest) as of the item's last committed chunk; added after the table
+ALTER TABLE batch_quote_work_item ADD COLUMN IF NOT EXISTS stream_state TEXT;
+
+CREATE INDEX IF NOT EXISTS batch_quote_work_item_status_idx ON batch_quote_work_item (status, work_id);
+CREATE INDEX IF NOT EXISTS batch_quote_work_item_batch_idx ON batch_quote_work_item (batch_key);
@@ -0,0 +1,85 @@
+package com.batch.spring_batch.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+public class QuoteAuditSinkTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void dropsAndCountsChunkEventsBeyondTheCapacity() throws Exception {
+        QuoteAuditSink sink = new QuoteAuditSink(2, QuoteAuditSink.OverflowPolicy.DROP, Duration.ZERO, registry, false);
+
+        assertThat(sink.offer(chunk(1))).isTrue();
+        assertThat(sink.offer(chunk(2))).isTrue();
+        assertThat(sink.offer(chunk(3))).isFalse();
+        assertThat(sink.getDroppedCount()).isEqualTo(1);
+        assertThat(registry.get("quote.batch.audit.dropped").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("quote.batch.audit.queued").gauge().value()).isEqualTo(2.0);
+        sink.close();
+    }
+
+    @Test
+    public void markersAreQueuedEvenWhenTheQueueIsFull() throws Exception {
+        QuoteAuditSink sink = new QuoteAuditSink(1, QuoteAuditSink.OverflowPolicy.DROP, Duration.ZERO, registry, false);
+
+        sink.offer(chunk(1));
+        sink.publish(new AuditEvent.StepFinished(1, "step", "COMPLETED", 10));
+        sink.publish(new AuditEvent.JobFinished(1, "job", "COMPLETED"));
+
+        assertThat(sink.getQueuedCount()).isEqualTo(3);
+        assertThat(sink.getDroppedCount()).isZero();
+        sink.close();
+    }
+
+    @Test
+    public void blockingProducerWaitsForTheWriterToMakeRoom() throws Exception {
+        QuoteAuditSink sink = new QuoteAuditSink(1, QuoteAuditSink.OverflowPolicy.BLOCK, Duration.ofSeconds(10),
+                registry, false);
+        sink.offer(chunk(1));
+
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> sink.offer(chunk(2)));
+        Thread.sleep(50);
+        assertThat(blocked).isNotDone();
+
+        sink.startDrainer();
+        assertThat(blocked.get()).isTrue();
+        assertThat(sink.getDroppedCount()).isZero();
+        sink.close();
+    }
+
+    @Test
+    public void blockingProducerDropsAfterTheTimeout() throws Exception {
+        QuoteAuditSink sink = new QuoteAuditSink(1, QuoteAuditSink.OverflowPolicy.BLOCK, Duration.ofMillis(20),
+                registry, false);
+        sink.offer(chunk(1));
+
+        assertThat(sink.offer(chunk(2))).isFalse();
+        assertThat(sink.getDroppedCount()).isEqualTo(1);
+        sink.close();
+    }
+
+    @Test
+    public void closeWritesOutWhatIsStillQueued() throws Exception {
+        QuoteAuditSink sink = new QuoteAuditSink(100, QuoteAuditSink.OverflowPolicy.DROP, Duration.ZERO, registry, false);
+        for (int i = 0; i < 10; i++) {
+            sink.offer(chunk(i));
+        }
+        sink.publish(new AuditEvent.StepFinished(1, "step", "COMPLETED", 500));
+        sink.publish(new AuditEvent.JobFinished(1, "job", "COMPLETED"));
+
+        sink.startDrainer();
+        sink.close();
+
+        assertThat(sink.getQueuedCount()).isZero();
+    }
+
+    private static AuditEvent.ChunkCommitted chunk(long n) {
+        return new AuditEvent.ChunkCommitted(1, "step", n * 50, n * 50 + 49, 50, 1_000_000);
+    }
+}
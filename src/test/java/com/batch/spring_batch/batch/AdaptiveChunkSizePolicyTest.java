@@ -0,0 +1,146 @@
+package com.batch.spring_batch.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.repository.support.ResourcelessJobRepository;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.tasklet.TaskletStep;
+import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+public class AdaptiveChunkSizePolicyTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveChunkSizePolicy policy =
+            new AdaptiveChunkSizePolicy("step", 50, 400, Duration.ofMillis(200), registry);
+    private final JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution();
+    private final StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(jobExecution, "step", 1L);
+
+    @BeforeEach
+    public void setUp() {
+        policy.beforeStep(stepExecution);
+    }
+
+    @Test
+    public void growsWhileFastAndStopsAtTheUpperBound() {
+        policy.adjust(stepExecution, 20 * MILLIS);
+        assertThat(policy.getCurrentSize(stepExecution)).isEqualTo(75);
+        for (int i = 0; i < 10; i++) {
+            policy.adjust(stepExecution, 20 * MILLIS);
+        }
+        assertThat(policy.getCurrentSize(stepExecution)).isEqualTo(400);
+        assertThat(registry.get("quote.batch.chunk.size").gauge().value()).isEqualTo(400.0);
+    }
+
+    @Test
+    public void shrinksInProportionToTheOvershootButNotBelowTheLowerBound() {
+        for (int i = 0; i < 10; i++) {
+            policy.adjust(stepExecution, 20 * MILLIS);
+        }
+        policy.adjust(stepExecution, 400 * MILLIS);
+        assertThat(policy.getCurrentSize(stepExecution)).isEqualTo(200);
+        policy.adjust(stepExecution, 10_000 * MILLIS);
+        assertThat(policy.getCurrentSize(stepExecution)).isEqualTo(50);
+        assertThat(registry.get("quote.batch.chunk.resize").tag("direction", "shrink").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    public void keepsTheSizeNearTheTarget() {
+        policy.adjust(stepExecution, 150 * MILLIS);
+        assertThat(policy.getCurrentSize(stepExecution)).isEqualTo(50);
+    }
+
+    @Test
+    public void completesChunksAtTheCurrentSize() {
+        policy.adjust(stepExecution, 20 * MILLIS);
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            RepeatContext context = policy.start(new RepeatContextSupport(null));
+            for (int i = 0; i < 74; i++) {
+                policy.update(context);
+            }
+            assertThat(policy.isComplete(context)).isFalse();
+            policy.update(context);
+            assertThat(policy.isComplete(context)).isTrue();
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+
+    @Test
+    public void sizesEachPartitionByItsOwnLockHoldTimes() {
+        StepExecution fast = MetaDataInstanceFactory.createStepExecution(jobExecution, "step:partition0", 2L);
+        StepExecution slow = MetaDataInstanceFactory.createStepExecution(jobExecution, "step:partition1", 3L);
+        policy.beforeStep(fast);
+        policy.beforeStep(slow);
+
+        for (int i = 0; i < 10; i++) {
+            policy.adjust(fast, 20 * MILLIS);
+            policy.adjust(slow, 1_000 * MILLIS);
+        }
+
+        assertThat(policy.getCurrentSize(fast)).isEqualTo(400);
+        assertThat(policy.getCurrentSize(slow)).isEqualTo(50);
+        assertThat(registry.get("quote.batch.chunk.size").tag("step", "step:partition0").gauge().value())
+                .isEqualTo(400.0);
+        assertThat(registry.get("quote.batch.chunk.size").tag("step", "step:partition1").gauge().value())
+                .isEqualTo(50.0);
+    }
+
+    @Test
+    public void startsEveryStepExecutionAtTheLowerBound() {
+        policy.adjust(stepExecution, 20 * MILLIS);
+        policy.afterStep(stepExecution);
+        StepExecution restarted = MetaDataInstanceFactory.createStepExecution(jobExecution, "step", 4L);
+
+        policy.beforeStep(restarted);
+
+        assertThat(policy.getCurrentSize(restarted)).isEqualTo(50);
+    }
+
+    @Test
+    public void aStepCommitsAtTheSizeOfItsOwnExecution() throws Exception {
+        ResourcelessJobRepository jobRepository = new ResourcelessJobRepository();
+        List<Integer> chunkSizes = new ArrayList<>();
+        TaskletStep step = new StepBuilder("step", jobRepository)
+                .<Integer, Integer>chunk(policy, new ResourcelessTransactionManager())
+                .reader(new ListItemReader<>(IntStream.range(0, 300).boxed().toList()))
+                .writer(chunk -> chunkSizes.add(chunk.size()))
+                .listener((StepExecutionListener) policy)
+                .listener((ChunkListener) policy)
+                .listener((ItemWriteListener<Object>) policy)
+                .build();
+        // Another execution of the step that has grown meanwhile
+        policy.adjust(stepExecution, 20 * MILLIS);
+        JobExecution run = jobRepository.createJobExecution("job", new JobParameters());
+        StepExecution execution = run.createStepExecution("step");
+        execution.setId(5L);
+
+        step.execute(execution);
+
+        // Fast chunks: 50, then growing by half each time
+        assertThat(chunkSizes).startsWith(50, 75, 112);
+        assertThat(policy.getCurrentSize(stepExecution)).isEqualTo(75);
+    }
+}
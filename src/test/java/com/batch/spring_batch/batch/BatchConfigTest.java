@@ -5,12 +5,19 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.batch.spring_batch.dto.Quote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.batch.test.MetaDataInstanceFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
@@ -35,7 +42,21 @@ public class BatchConfigTest {
     @Autowired
     private ItemProcessor<Quote, Quote> quoteUpdateProcessor;
 
+    @Autowired
+    private StepExecutionListener loggingListener;
+
+    // The processor takes its window from the step, as the reader published it when it opened
+    @BeforeEach
+    public void startRun() {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        QuoteRunTime.store(stepExecution.getExecutionContext(), LocalDateTime.now());
+        StepSynchronizationManager.register(stepExecution);
+    }
 
+    @AfterEach
+    public void endRun() {
+        StepSynchronizationManager.close();
+    }
 
     @Test
     public void testJobBeanExists() {
@@ -86,6 +107,14 @@ public class BatchConfigTest {
         assertTrue(result.isOptIn(), "For a recent quote, opt_in should remain true");
     }
 
+    @Test
+    public void testLoggingListenerReturnsTheExitStatusOfTheStep() {
+        // The baseline listener only logs the write count; it must not change the outcome of the step.
+        StepExecution stepExecution = StepSynchronizationManager.getContext().getStepExecution();
+        stepExecution.setExitStatus(ExitStatus.COMPLETED);
+        assertThat(loggingListener.afterStep(stepExecution)).isEqualTo(ExitStatus.COMPLETED);
+    }
+
     @Test
     public void testJobStepOrder() {
         // If the job is an instance of SimpleJob, we can verify the order of steps.
@@ -0,0 +1,118 @@
+package com.batch.spring_batch.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class BatchMetadataPurgeTaskletTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T02:00:00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneId.of("UTC"));
+    private static final LocalDateTime TODAY = LocalDateTime.ofInstant(NOW, ZoneId.of("UTC"));
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private JobRepository jobRepository;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("org/springframework/batch/core/schema-h2.sql")
+                .addScript("db/migration/V2__batch_metadata_indexes.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(database);
+        factory.setTransactionManager(new DataSourceTransactionManager(database));
+        factory.afterPropertiesSet();
+        jobRepository = factory.getObject();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void purgesCompletedInstancesPastTheRetentionOnly() throws Exception {
+        run(1, BatchStatus.COMPLETED, TODAY.minusDays(40));
+        run(2, BatchStatus.COMPLETED, TODAY.minusDays(35));
+        // Failed, then completed on restart: both executions go
+        run(3, BatchStatus.FAILED, TODAY.minusDays(33));
+        run(3, BatchStatus.COMPLETED, TODAY.minusDays(32));
+        // Never completed, so still restartable
+        run(4, BatchStatus.FAILED, TODAY.minusDays(60));
+        run(5, BatchStatus.COMPLETED, TODAY.minusDays(3));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BatchMetadataPurgeTasklet tasklet = new BatchMetadataPurgeTasklet(database, Duration.ofDays(30), 2, CLOCK,
+                registry);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        StepContribution contribution = stepExecution.createStepContribution();
+
+        int iterations = 0;
+        RepeatStatus status;
+        do {
+            status = tasklet.execute(contribution, chunkContext);
+            iterations++;
+        } while (status.isContinuable());
+
+        // Two instances, one instance, then nothing
+        assertThat(iterations).isEqualTo(2);
+        assertThat(contribution.getWriteCount()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForList("SELECT JOB_KEY FROM BATCH_JOB_INSTANCE ORDER BY JOB_INSTANCE_ID",
+                String.class)).hasSize(2);
+        assertThat(jdbcTemplate.queryForList("SELECT PARAMETER_VALUE FROM BATCH_JOB_EXECUTION_PARAMS"
+                + " ORDER BY PARAMETER_VALUE", String.class)).containsExactly("4", "5");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BATCH_STEP_EXECUTION", Integer.class))
+                .isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BATCH_STEP_EXECUTION_CONTEXT", Integer.class))
+                .isEqualTo(2);
+        assertThat(stepExecution.getExecutionContext()
+                .getLong(BatchMetadataPurgeTasklet.PURGED_KEY_PREFIX + "BATCH_JOB_EXECUTION")).isEqualTo(4);
+        assertThat(registry.counter("quote.batch.metadata.purged", "table", "BATCH_STEP_EXECUTION").count())
+                .isEqualTo(4);
+    }
+
+    // One execution of the instance for the given run, ended with the given status
+    private void run(long run, BatchStatus status, LocalDateTime endTime) throws Exception {
+        JobParameters parameters = new JobParametersBuilder().addLong("run", run).toJobParameters();
+        JobExecution execution = jobRepository.createJobExecution("processQuotesJob", parameters);
+        StepExecution step = execution.createStepExecution("updateOptInStep");
+        jobRepository.add(step);
+        step.getExecutionContext().putLong("read.count", 10);
+        jobRepository.updateExecutionContext(step);
+        jobRepository.updateExecutionContext(execution);
+        execution.setStatus(status);
+        execution.setEndTime(endTime);
+        jobRepository.update(execution);
+    }
+}
@@ -0,0 +1,88 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class BulkOptInUpdateTaskletTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        LocalDateTime now = LocalDateTime.now();
+        // Five eligible rows, one recent row and one row that is already opted out
+        for (int i = 0; i < 5; i++) {
+            insertQuote(jdbcTemplate, now.minusMonths(3 + i), true);
+        }
+        insertQuote(jdbcTemplate, now.minusDays(3), true);
+        insertQuote(jdbcTemplate, now.minusMonths(6), false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void updatesEligibleRowsOneRangePerIteration() {
+        BulkOptInUpdateTasklet tasklet = new BulkOptInUpdateTasklet(database, 2);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        StepContribution contribution = stepExecution.createStepContribution();
+
+        int iterations = 0;
+        RepeatStatus status;
+        do {
+            status = tasklet.execute(contribution, chunkContext);
+            iterations++;
+        } while (status.isContinuable());
+
+        assertThat(iterations).isEqualTo(3);
+        assertThat(contribution.getWriteCount()).isEqualTo(5);
+        assertThat(countOptedIn()).isEqualTo(1);
+    }
+
+    @Test
+    public void resumesFromTheSavedRangeBoundary() {
+        BulkOptInUpdateTasklet tasklet = new BulkOptInUpdateTasklet(database, 2);
+        StepExecution firstRun = MetaDataInstanceFactory.createStepExecution();
+        tasklet.execute(firstRun.createStepContribution(), new ChunkContext(new StepContext(firstRun)));
+
+        // A restarted execution receives the last committed ExecutionContext
+        StepExecution restart = MetaDataInstanceFactory.createStepExecution(firstRun.getExecutionContext());
+        StepContribution contribution = restart.createStepContribution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(restart));
+        while (tasklet.execute(contribution, chunkContext).isContinuable()) {
+            // drain the remaining ranges
+        }
+
+        assertThat(contribution.getWriteCount()).isEqualTo(3);
+        assertThat(countOptedIn()).isEqualTo(1);
+    }
+
+    private int countOptedIn() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote WHERE opt_in = true", Integer.class);
+    }
+}
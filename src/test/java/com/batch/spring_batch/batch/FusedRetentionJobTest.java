@@ -0,0 +1,191 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import javax.sql.DataSource;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+// The FUSED retention step on its own, with the archive, through a failure and the restart
+@SpringBootTest(properties = {
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:fused-retention-mydb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.batch.jdbc-url=jdbc:h2:mem:fused-retention-batchdb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "batch.quote.scheduler.enabled=false",
+        "batch.quote.retention.mode=FUSED",
+        "batch.quote.chunk.size=4"
+})
+@ActiveProfiles("test")
+public class FusedRetentionJobTest {
+
+    private static final Path ARCHIVE;
+
+    static {
+        try {
+            ARCHIVE = Files.createTempDirectory("fused-retention-archive");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        registry.add("batch.quote.archive.enabled", () -> "true");
+        registry.add("batch.quote.archive.directory", ARCHIVE::toString);
+    }
+
+    @Autowired
+    @Qualifier("jobLauncher")
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private Job processQuotesJob;
+
+    @Autowired
+    @Qualifier("dataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("batchDataSource")
+    private DataSource batchDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private final List<Long> due = new ArrayList<>();
+    private final List<Long> toOptOut = new ArrayList<>();
+    private final List<Long> untouched = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        QuoteTestData.createJobRepositoryTables(dataSource);
+        QuoteTestData.recreateQuoteTable(batchDataSource);
+        jdbcTemplate = new JdbcTemplate(batchDataSource);
+        clearArchive();
+        LocalDateTime now = LocalDateTime.now();
+        // Interleaved, so every chunk has rows for both writers
+        for (int i = 0; i < 10; i++) {
+            due.add(insertQuote(jdbcTemplate, now.minusYears(3).minusHours(i), true));
+            toOptOut.add(insertQuote(jdbcTemplate, now.minusMonths(6).minusHours(i), true));
+        }
+        untouched.add(insertQuote(jdbcTemplate, now.minusMonths(6), false));
+        untouched.add(insertQuote(jdbcTemplate, now.minusDays(3), true));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FailingDelete.failOnId = null;
+    }
+
+    @Test
+    public void optsOutAndPurgesInOneScan() throws Exception {
+        JobExecution execution = jobLauncher.run(processQuotesJob, parameters());
+
+        assertThat(execution.getStatus()).as("failures: %s", execution.getAllFailureExceptions())
+                .isEqualTo(BatchStatus.COMPLETED);
+        assertThat(execution.getStepExecutions()).extracting(StepExecution::getStepName)
+                .containsExactly("retainQuotesStep");
+        assertOutcome();
+    }
+
+    @Test
+    public void aRestartFinishesTheScanAndArchivesEveryPurgedRowOnce() throws Exception {
+        jdbcTemplate.execute("CREATE TRIGGER quote_failing_delete BEFORE DELETE ON quote FOR EACH ROW CALL \""
+                + FailingDelete.class.getName() + "\"");
+        FailingDelete.failOnId = due.get(6);
+        JobParameters parameters = parameters();
+
+        JobExecution failed = jobLauncher.run(processQuotesJob, parameters);
+
+        assertThat(failed.getStatus()).isEqualTo(BatchStatus.FAILED);
+        // Some chunks committed before the failing one
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote", Long.class)).filteredOn(due::contains)
+                .hasSizeBetween(1, due.size() - 1);
+
+        FailingDelete.failOnId = null;
+        JobExecution restarted = jobLauncher.run(processQuotesJob, parameters);
+
+        assertThat(restarted.getStatus()).as("failures: %s", restarted.getAllFailureExceptions())
+                .isEqualTo(BatchStatus.COMPLETED);
+        assertThat(restarted.getJobInstance().getInstanceId()).isEqualTo(failed.getJobInstance().getInstanceId());
+        assertOutcome();
+    }
+
+    private void assertOutcome() throws IOException {
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote WHERE opt_in = FALSE ORDER BY id", Long.class))
+                .containsExactlyInAnyOrderElementsOf(Stream.concat(toOptOut.stream(), Stream.of(untouched.get(0)))
+                        .toList());
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote", Long.class))
+                .containsExactlyInAnyOrderElementsOf(Stream.concat(toOptOut.stream(), untouched.stream()).toList());
+        assertThat(archivedIds()).containsExactlyInAnyOrderElementsOf(due);
+    }
+
+    private static JobParameters parameters() {
+        return new JobParametersBuilder()
+                .addLong("run.id", System.nanoTime())
+                .toJobParameters();
+    }
+
+    // GZIPInputStream reads concatenated members, like zcat
+    private static List<Long> archivedIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> segments = Files.list(ARCHIVE)) {
+            for (Path segment : segments.toList()) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(segment))) {
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                            .filter(line -> !line.startsWith("id,"))
+                            .forEach(line -> ids.add(Long.parseLong(line.substring(0, line.indexOf(',')))));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void clearArchive() throws IOException {
+        try (Stream<Path> segments = Files.list(ARCHIVE)) {
+            for (Path segment : segments.toList()) {
+                Files.delete(segment);
+            }
+        }
+    }
+
+    /** Fails the DELETE of one row, like a lock timeout in the middle of the run. */
+    public static class FailingDelete implements Trigger {
+
+        static volatile Long failOnId;
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            Long id = failOnId;
+            if (id != null && id.equals(((Number) oldRow[0]).longValue())) {
+                throw new SQLException("Simulated failure deleting quote " + id);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.batch.spring_batch.dto.Quote;
+import java.time.LocalDateTime;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class KeysetCursorItemReaderTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            insertQuote(jdbcTemplate, now.minusYears(3));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void restartsAfterTheLastReadIdEvenWhenEarlierRowsAreGone() throws Exception {
+        KeysetCursorItemReader<Quote> reader = newReader();
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        assertThat(reader.read().getId()).isEqualTo(1L);
+        assertThat(reader.read().getId()).isEqualTo(2L);
+        reader.update(executionContext);
+        reader.close();
+
+        // Rows handled before the failure no longer match; a row-count skip would lose ids 3 and 4
+        jdbcTemplate.update("DELETE FROM quote WHERE id <= 2");
+
+        KeysetCursorItemReader<Quote> restarted = newReader();
+        restarted.open(executionContext);
+        assertThat(restarted.read().getId()).isEqualTo(3L);
+        assertThat(restarted.read().getId()).isEqualTo(4L);
+        assertThat(restarted.read().getId()).isEqualTo(5L);
+        assertThat(restarted.read()).isNull();
+        restarted.close();
+    }
+
+    private KeysetCursorItemReader<Quote> newReader() {
+        return new KeysetCursorItemReader<>("testReader", database, QuoteProjection.ID.selectClause(),
+                "FROM quote", "WHERE created_time < :twoYearsAgo",
+                Map.of("twoYearsAgo", LocalDateTime.now().minusYears(2)),
+                QuoteProjection.ID.rowMapper(), Quote::getId, 2);
+    }
+}
@@ -0,0 +1,106 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.batch.spring_batch.dto.Quote;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.database.Order;
+import org.springframework.batch.item.database.support.PostgresPagingQueryProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class KeysetPagingItemReaderTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 7; i++) {
+            insertQuote(jdbcTemplate, now.minusYears(3));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void restartsAfterTheLastReadIdWithinAPageEvenWhenEarlierRowsAreGone() throws Exception {
+        KeysetPagingItemReader<Quote> reader = newReader();
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        assertThat(reader.read().getId()).isEqualTo(1L);
+        assertThat(reader.read().getId()).isEqualTo(2L);
+        reader.update(executionContext);
+        reader.close();
+
+        // A row-count skip would start over on the first page and lose ids 3 and 4
+        jdbcTemplate.update("DELETE FROM quote WHERE id <= 2");
+
+        KeysetPagingItemReader<Quote> restarted = newReader();
+        restarted.open(executionContext);
+        assertThat(restarted.read().getId()).isEqualTo(3L);
+        assertThat(restarted.read().getId()).isEqualTo(4L);
+        assertThat(restarted.read().getId()).isEqualTo(5L);
+        restarted.close();
+    }
+
+    @Test
+    public void restartsAfterTheLastReadIdOnALaterPage() throws Exception {
+        KeysetPagingItemReader<Quote> reader = newReader();
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        for (int i = 0; i < 4; i++) {
+            reader.read();
+        }
+        reader.update(executionContext);
+        reader.close();
+
+        jdbcTemplate.update("DELETE FROM quote WHERE id <= 4");
+
+        KeysetPagingItemReader<Quote> restarted = newReader();
+        restarted.open(executionContext);
+        assertThat(restarted.read().getId()).isEqualTo(5L);
+        assertThat(restarted.read().getId()).isEqualTo(6L);
+        assertThat(restarted.read().getId()).isEqualTo(7L);
+        assertThat(restarted.read()).isNull();
+        restarted.close();
+    }
+
+    private KeysetPagingItemReader<Quote> newReader() throws Exception {
+        PostgresPagingQueryProvider queryProvider = new PostgresPagingQueryProvider();
+        queryProvider.setSelectClause(QuoteProjection.ID.selectClause());
+        queryProvider.setFromClause("FROM quote");
+        queryProvider.setWhereClause("WHERE created_time < :twoYearsAgo");
+        queryProvider.setSortKeys(Collections.singletonMap("id", Order.ASCENDING));
+
+        KeysetPagingItemReader<Quote> reader = new KeysetPagingItemReader<>(new SimpleMeterRegistry(), Quote::getId);
+        reader.setName("testReader");
+        reader.setDataSource(database);
+        reader.setQueryProvider(queryProvider);
+        reader.setParameterValues(Map.of("twoYearsAgo", LocalDateTime.now().minusYears(2)));
+        reader.setRowMapper(QuoteProjection.ID.rowMapper());
+        reader.setPageSize(3);
+        reader.afterPropertiesSet();
+        return reader;
+    }
+}
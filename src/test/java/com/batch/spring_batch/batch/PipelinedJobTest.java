@@ -0,0 +1,100 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+// The PIPELINED opt-out through the whole job, with a read-ahead queue smaller than a chunk
+@SpringBootTest(properties = {
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:pipelined-mydb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.batch.jdbc-url=jdbc:h2:mem:pipelined-batchdb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "batch.quote.scheduler.enabled=false",
+        "batch.quote.archive.enabled=false",
+        "batch.quote.update.mode=PIPELINED",
+        "batch.quote.update.read-ahead=3",
+        "batch.quote.chunk.size=4"
+})
+@ActiveProfiles("test")
+public class PipelinedJobTest {
+
+    @Autowired
+    @Qualifier("jobLauncher")
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private Job processQuotesJob;
+
+    @Autowired
+    @Qualifier("dataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("batchDataSource")
+    private DataSource batchDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private final List<Long> toOptOut = new ArrayList<>();
+    private final List<Long> due = new ArrayList<>();
+    private final List<Long> untouched = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        QuoteTestData.createJobRepositoryTables(dataSource);
+        QuoteTestData.recreateQuoteTable(batchDataSource);
+        jdbcTemplate = new JdbcTemplate(batchDataSource);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 10; i++) {
+            toOptOut.add(insertQuote(jdbcTemplate, now.minusMonths(6).minusHours(i)));
+            due.add(insertQuote(jdbcTemplate, now.minusYears(3).minusHours(i)));
+        }
+        untouched.add(insertQuote(jdbcTemplate, now.minusMonths(6), false));
+        untouched.add(insertQuote(jdbcTemplate, now.minusDays(3)));
+    }
+
+    @Test
+    public void optsOutEveryRowOfTheWindowAndPurgesTheExpiredOnes() throws Exception {
+        JobExecution execution = jobLauncher.run(processQuotesJob, new JobParametersBuilder()
+                .addLong("run.id", System.nanoTime())
+                .toJobParameters());
+
+        assertThat(execution.getStatus()).as("failures: %s", execution.getAllFailureExceptions())
+                .isEqualTo(BatchStatus.COMPLETED);
+        assertThat(execution.getStepExecutions()).extracting(StepExecution::getStepName)
+                .containsExactly("updateOptInStep", "deleteOldQuotesStep");
+        assertThat(stepExecution(execution, "updateOptInStep").getWriteCount()).isEqualTo(toOptOut.size());
+        assertThat(stepExecution(execution, "deleteOldQuotesStep").getWriteCount()).isEqualTo(due.size());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote", Integer.class))
+                .isEqualTo(toOptOut.size() + untouched.size());
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote WHERE opt_in = FALSE", Long.class))
+                .containsExactlyInAnyOrderElementsOf(Stream.concat(toOptOut.stream(), Stream.of(untouched.get(0)))
+                        .toList());
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote WHERE opt_in = TRUE", Long.class))
+                .containsExactly(untouched.get(1));
+    }
+
+    private static StepExecution stepExecution(JobExecution execution, String stepName) {
+        return execution.getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().equals(stepName))
+                .findFirst()
+                .orElseThrow();
+    }
+}
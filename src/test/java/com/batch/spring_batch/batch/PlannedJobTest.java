@@ -0,0 +1,93 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+// The update window holds enough rows to be partitioned, the delete window gets the larger chunks
+@SpringBootTest(properties = {
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:planned-mydb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.batch.jdbc-url=jdbc:h2:mem:planned-batchdb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "batch.quote.scheduler.enabled=false",
+        "batch.quote.archive.enabled=false",
+        "batch.quote.planner.enabled=true",
+        "batch.quote.planner.large-chunk-threshold=5",
+        "batch.quote.planner.partition-threshold=20",
+        "batch.quote.delete.grid-size=3"
+})
+@ActiveProfiles("test")
+public class PlannedJobTest {
+
+    @Autowired
+    @Qualifier("jobLauncher")
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private Job processQuotesJob;
+
+    @Autowired
+    @Qualifier("dataSource")
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("batchDataSource")
+    private DataSource batchDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        QuoteTestData.createJobRepositoryTables(dataSource);
+        QuoteTestData.recreateQuoteTable(batchDataSource);
+        jdbcTemplate = new JdbcTemplate(batchDataSource);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 30; i++) {
+            insertQuote(jdbcTemplate, now.minusMonths(6).minusHours(i));
+        }
+        for (int i = 0; i < 8; i++) {
+            insertQuote(jdbcTemplate, now.minusYears(3).minusHours(i));
+        }
+        insertQuote(jdbcTemplate, now.minusDays(3));
+    }
+
+    @Test
+    public void runsEachStepWithThePlannedStrategy() throws Exception {
+        JobExecution execution = jobLauncher.run(processQuotesJob, new JobParametersBuilder()
+                .addLong("run.id", System.nanoTime())
+                .toJobParameters());
+
+        assertThat(execution.getStatus()).as("failures: %s", execution.getAllFailureExceptions())
+                .isEqualTo(BatchStatus.COMPLETED);
+        assertThat(execution.getStepExecutions()).extracting(StepExecution::getStepName)
+                .contains("planQuoteRunStep", "updateOptInPartitionedStep", "updateOptInWorkerStep:partition0",
+                        "deleteOldQuotesStep")
+                .doesNotContain("updateOptInStep", "deleteOldQuotesPartitionedStep");
+        assertThat(execution.getExecutionContext().getString(QuoteRunPlanner.strategyKey(QuoteRunPlanner.DELETE)))
+                .isEqualTo("LARGE_CHUNK");
+        StepExecution delete = execution.getStepExecutions().stream()
+                .filter(step -> step.getStepName().equals("deleteOldQuotesStep"))
+                .findFirst().orElseThrow();
+        // All eight rows in one commit of up to 500
+        assertThat(delete.getWriteCount()).isEqualTo(8);
+        assertThat(delete.getCommitCount()).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote", Integer.class)).isEqualTo(31);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote WHERE opt_in = TRUE", Integer.class))
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,128 @@
+package com.batch.spring_batch.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.batch.spring_batch.dto.Quote;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+public class QuoteArchiveWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void writesEveryChunkAsReadableCsv() throws Exception {
+        QuoteArchiveWriter writer = new QuoteArchiveWriter(directory, "job-1-step", 1024 * 1024);
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+        writer.write(chunk(1, 2));
+        writer.write(Chunk.of(quote(3, "with, comma \"and quotes\"")));
+        writer.update(executionContext);
+        writer.close();
+
+        List<String> lines = readSegment("job-1-step-00000.csv.gz");
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).startsWith("id,quote_id,");
+        assertThat(lines.get(1)).isEqualTo("1,Q1,,Alice,a@example.com,,,2020-01-02T03:04:05,true");
+        assertThat(lines.get(3)).startsWith("3,\"with, comma \"\"and quotes\"\"\",");
+        assertThat(executionContext.getLong(QuoteArchiveWriter.SEGMENT_ROWS_KEY)).isEqualTo(3);
+    }
+
+    @Test
+    public void restartDropsTheMemberOfAnUncommittedChunk() throws Exception {
+        QuoteArchiveWriter writer = new QuoteArchiveWriter(directory, "job-1-step", 1024 * 1024);
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+        writer.write(chunk(1, 2));
+        writer.update(executionContext);
+        // Archived, but the chunk's transaction then rolled back: the context was not saved
+        writer.write(chunk(3, 4));
+        writer.close();
+
+        QuoteArchiveWriter restarted = new QuoteArchiveWriter(directory, "job-1-step", 1024 * 1024);
+        restarted.open(executionContext);
+        restarted.write(chunk(3, 4));
+        restarted.update(executionContext);
+        restarted.close();
+
+        assertThat(ids(readSegment("job-1-step-00000.csv.gz"))).containsExactly("1", "2", "3", "4");
+    }
+
+    @Test
+    public void rollsOverToANewSegmentAndRecordsTheClosedOne() throws Exception {
+        QuoteArchiveWriter writer = new QuoteArchiveWriter(directory, "job-1-step", 1);
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+        writer.write(chunk(1, 2));
+        writer.write(chunk(3, 4));
+        writer.update(executionContext);
+        writer.close();
+
+        assertThat(ids(readSegment("job-1-step-00000.csv.gz"))).containsExactly("1", "2");
+        assertThat(ids(readSegment("job-1-step-00001.csv.gz"))).containsExactly("3", "4");
+        assertThat(executionContext.getString(QuoteArchiveWriter.CLOSED_SEGMENTS_KEY))
+                .startsWith("job-1-step-00000.csv.gz:").contains(";job-1-step-00001.csv.gz:");
+        assertThat(executionContext.containsKey(QuoteArchiveWriter.SEGMENT_KEY)).isFalse();
+    }
+
+    @Test
+    public void refusesToContinueACorruptedSegment() throws Exception {
+        QuoteArchiveWriter writer = new QuoteArchiveWriter(directory, "job-1-step", 1024 * 1024);
+        ExecutionContext executionContext = new ExecutionContext();
+        writer.open(executionContext);
+        writer.write(chunk(1, 2));
+        writer.update(executionContext);
+        writer.close();
+
+        Path segment = directory.resolve("job-1-step-00000.csv.gz");
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length / 2] ^= 0xFF;
+        Files.write(segment, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+
+        QuoteArchiveWriter restarted = new QuoteArchiveWriter(directory, "job-1-step", 1024 * 1024);
+        assertThatThrownBy(() -> restarted.open(executionContext))
+                .isInstanceOf(ItemStreamException.class)
+                .hasMessageContaining("checksum");
+        restarted.close();
+    }
+
+    private static Chunk<Quote> chunk(long... ids) {
+        Chunk<Quote> chunk = new Chunk<>();
+        for (long id : ids) {
+            chunk.add(quote(id, "Q" + id));
+        }
+        return chunk;
+    }
+
+    private static Quote quote(long id, String quoteId) {
+        return new Quote(id, quoteId, null, "Alice", "a@example.com", null, null,
+                LocalDateTime.of(2020, 1, 2, 3, 4, 5), true);
+    }
+
+    // GZIPInputStream reads concatenated members, like zcat
+    private List<String> readSegment(String name) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve(name)))) {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return new ArrayList<>(List.of(content.split("\n")));
+        }
+    }
+
+    private static List<String> ids(List<String> lines) {
+        return lines.subList(1, lines.size()).stream().map(line -> line.substring(0, line.indexOf(','))).toList();
+    }
+}
@@ -0,0 +1,89 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteIdChunkDeleteTaskletTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 7; i++) {
+            insertQuote(jdbcTemplate, now.minusYears(3));
+        }
+        insertQuote(jdbcTemplate, now.minusDays(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void deletesExpiredIdsOneBufferPerIteration() {
+        QuoteIdBufferReader reader = new QuoteIdBufferReader(database);
+        QuoteIdChunkDeleteTasklet tasklet =
+                new QuoteIdChunkDeleteTasklet(reader, new QuoteIdArrayDeleteWriter(database), 3);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        StepContribution contribution = stepExecution.createStepContribution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        reader.open(stepExecution.getExecutionContext());
+
+        int iterations = 0;
+        RepeatStatus status;
+        do {
+            status = tasklet.execute(contribution, chunkContext);
+            iterations++;
+        } while (status.isContinuable());
+
+        assertThat(iterations).isEqualTo(3);
+        assertThat(contribution.getReadCount()).isEqualTo(7);
+        assertThat(contribution.getWriteCount()).isEqualTo(7);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void readerResumesAfterTheSavedId() {
+        QuoteIdBufferReader reader = new QuoteIdBufferReader(database);
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        long[] buffer = new long[4];
+        assertThat(reader.read(buffer)).isEqualTo(4);
+        reader.update(executionContext);
+
+        QuoteIdBufferReader restarted = new QuoteIdBufferReader(database);
+        restarted.open(executionContext);
+        assertThat(restarted.read(buffer)).isEqualTo(3);
+        assertThat(buffer[0]).isEqualTo(5L);
+    }
+
+    @Test
+    public void rendersPostgresArrayLiteralFromPrimitiveBuffer() {
+        assertThat(QuoteIdArrayDeleteWriter.toArrayLiteral(new long[]{4, 8, 15, 0}, 3)).isEqualTo("{4,8,15}");
+    }
+}
@@ -0,0 +1,70 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteIdRangePartitionerTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void splitsTheExpiredIdSpaceIntoContiguousRanges() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 10; i++) {
+            insertQuote(jdbcTemplate, now.minusYears(3));
+        }
+        insertQuote(jdbcTemplate, now.minusDays(1));
+
+        Map<String, ExecutionContext> partitions = new QuoteIdRangePartitioner(database).partition(3);
+
+        assertThat(partitions).hasSize(3);
+        long expectedLower = 1;
+        for (int i = 0; i < 3; i++) {
+            ExecutionContext context = partitions.get("partition" + i);
+            assertThat(context.getLong(QuoteIdRangePartitioner.MIN_ID_KEY)).isEqualTo(expectedLower);
+            expectedLower = context.getLong(QuoteIdRangePartitioner.MAX_ID_KEY) + 1;
+            assertThat(context.getString(QuoteIdRangePartitioner.TWO_YEARS_AGO_KEY)).isNotBlank();
+        }
+        // The recent row (id 11) is outside every range
+        assertThat(expectedLower).isEqualTo(11);
+    }
+
+    @Test
+    public void producesOneEmptyRangeWhenNothingIsExpired() {
+        insertQuote(jdbcTemplate, LocalDateTime.now().minusDays(1));
+
+        Map<String, ExecutionContext> partitions = new QuoteIdRangePartitioner(database).partition(4);
+
+        assertThat(partitions).hasSize(1);
+        ExecutionContext context = partitions.get("partition0");
+        assertThat(context.getLong(QuoteIdRangePartitioner.MIN_ID_KEY))
+                .isGreaterThan(context.getLong(QuoteIdRangePartitioner.MAX_ID_KEY));
+    }
+}
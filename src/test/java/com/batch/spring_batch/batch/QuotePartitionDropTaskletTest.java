@@ -0,0 +1,113 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * H2 has no partitions: the partition catalog is faked, the boundary deletes
+ * run against the plain quote table.
+ */
+public class QuotePartitionDropTaskletTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-15T00:00:00Z"), ZoneId.of("UTC"));
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private FakePartitions partitions;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        partitions = new FakePartitions(database);
+        // The cutoff is 2024-03-15: February 2024 is wholly past it, March 2024 is the boundary partition
+        partitions.months.addAll(List.of(YearMonth.of(2024, 3), YearMonth.of(2024, 1), YearMonth.of(2024, 2),
+                YearMonth.of(2024, 4)));
+        for (int day = 1; day <= 5; day++) {
+            insertQuote(jdbcTemplate, LocalDateTime.of(2024, 3, day, 12, 0));
+        }
+        insertQuote(jdbcTemplate, LocalDateTime.of(2024, 3, 20, 12, 0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void dropsExpiredPartitionsOldestFirstThenDeletesTheBoundaryInChunks() {
+        QuotePartitionDropTasklet tasklet = new QuotePartitionDropTasklet(partitions, database, 2, CLOCK);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        StepContribution contribution = stepExecution.createStepContribution();
+
+        int iterations = 0;
+        RepeatStatus status;
+        do {
+            status = tasklet.execute(contribution, chunkContext);
+            iterations++;
+        } while (status.isContinuable());
+
+        assertThat(partitions.dropped).containsExactly(YearMonth.of(2024, 1), YearMonth.of(2024, 2));
+        assertThat(partitions.months).containsExactlyInAnyOrder(YearMonth.of(2024, 3), YearMonth.of(2024, 4));
+        // Two drops, then chunks of 2, 2 and 1 rows
+        assertThat(iterations).isEqualTo(5);
+        assertThat(contribution.getWriteCount()).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void aPartitionEndingAtTheCutoffIsExpired() {
+        LocalDateTime cutoff = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+        assertThat(QuotePartitions.expired(YearMonth.of(2024, 2), cutoff)).isTrue();
+        assertThat(QuotePartitions.expired(YearMonth.of(2024, 3), cutoff)).isFalse();
+        assertThat(QuotePartitions.name(YearMonth.of(2024, 2))).isEqualTo("quote_p202402");
+    }
+
+    private static class FakePartitions extends QuotePartitions {
+
+        private final List<YearMonth> months = new ArrayList<>();
+        private final List<YearMonth> dropped = new ArrayList<>();
+
+        FakePartitions(EmbeddedDatabase database) {
+            super(database);
+        }
+
+        @Override
+        public List<YearMonth> months() {
+            return new ArrayList<>(months);
+        }
+
+        @Override
+        public void detachAndDrop(YearMonth month) {
+            months.remove(month);
+            dropped.add(month);
+        }
+    }
+}
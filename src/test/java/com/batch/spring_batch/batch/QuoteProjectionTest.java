@@ -0,0 +1,78 @@
+package com.batch.spring_batch.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.batch.spring_batch.dto.Quote;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteProjectionTest {
+
+    private static final LocalDateTime CREATED_TIME = LocalDateTime.of(2023, 5, 17, 10, 30);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.update("INSERT INTO quote (quote_id, customer_email, request_text, created_time, opt_in) "
+                + "VALUES ('Q1', 'a@b.c', 'text', ?, true)", Timestamp.valueOf(CREATED_TIME));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void optInProjectionMapsOnlyTheUpdateColumns() {
+        Quote quote = queryOne(QuoteProjection.OPT_IN);
+
+        assertThat(quote.getId()).isEqualTo(1L);
+        assertThat(quote.getCreatedTime()).isEqualTo(CREATED_TIME);
+        assertThat(quote.isOptIn()).isTrue();
+        assertThat(quote.getQuoteId()).isNull();
+        assertThat(quote.getCustomerEmail()).isNull();
+        assertThat(quote.getRequestText()).isNull();
+    }
+
+    @Test
+    public void idProjectionMapsOnlyTheId() {
+        Quote quote = queryOne(QuoteProjection.ID);
+
+        assertThat(quote.getId()).isEqualTo(1L);
+        assertThat(quote.getCreatedTime()).isNull();
+    }
+
+    @Test
+    public void fullProjectionMapsEveryColumn() {
+        Quote quote = queryOne(QuoteProjection.FULL);
+
+        assertThat(quote.getId()).isEqualTo(1L);
+        assertThat(quote.getQuoteId()).isEqualTo("Q1");
+        assertThat(quote.getCustomerEmail()).isEqualTo("a@b.c");
+        assertThat(quote.getRequestText()).isEqualTo("text");
+        assertThat(quote.getCreatedTime()).isEqualTo(CREATED_TIME);
+        assertThat(quote.isOptIn()).isTrue();
+    }
+
+    private Quote queryOne(QuoteProjection projection) {
+        List<Quote> quotes = jdbcTemplate.query(projection.selectClause() + " FROM quote", projection.rowMapper());
+        assertThat(quotes).hasSize(1);
+        return quotes.get(0);
+    }
+}
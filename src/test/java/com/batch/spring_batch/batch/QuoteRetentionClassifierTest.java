@@ -0,0 +1,108 @@
+package com.batch.spring_batch.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.dto.Quote;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.support.ClassifierCompositeItemWriter;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteRetentionClassifierTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ClassifierCompositeItemWriter<Quote> writer;
+    private StepExecution stepExecution;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        // As the retention reader leaves it when the step opens
+        stepExecution = MetaDataInstanceFactory.createStepExecution("retainQuotesStep", 1L);
+        QuoteRunTime.store(stepExecution.getExecutionContext(), LocalDateTime.now());
+        StepSynchronizationManager.register(stepExecution);
+        BatchConfig batchConfig = new BatchConfig(null, null, database, new QuoteBatchProperties());
+        JdbcBatchItemWriter<Quote> updateWriter = batchConfig.quoteUpdateWriter();
+        updateWriter.afterPropertiesSet();
+        JdbcBatchItemWriter<Quote> deleteWriter = batchConfig.quoteDeleteWriter();
+        deleteWriter.afterPropertiesSet();
+        writer = new ClassifierCompositeItemWriter<>();
+        writer.setClassifier(new QuoteRetentionClassifier(updateWriter, deleteWriter, QuoteRunTime::current));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        StepSynchronizationManager.close();
+        database.shutdown();
+    }
+
+    @Test
+    public void routesEveryRowOfAChunkToItsWriter() throws Exception {
+        Quote due = insertQuote(LocalDateTime.now().minusYears(3));
+        Quote optOut = insertQuote(LocalDateTime.now().minusMonths(6));
+        optOut.setOptIn(false);
+        Quote untouched = insertQuote(LocalDateTime.now().minusMonths(6));
+
+        writer.write(Chunk.of(due, optOut, untouched));
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote ORDER BY id", Long.class))
+                .containsExactly(optOut.getId(), untouched.getId());
+        assertThat(optIn(optOut.getId())).isFalse();
+        assertThat(optIn(untouched.getId())).isTrue();
+    }
+
+    @Test
+    public void deletesDueRowsWhateverTheirOptIn() throws Exception {
+        Quote due = insertQuote(LocalDateTime.now().minusYears(3));
+        due.setOptIn(false);
+
+        writer.write(Chunk.of(due));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote", Integer.class)).isZero();
+    }
+
+    @Test
+    public void judgesRowsByTheWindowOfTheRunRatherThanTheClock() throws Exception {
+        // The run started a week ago (a restart); the row only became due since
+        StepSynchronizationManager.close();
+        stepExecution = MetaDataInstanceFactory.createStepExecution("retainQuotesStep", 2L);
+        QuoteRunTime.store(stepExecution.getExecutionContext(), LocalDateTime.now().minusWeeks(1));
+        StepSynchronizationManager.register(stepExecution);
+        Quote dueSinceTheRun = insertQuote(LocalDateTime.now().minusYears(2).minusDays(3));
+
+        writer.write(Chunk.of(dueSinceTheRun));
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote", Long.class))
+                .containsExactly(dueSinceTheRun.getId());
+        assertThat(optIn(dueSinceTheRun.getId())).isTrue();
+    }
+
+    private Quote insertQuote(LocalDateTime createdTime) {
+        Quote quote = new Quote();
+        quote.setId(QuoteTestData.insertQuote(jdbcTemplate, createdTime));
+        quote.setCreatedTime(createdTime);
+        quote.setOptIn(true);
+        return quote;
+    }
+
+    private boolean optIn(long id) {
+        return jdbcTemplate.queryForObject("SELECT opt_in FROM quote WHERE id = ?", Boolean.class, id);
+    }
+}
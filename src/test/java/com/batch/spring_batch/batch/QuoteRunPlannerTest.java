@@ -0,0 +1,98 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteRunPlannerTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void picksEachStepsStrategyByItsCountedRows() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 12; i++) {
+            insertQuote(jdbcTemplate, now.minusMonths(6), true);
+        }
+        // Already opted out, so not in the update window
+        insertQuote(jdbcTemplate, now.minusMonths(6), false);
+        for (int i = 0; i < 5; i++) {
+            insertQuote(jdbcTemplate, now.minusYears(3), true);
+        }
+        insertQuote(jdbcTemplate, now.minusDays(3), true);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        new QuoteRunPlanner(database, 5, 10, 50, 500, Clock.systemDefaultZone(), registry)
+                .execute(stepExecution.createStepContribution(), new ChunkContext(new StepContext(stepExecution)));
+
+        JobExecution jobExecution = stepExecution.getJobExecution();
+        ExecutionContext plan = jobExecution.getExecutionContext();
+        assertThat(plan.getString(QuoteRunPlanner.ESTIMATOR_KEY)).isEqualTo("count");
+        assertThat(plan.getLong(QuoteRunPlanner.estimateKey(QuoteRunPlanner.UPDATE))).isEqualTo(12);
+        assertThat(plan.getString(QuoteRunPlanner.strategyKey(QuoteRunPlanner.UPDATE))).isEqualTo("PARTITIONED");
+        assertThat(plan.getLong(QuoteRunPlanner.estimateKey(QuoteRunPlanner.DELETE))).isEqualTo(5);
+        assertThat(plan.getString(QuoteRunPlanner.strategyKey(QuoteRunPlanner.DELETE))).isEqualTo("LARGE_CHUNK");
+        assertThat(plan.getInt(QuoteRunPlanner.chunkSizeKey(QuoteRunPlanner.DELETE))).isEqualTo(500);
+        assertThat(registry.get("quote.batch.plan").tag("step", "update").tag("strategy", "PARTITIONED").counter()
+                .count()).isEqualTo(1);
+
+        assertThat(new QuoteRunPlanDecider(QuoteRunPlanner.UPDATE).decide(jobExecution, stepExecution).getName())
+                .isEqualTo("PARTITIONED");
+        assertThat(new QuoteRunPlanDecider(QuoteRunPlanner.DELETE).decide(jobExecution, stepExecution).getName())
+                .isEqualTo("LARGE_CHUNK");
+        PlannedChunkSizePolicy deleteChunks = new PlannedChunkSizePolicy(QuoteRunPlanner.DELETE, 50);
+        deleteChunks.beforeStep(stepExecution);
+        assertThat(deleteChunks.getChunkSize()).isEqualTo(500);
+    }
+
+    @Test
+    public void runsUnplannedStepsAsConfigured() {
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+
+        assertThat(new QuoteRunPlanDecider(QuoteRunPlanner.UPDATE)
+                .decide(stepExecution.getJobExecution(), stepExecution).getName()).isEqualTo("CHUNK");
+        PlannedChunkSizePolicy updateChunks = new PlannedChunkSizePolicy(QuoteRunPlanner.UPDATE, 50);
+        updateChunks.beforeStep(stepExecution);
+        assertThat(updateChunks.getChunkSize()).isEqualTo(50);
+    }
+
+    @Test
+    public void readsTheRowEstimateOfThePlansTopNode() {
+        assertThat(QuoteRunPlanner.planRows("Seq Scan on quote  (cost=0.00..2041.00 rows=33420 width=8)"))
+                .isEqualTo(33420);
+        assertThat(QuoteRunPlanner.planRows("Append  (cost=0.00..912.55 rows=1204 width=8)")).isEqualTo(1204);
+    }
+}
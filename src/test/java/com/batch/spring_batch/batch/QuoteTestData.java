@@ -0,0 +1,56 @@
+package com.batch.spring_batch.batch;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Schemas and rows shared by the tests: the quote table of schema-h2.sql, the
+ * job repository tables, and quotes that only differ in created_time and opt_in.
+ */
+public final class QuoteTestData {
+
+    private QuoteTestData() {
+    }
+
+    /**
+     * Creates the job repository tables unless they exist; {@code @EnableBatchProcessing}
+     * switches off Boot's initialisation of them.
+     */
+    public static void createJobRepositoryTables(DataSource dataSource) {
+        if (new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES"
+                + " WHERE TABLE_NAME = 'BATCH_JOB_INSTANCE'", Integer.class) == 0) {
+            new ResourceDatabasePopulator(new ClassPathResource("org/springframework/batch/core/schema-h2.sql"))
+                    .execute(dataSource);
+        }
+    }
+
+    /**
+     * Drops the quote table and creates it empty, with the job's support tables.
+     */
+    public static void recreateQuoteTable(DataSource dataSource) {
+        new JdbcTemplate(dataSource).execute("DROP TABLE IF EXISTS quote");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql")).execute(dataSource);
+    }
+
+    /**
+     * @return the id of the new row
+     */
+    public static long insertQuote(JdbcTemplate jdbcTemplate, LocalDateTime createdTime, boolean optIn) {
+        jdbcTemplate.update("INSERT INTO quote (quote_id, created_time, opt_in) VALUES (?, ?, ?)",
+                "Q-" + createdTime, Timestamp.valueOf(createdTime), optIn);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM quote", Long.class);
+    }
+
+    /**
+     * An opted-in quote.
+     *
+     * @return the id of the new row
+     */
+    public static long insertQuote(JdbcTemplate jdbcTemplate, LocalDateTime createdTime) {
+        return insertQuote(jdbcTemplate, createdTime, true);
+    }
+}
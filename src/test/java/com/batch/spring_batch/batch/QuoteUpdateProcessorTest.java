@@ -1,8 +1,13 @@
 package com.batch.spring_batch.batch;
 
+import com.batch.spring_batch.config.QuoteBatchProperties;
 import com.batch.spring_batch.dto.Quote;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.test.MetaDataInstanceFactory;
 
 import java.time.LocalDateTime;
 
@@ -10,17 +15,30 @@ import static org.junit.jupiter.api.Assertions.*;
 
 public class QuoteUpdateProcessorTest {
 
+    @AfterEach
+    public void tearDown() {
+        StepSynchronizationManager.close();
+    }
 
     /**
      * A helper method to create an instance of the quote update processor.
      * Here we create a BatchConfig instance with null values for dependencies,
-     * as our processor does not depend on them for its logic.
+     * as our processor does not depend on them for its logic. The run starts
+     * now, after the quote was created, in a step like the one the reader opened.
      */
     private ItemProcessor<Quote, Quote> getProcessor() {
-        BatchConfig batchConfig = new BatchConfig(null, null, null);
+        runStartedAt(LocalDateTime.now());
+        BatchConfig batchConfig = new BatchConfig(null, null, null, new QuoteBatchProperties());
         return batchConfig.quoteUpdateProcessor();
     }
 
+    private static void runStartedAt(LocalDateTime runTime) {
+        StepSynchronizationManager.close();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        QuoteRunTime.store(stepExecution.getExecutionContext(), runTime);
+        StepSynchronizationManager.register(stepExecution);
+    }
+
     @Test
     public void whenQuoteIsCreatedJustAfterOneMonthAgo_thenOptInShouldBeFalse() throws Exception {
         // Arrange: Create a Quote with createdTime one minute past one month ago.
@@ -29,8 +47,7 @@ public class QuoteUpdateProcessorTest {
         quote.setCreatedTime(LocalDateTime.now().minusMonths(1).minusMinutes(1));
         quote.setOptIn(true);
 
-        BatchConfig batchConfig = new BatchConfig(null, null, null);
-        ItemProcessor<Quote, Quote> processor = batchConfig.quoteUpdateProcessor();
+        ItemProcessor<Quote, Quote> processor = getProcessor();
 
         // Act
         Quote processedQuote = processor.process(quote);
@@ -131,4 +148,25 @@ public class QuoteUpdateProcessorTest {
         assertNotNull(processedQuote, "Processed quote should not be null");
         assertFalse(processedQuote.isOptIn(), "OptIn should remain false for recent quotes already set to false");
     }
+
+    @Test
+    public void whenTheRunStartedEarlier_thenTheRunTimeDecidesRatherThanTheClock() throws Exception {
+        // Arrange: A run that started before midnight opts out against its own window, like its reader and writer.
+        LocalDateTime runTime = LocalDateTime.now().minusDays(1);
+        Quote quote = new Quote();
+        quote.setId(7L);
+        quote.setCreatedTime(runTime.minusMonths(1).plusHours(1));
+        quote.setOptIn(true);
+
+        runStartedAt(runTime);
+        ItemProcessor<Quote, Quote> processor = new BatchConfig(null, null, null, new QuoteBatchProperties())
+                .quoteUpdateProcessor();
+
+        // Act
+        Quote processedQuote = processor.process(quote);
+
+        // Assert: One month before the clock, but not before the run time.
+        assertNotNull(processedQuote, "Processed quote should not be null");
+        assertTrue(processedQuote.isOptIn(), "Expected optIn to remain true for quotes inside the run's window");
+    }
 }
@@ -0,0 +1,133 @@
+package com.batch.spring_batch.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteWindowReaderTest {
+
+    private static final Instant START = Instant.parse("2026-03-01T02:00:00Z");
+
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .generateUniqueName(true)
+            .setType(EmbeddedDatabaseType.H2)
+            .addScript("schema-h2.sql")
+            .build();
+    private final QuoteWatermarkStore store = new QuoteWatermarkStore(database);
+
+    // (runTime, since) of every window the readers opened
+    private final List<LocalDateTime[]> windows = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void firstRunScansTheWholeWindowAndLaterRunsStartAtTheMark() {
+        LocalDateTime first = run(clockAt(Duration.ZERO), BatchStatus.COMPLETED);
+        LocalDateTime second = run(clockAt(Duration.ofDays(1)), BatchStatus.COMPLETED);
+
+        assertThat(windows.get(0)[1]).isNull();
+        assertThat(windows.get(1)[1]).isEqualTo(first.minusMonths(1));
+        assertThat(store.find("updateOptInStep")).contains(
+                new QuoteWatermarkStore.Watermark(second.minusMonths(1), first));
+    }
+
+    @Test
+    public void scansTheWholeWindowAgainOnceTheIntervalHasPassed() {
+        run(clockAt(Duration.ZERO), BatchStatus.COMPLETED);
+        LocalDateTime reconciliation = run(clockAt(Duration.ofDays(8)), BatchStatus.COMPLETED);
+
+        assertThat(windows.get(1)[1]).isNull();
+        assertThat(store.find("updateOptInStep").orElseThrow().lastFullScan()).isEqualTo(reconciliation);
+    }
+
+    @Test
+    public void markOnlyMovesWhenTheStepCompletes() {
+        LocalDateTime first = run(clockAt(Duration.ZERO), BatchStatus.COMPLETED);
+        run(clockAt(Duration.ofDays(1)), BatchStatus.FAILED);
+
+        assertThat(store.find("updateOptInStep").orElseThrow().highWater()).isEqualTo(first.minusMonths(1));
+    }
+
+    @Test
+    public void restartReadsTheWindowOfTheFailedExecution() {
+        run(clockAt(Duration.ZERO), BatchStatus.COMPLETED);
+        ExecutionContext executionContext = new ExecutionContext();
+        QuoteWindowReader<String> failed = reader(clockAt(Duration.ofDays(1)));
+        failed.beforeStep(stepExecution());
+        failed.open(executionContext);
+        failed.update(executionContext);
+        failed.close();
+
+        QuoteWindowReader<String> restarted = reader(clockAt(Duration.ofDays(2)));
+        restarted.beforeStep(stepExecution());
+        restarted.open(executionContext);
+        restarted.close();
+
+        assertThat(windows.get(2)).containsExactly(windows.get(1));
+        // The step's writers see the same run time
+        assertThat(executionContext.getString(QuoteRunTime.KEY)).isEqualTo(windows.get(1)[0].toString());
+    }
+
+    @Test
+    public void withoutAStoreEveryRunScansTheWholeWindow() {
+        QuoteWindowReader<String> reader = new QuoteWindowReader<>("quoteReaderForUpdate", this::window,
+                runTime -> runTime.minusMonths(1), null, Duration.ofDays(7), clockAt(Duration.ZERO));
+        StepExecution stepExecution = stepExecution();
+        reader.beforeStep(stepExecution);
+        reader.open(new ExecutionContext());
+        reader.close();
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        reader.afterStep(stepExecution);
+
+        assertThat(windows.get(0)[1]).isNull();
+        assertThat(store.find("updateOptInStep")).isEmpty();
+    }
+
+    private LocalDateTime run(Clock clock, BatchStatus status) {
+        QuoteWindowReader<String> reader = reader(clock);
+        StepExecution stepExecution = stepExecution();
+        reader.beforeStep(stepExecution);
+        reader.open(new ExecutionContext());
+        reader.close();
+        stepExecution.setStatus(status);
+        reader.afterStep(stepExecution);
+        return LocalDateTime.now(clock);
+    }
+
+    private QuoteWindowReader<String> reader(Clock clock) {
+        return new QuoteWindowReader<>("quoteReaderForUpdate", this::window, runTime -> runTime.minusMonths(1),
+                store, Duration.ofDays(7), clock);
+    }
+
+    private ItemStreamReader<String> window(LocalDateTime runTime, LocalDateTime since) {
+        windows.add(new LocalDateTime[] {runTime, since});
+        return () -> null;
+    }
+
+    private static StepExecution stepExecution() {
+        return new StepExecution("updateOptInStep", new JobExecution(1L));
+    }
+
+    private static Clock clockAt(Duration offset) {
+        return Clock.fixed(START.plus(offset), ZoneId.of("UTC"));
+    }
+}
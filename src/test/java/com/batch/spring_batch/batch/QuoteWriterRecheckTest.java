@@ -0,0 +1,196 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.dto.Quote;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * The items stand for rows read from a lagging replica; the writers must only
+ * touch rows that still match on the quote database.
+ */
+public class QuoteWriterRecheckTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private BatchConfig batchConfig;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        batchConfig = new BatchConfig(null, null, database, new QuoteBatchProperties());
+        runStartedAt(LocalDateTime.now());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        StepSynchronizationManager.close();
+        database.shutdown();
+    }
+
+    @Test
+    public void updateWriterSkipsRowsThatNoLongerMatch() throws Exception {
+        LocalDateTime sixMonthsAgo = LocalDateTime.now().minusMonths(6);
+        long eligible = insertQuote(jdbcTemplate, sixMonthsAgo, true);
+        long optedOutMeanwhile = insertQuote(jdbcTemplate, sixMonthsAgo, false);
+        long deletedMeanwhile = 999_999L;
+
+        JdbcBatchItemWriter<Quote> writer = batchConfig.quoteUpdateWriter();
+        writer.afterPropertiesSet();
+        writer.write(Chunk.of(optOut(eligible, sixMonthsAgo), optOut(optedOutMeanwhile, sixMonthsAgo),
+                optOut(deletedMeanwhile, sixMonthsAgo)));
+
+        assertThat(optIn(eligible)).isFalse();
+        assertThat(optIn(optedOutMeanwhile)).isFalse();
+    }
+
+    @Test
+    public void updateWriterLeavesRowsOutsideTheWindowAlone() throws Exception {
+        // The replica still had the old created_time; the quote database has a recent one
+        long touchedMeanwhile = insertQuote(jdbcTemplate, LocalDateTime.now().minusDays(3), true);
+
+        JdbcBatchItemWriter<Quote> writer = batchConfig.quoteUpdateWriter();
+        writer.afterPropertiesSet();
+        writer.write(Chunk.of(optOut(touchedMeanwhile, LocalDateTime.now().minusMonths(6))));
+
+        assertThat(optIn(touchedMeanwhile)).isTrue();
+    }
+
+    @Test
+    public void deleteWriterOnlyDeletesRowsThatAreStillDue() throws Exception {
+        long due = insertQuote(jdbcTemplate, LocalDateTime.now().minusYears(3), true);
+        long notDue = insertQuote(jdbcTemplate, LocalDateTime.now().minusDays(3), true);
+
+        JdbcBatchItemWriter<Quote> writer = batchConfig.quoteDeleteWriter();
+        writer.afterPropertiesSet();
+        writer.write(Chunk.of(quote(due), quote(notDue), quote(999_999L)));
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote", Long.class)).containsExactly(notDue);
+    }
+
+    @Test
+    public void writersRecheckAgainstTheWindowOfTheRunRatherThanTheClock() throws Exception {
+        // A restart of a run from a week ago: the rows only entered the windows since
+        runStartedAt(LocalDateTime.now().minusWeeks(1));
+        long dueSinceTheRun = insertQuote(jdbcTemplate, LocalDateTime.now().minusYears(2).minusDays(3), true);
+        long optOutSinceTheRun = insertQuote(jdbcTemplate, LocalDateTime.now().minusMonths(1).minusDays(3), true);
+
+        JdbcBatchItemWriter<Quote> deleteWriter = batchConfig.quoteDeleteWriter();
+        deleteWriter.afterPropertiesSet();
+        deleteWriter.write(Chunk.of(quote(dueSinceTheRun)));
+        JdbcBatchItemWriter<Quote> updateWriter = batchConfig.quoteUpdateWriter();
+        updateWriter.afterPropertiesSet();
+        updateWriter.write(Chunk.of(optOut(optOutSinceTheRun, LocalDateTime.now().minusMonths(1).minusDays(3))));
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote ORDER BY id", Long.class))
+                .containsExactly(dueSinceTheRun, optOutSinceTheRun);
+        assertThat(optIn(optOutSinceTheRun)).isTrue();
+    }
+
+    @Test
+    public void archivingDeleteWriterArchivesOnlyTheRowsItDeleted(@TempDir Path directory) throws Exception {
+        long due = insertQuote(jdbcTemplate, LocalDateTime.now().minusYears(3), true);
+        long notDue = insertQuote(jdbcTemplate, LocalDateTime.now().minusDays(3), true);
+        jdbcTemplate.update("UPDATE quote SET customer_name = 'current' WHERE id = ?", due);
+        // As read from the replica before the rename
+        Quote staleDue = quote(due);
+        staleDue.setCustomerName("stale");
+
+        QuoteArchivingDeleteWriter writer = new QuoteArchivingDeleteWriter(database,
+                new QuoteArchiveWriter(directory, "recheck", Long.MAX_VALUE), () -> LocalDateTime.now().minusYears(2));
+        writer.open(new ExecutionContext());
+        writer.write(Chunk.of(staleDue, quote(notDue), quote(999_999L)));
+        writer.close();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote", Long.class)).containsExactly(notDue);
+        List<String> rows = readArchive(directory.resolve("recheck-00000.csv.gz"));
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(1)).startsWith(due + ",").contains(",current,");
+    }
+
+    @Test
+    public void archivingDeleteWriterWritesNothingWhenNoRowIsDue(@TempDir Path directory) throws Exception {
+        long notDue = insertQuote(jdbcTemplate, LocalDateTime.now().minusDays(3), true);
+
+        QuoteArchivingDeleteWriter writer = new QuoteArchivingDeleteWriter(database,
+                new QuoteArchiveWriter(directory, "recheck", Long.MAX_VALUE), () -> LocalDateTime.now().minusYears(2));
+        writer.open(new ExecutionContext());
+        writer.write(Chunk.of(quote(notDue), quote(999_999L)));
+        writer.close();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM quote", Long.class)).containsExactly(notDue);
+        assertThat(directory.resolve("recheck-00000.csv.gz")).doesNotExist();
+    }
+
+    @Test
+    public void archiveNeedsAnAbsoluteDirectory() {
+        QuoteBatchProperties properties = new QuoteBatchProperties();
+        properties.getArchive().setEnabled(true);
+        properties.getArchive().setDirectory("archive");
+
+        assertThatThrownBy(() -> new BatchConfig(null, null, database, properties).compositeDeleteWriter())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("absolute batch.quote.archive.directory");
+    }
+
+    // GZIPInputStream reads concatenated members, like zcat
+    private static List<String> readArchive(Path segment) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(segment))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    private boolean optIn(long id) {
+        return jdbcTemplate.queryForObject("SELECT opt_in FROM quote WHERE id = ?", Boolean.class, id);
+    }
+
+    private static Quote optOut(long id, LocalDateTime createdTime) {
+        Quote quote = quote(id);
+        quote.setCreatedTime(createdTime);
+        quote.setOptIn(false);
+        return quote;
+    }
+
+    private static Quote quote(long id) {
+        Quote quote = new Quote();
+        quote.setId(id);
+        return quote;
+    }
+
+    // What the step's reader publishes when it opens
+    private void runStartedAt(LocalDateTime runTime) {
+        StepSynchronizationManager.close();
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        QuoteRunTime.store(stepExecution.getExecutionContext(), runTime);
+        StepSynchronizationManager.register(stepExecution);
+    }
+}
@@ -0,0 +1,102 @@
+package com.batch.spring_batch.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.support.ListItemReader;
+
+public class ReadAheadItemReaderTest {
+
+    @Test
+    public void handsOutTheDelegateItemsInOrder() throws Exception {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            source.add(i);
+        }
+        ReadAheadItemReader<Integer> reader = new ReadAheadItemReader<>("test", streamOf(source), 8);
+        reader.open(new ExecutionContext());
+
+        List<Integer> read = new ArrayList<>();
+        Integer item;
+        while ((item = reader.read()) != null) {
+            read.add(item);
+        }
+        reader.close();
+
+        assertThat(read).isEqualTo(source);
+        assertThat(reader.read()).isNull();
+    }
+
+    @Test
+    public void rethrowsTheDelegateFailureOnTheReadingThread() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ItemStreamReader<Integer> failing = new ItemStreamReader<>() {
+            @Override
+            public Integer read() {
+                if (calls.incrementAndGet() > 2) {
+                    throw new IllegalStateException("page query failed");
+                }
+                return calls.get();
+            }
+        };
+        ReadAheadItemReader<Integer> reader = new ReadAheadItemReader<>("test", failing, 4);
+        reader.open(new ExecutionContext());
+
+        assertThat(reader.read()).isEqualTo(1);
+        assertThat(reader.read()).isEqualTo(2);
+        assertThatThrownBy(reader::read).isInstanceOf(IllegalStateException.class).hasMessage("page query failed");
+        reader.close();
+    }
+
+    @Test
+    public void closeStopsAProducerBlockedOnAFullQueue() throws Exception {
+        ReadAheadItemReader<Integer> reader = new ReadAheadItemReader<>("test", streamOf(List.of(1, 2, 3, 4, 5)), 1);
+        reader.open(new ExecutionContext());
+        assertThat(reader.read()).isEqualTo(1);
+
+        reader.close();
+    }
+
+    @Test
+    public void copiesTheRunTimeOfTheDelegateIntoTheStepContext() throws Exception {
+        ItemStreamReader<Integer> windowed = new ItemStreamReader<>() {
+            @Override
+            public void open(ExecutionContext executionContext) {
+                QuoteRunTime.store(executionContext, LocalDateTime.of(2026, 1, 1, 0, 0));
+            }
+
+            @Override
+            public Integer read() {
+                return null;
+            }
+        };
+        ReadAheadItemReader<Integer> reader = new ReadAheadItemReader<>("test", windowed, 4);
+        ExecutionContext stepContext = new ExecutionContext();
+
+        reader.open(stepContext);
+        assertThat(stepContext.getString(QuoteRunTime.KEY)).isEqualTo("2026-01-01T00:00");
+
+        // A restarted step context comes with the run time of the failed execution
+        stepContext.putString(QuoteRunTime.KEY, "2025-12-01T00:00");
+        reader.update(stepContext);
+        assertThat(stepContext.getString(QuoteRunTime.KEY)).isEqualTo("2026-01-01T00:00");
+        reader.close();
+    }
+
+    private static ItemStreamReader<Integer> streamOf(List<Integer> items) {
+        ListItemReader<Integer> delegate = new ListItemReader<>(items);
+        return new ItemStreamReader<>() {
+            @Override
+            public Integer read() {
+                return delegate.read();
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.batch.spring_batch.batch;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.batch.spring_batch.config.QuoteShard;
+import com.batch.spring_batch.config.QuoteShards;
+import java.time.LocalDateTime;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+// Own in-memory databases: the data.sql of the test profile cannot run twice against the same ones
+@SpringBootTest(properties = {
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:sharded-mydb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.batch.jdbc-url=jdbc:h2:mem:sharded-batchdb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.shards.a.jdbc-url=jdbc:h2:mem:shard-a;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.shards.a.driver-class-name=org.h2.Driver",
+        "spring.datasource.shards.a.username=sa",
+        "spring.datasource.shards.b.jdbc-url=jdbc:h2:mem:shard-b;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.shards.b.driver-class-name=org.h2.Driver",
+        "spring.datasource.shards.b.username=sa",
+        "batch.quote.scheduler.enabled=false",
+        "batch.quote.archive.enabled=false"
+})
+@ActiveProfiles("test")
+public class ShardedJobTest {
+
+    @Autowired
+    private QuoteShards quoteShards;
+
+    @Autowired
+    @Qualifier("jobLauncher")
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private Job processQuotesJob;
+
+    @Autowired
+    @Qualifier("dataSource")
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+        QuoteTestData.createJobRepositoryTables(dataSource);
+        LocalDateTime now = LocalDateTime.now();
+        for (QuoteShard shard : quoteShards.getShards()) {
+            QuoteTestData.recreateQuoteTable(shard.dataSource());
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shard.dataSource());
+            // One row to opt out, one to purge and one recent row per shard
+            insertQuote(jdbcTemplate, now.minusMonths(6));
+            insertQuote(jdbcTemplate, now.minusYears(3));
+            insertQuote(jdbcTemplate, now.minusDays(3));
+        }
+    }
+
+    @Test
+    public void runsBothStepsOnEveryShard() throws Exception {
+        JobExecution execution = jobLauncher.run(processQuotesJob, new JobParametersBuilder()
+                .addLong("run.id", System.nanoTime())
+                .toJobParameters());
+
+        assertThat(execution.getStatus()).as("failures: %s", execution.getAllFailureExceptions()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(execution.getStepExecutions()).extracting(StepExecution::getStepName)
+                .containsExactlyInAnyOrder("updateOptInStep:a", "deleteOldQuotesStep:a",
+                        "updateOptInStep:b", "deleteOldQuotesStep:b");
+        for (QuoteShard shard : quoteShards.getShards()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shard.dataSource());
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote", Integer.class)).isEqualTo(2);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote WHERE opt_in = TRUE", Integer.class))
+                    .isEqualTo(1);
+        }
+    }
+}
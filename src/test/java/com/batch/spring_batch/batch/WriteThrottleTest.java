@@ -0,0 +1,153 @@
+package com.batch.spring_batch.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+public class WriteThrottleTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-02T12:00:00Z"));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void pacesTheWrittenRowsToTheRate() {
+        WriteThrottle throttle = throttle(100, List.of(), List.of(), Duration.ofHours(1));
+
+        // One second of rows is free, after that every row costs 10 ms
+        assertThat(throttle.acquire(100)).isZero();
+        assertThat(throttle.acquire(100)).isEqualTo(1000);
+        assertThat(throttle.acquire(50)).isEqualTo(500);
+        clock.advance(2000);
+        assertThat(throttle.acquire(150)).isEqualTo(500);
+        assertThat(registry.get("quote.batch.throttle.wait").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isEqualTo(2000);
+    }
+
+    @Test
+    public void takesTheRateFromTheTimeOfDayProfile() {
+        WriteThrottle throttle = throttle(100, List.of(
+                new WriteThrottle.Window(LocalTime.of(7, 0), LocalTime.of(20, 0), 10),
+                new WriteThrottle.Window(LocalTime.of(22, 0), LocalTime.of(6, 0), 0)), List.of(), Duration.ofHours(1));
+
+        assertThat(throttle.currentLimit()).isEqualTo(10);
+        clock.set("2026-03-02T21:00:00Z");
+        assertThat(throttle.currentLimit()).isEqualTo(100);
+        clock.set("2026-03-02T23:30:00Z");
+        assertThat(throttle.currentLimit()).isInfinite();
+        clock.set("2026-03-03T05:59:00Z");
+        assertThat(throttle.currentLimit()).isInfinite();
+        assertThat(throttle.acquire(100_000)).isZero();
+    }
+
+    @Test
+    public void backsOffUnderPressureAndRecoversToTheSchedule() {
+        AtomicBoolean replicaBehind = new AtomicBoolean();
+        WriteThrottle throttle = throttle(1000, List.of(),
+                List.of(new WriteThrottle.Pressure("replica-lag", replicaBehind::get)), Duration.ofSeconds(1));
+        throttle.acquire(1);
+
+        replicaBehind.set(true);
+        assertThat(limitAfterInterval(throttle)).isEqualTo(500);
+        assertThat(limitAfterInterval(throttle)).isEqualTo(250);
+        assertThat(limitAfterInterval(throttle)).isEqualTo(125);
+        // Never below the floor
+        assertThat(limitAfterInterval(throttle)).isEqualTo(100);
+
+        replicaBehind.set(false);
+        throttle.recordCommit(Duration.ofSeconds(2).toNanos());
+        assertThat(limitAfterInterval(throttle)).isEqualTo(100);
+        assertThat(limitAfterInterval(throttle)).isEqualTo(200);
+        assertThat(limitAfterInterval(throttle)).isEqualTo(400);
+        assertThat(limitAfterInterval(throttle)).isEqualTo(800);
+        assertThat(limitAfterInterval(throttle)).isEqualTo(1000);
+
+        assertThat(registry.get("quote.batch.throttle.backoff").tag("cause", "replica-lag").counter().count())
+                .isEqualTo(4);
+        assertThat(registry.get("quote.batch.throttle.backoff").tag("cause", WriteThrottle.COMMIT_LATENCY)
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void keepsTheWaitOfEachStepExecution() {
+        WriteThrottle throttle = throttle(10, List.of(), List.of(), Duration.ofHours(1));
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+        throttle.beforeStep(stepExecution);
+        for (int i = 0; i < 3; i++) {
+            throttle.beforeChunk(chunkContext);
+            throttle.afterWrite(new Chunk<>(List.of(new Object(), new Object())));
+            throttle.afterWrite(new Chunk<>(List.of(new Object(), new Object(), new Object())));
+            throttle.afterChunk(chunkContext);
+        }
+        // A rolled back chunk is not paid for
+        throttle.beforeChunk(chunkContext);
+        throttle.afterWrite(new Chunk<>(List.of(new Object())));
+        throttle.afterChunkError(chunkContext);
+        throttle.afterStep(stepExecution);
+
+        // 15 rows at 10 rows/s, the first 10 from the full bucket
+        assertThat(stepExecution.getExecutionContext().getLong(WriteThrottle.WAIT_KEY)).isEqualTo(500);
+        assertThat(registry.get("quote.batch.throttle.limit").gauge().value()).isEqualTo(10);
+    }
+
+    // The rows of one adjust interval are enough to back off from, but never cause a wait at these rates
+    private double limitAfterInterval(WriteThrottle throttle) {
+        clock.advance(1000);
+        throttle.acquire(1);
+        return throttle.currentLimit();
+    }
+
+    private WriteThrottle throttle(double rowsPerSecond, List<WriteThrottle.Window> windows,
+                                   List<WriteThrottle.Pressure> pressures, Duration adjustInterval) {
+        return new WriteThrottle("updateOptInStep", rowsPerSecond, windows, pressures, Duration.ofMillis(500), 100,
+                0.5, 2, adjustInterval, clock, clock::advance, registry);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        void set(String instant) {
+            now = Instant.parse(instant);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
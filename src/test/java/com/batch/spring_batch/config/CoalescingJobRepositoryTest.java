@@ -0,0 +1,126 @@
+package com.batch.spring_batch.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.support.ResourcelessJobRepository;
+
+public class CoalescingJobRepositoryTest {
+
+    private final List<String> writes = new ArrayList<>();
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CoalescingJobRepository repository;
+    private StepExecution stepExecution;
+
+    @BeforeEach
+    public void setUp() {
+        ResourcelessJobRepository recording = new ResourcelessJobRepository() {
+            @Override
+            public void update(StepExecution stepExecution) {
+                writes.add("step:" + stepExecution.getCommitCount());
+            }
+
+            @Override
+            public void updateExecutionContext(StepExecution stepExecution) {
+                writes.add("context:" + stepExecution.getExecutionContext().getInt("read.count", 0));
+            }
+        };
+        repository = new CoalescingJobRepository(recording, 3, Duration.ofSeconds(10), clock, registry);
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "processQuotesJob"), 1L, new JobParameters());
+        stepExecution = new StepExecution("updateOptInStep", jobExecution, 7L);
+        stepExecution.setStatus(BatchStatus.STARTED);
+        repository.update(stepExecution);
+    }
+
+    @Test
+    public void writesEveryCommitIntervalChunksAndTheFinalUpdate() {
+        for (int i = 1; i <= 4; i++) {
+            chunk(i);
+        }
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        repository.updateExecutionContext(stepExecution);
+        repository.update(stepExecution);
+
+        assertThat(writes).containsExactly("step:0", "context:3", "step:3", "context:4", "step:4");
+        assertThat(registry.counter("quote.batch.repository.updates", "outcome", "coalesced").count()).isEqualTo(6);
+        assertThat(registry.counter("quote.batch.repository.updates", "outcome", "written").count()).isEqualTo(5);
+    }
+
+    @Test
+    public void writesAChunkOnceTheFlushIntervalHasPassed() {
+        chunk(1);
+        clock.advance(Duration.ofSeconds(10));
+        chunk(2);
+        chunk(3);
+
+        assertThat(writes).containsExactly("step:0", "context:2", "step:2");
+    }
+
+    @Test
+    public void writesBothOnceTheFlushIntervalHasPassedWithoutAContextUpdate() {
+        chunk(1);
+        clock.advance(Duration.ofSeconds(10));
+        // A chunk that left the ExecutionContext clean
+        stepExecution.incrementCommitCount();
+        repository.update(stepExecution);
+        chunk(2);
+
+        assertThat(writes).containsExactly("step:0", "context:1", "step:2");
+    }
+
+    @Test
+    public void writesAFailedStepAtOnce() {
+        chunk(1);
+        stepExecution.setStatus(BatchStatus.FAILED);
+        repository.updateExecutionContext(stepExecution);
+        repository.update(stepExecution);
+
+        assertThat(writes).containsExactly("step:0", "context:1", "step:1");
+    }
+
+    // What TaskletStep does when a chunk commits
+    private void chunk(int readCount) {
+        stepExecution.getExecutionContext().putInt("read.count", readCount);
+        repository.updateExecutionContext(stepExecution);
+        stepExecution.incrementCommitCount();
+        repository.update(stepExecution);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2026-03-01T02:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.batch.spring_batch.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteSchemaConfigTest {
+
+    private EmbeddedDatabase database;
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void indexesTheJobRepositoryTables() throws Exception {
+        database = metadataDatabase(true);
+
+        // Twice, like two application starts
+        new QuoteSchemaConfig().batchMetadataIndexInitializer(database).afterPropertiesSet();
+        new QuoteSchemaConfig().batchMetadataIndexInitializer(database).afterPropertiesSet();
+
+        assertThat(indexCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void waitsForTheJobRepositoryTables() throws Exception {
+        database = metadataDatabase(false);
+
+        new QuoteSchemaConfig().batchMetadataIndexInitializer(database).afterPropertiesSet();
+
+        assertThat(indexCount()).isZero();
+    }
+
+    private static EmbeddedDatabase metadataDatabase(boolean withTables) {
+        EmbeddedDatabaseBuilder builder = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2);
+        if (withTables) {
+            builder.addScript("org/springframework/batch/core/schema-h2.sql");
+        }
+        return builder.build();
+    }
+
+    private int indexCount() {
+        return new JdbcTemplate(database).queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES"
+                + " WHERE INDEX_NAME LIKE 'BATCH\\_%\\_IDX' ESCAPE '\\'", Integer.class);
+    }
+}
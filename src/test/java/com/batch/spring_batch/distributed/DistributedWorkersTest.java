@@ -0,0 +1,195 @@
+package com.batch.spring_batch.distributed;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.batch.spring_batch.batch.BatchConfig;
+import com.batch.spring_batch.config.QuoteBatchProperties;
+import com.batch.spring_batch.dto.Quote;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.CompositeItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Several worker pools in one JVM share the work items of an H2 quote database.
+ */
+public class DistributedWorkersTest {
+
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private QuoteBatchProperties properties;
+    private DistributedConfig distributedConfig;
+    private QuoteWorkQueue queue;
+    private final List<QuoteWorkerPool> pools = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        properties = new QuoteBatchProperties();
+        properties.getArchive().setEnabled(false);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(database);
+        distributedConfig = new DistributedConfig(new BatchConfig(null, transactionManager, database, properties),
+                null, transactionManager, database, properties);
+        queue = new QuoteWorkQueue(database, Clock.systemUTC());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 300; i++) {
+            // A third to opt out, a third to delete, a third recent
+            LocalDateTime createdTime = switch (i % 3) {
+                case 0 -> now.minusMonths(6);
+                case 1 -> now.minusYears(3);
+                default -> now.minusDays(3);
+            };
+            insertQuote(jdbcTemplate, createdTime);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pools.forEach(QuoteWorkerPool::stop);
+        database.shutdown();
+    }
+
+    @Test
+    public void workersShareTheItemsOfBothSteps() throws Exception {
+        LocalDateTime runTime = LocalDateTime.now();
+        queue.publish("1:updateOptInStep", QuoteWorkItem.Kind.UPDATE,
+                List.of(new long[]{1, 100}, new long[]{101, 200}, new long[]{201, 300}), runTime);
+        queue.publish("1:deleteOldQuotesStep", QuoteWorkItem.Kind.DELETE,
+                List.of(new long[]{1, 150}, new long[]{151, 300}), runTime);
+
+        for (int i = 0; i < 3; i++) {
+            startPool("worker-" + i);
+        }
+        awaitFinished("1:updateOptInStep");
+        awaitFinished("1:deleteOldQuotesStep");
+
+        assertThat(queue.summary("1:updateOptInStep").written()).isEqualTo(100);
+        assertThat(queue.summary("1:deleteOldQuotesStep").written()).isEqualTo(100);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote", Integer.class)).isEqualTo(200);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote WHERE opt_in = FALSE", Integer.class))
+                .isEqualTo(100);
+    }
+
+    @Test
+    public void aWorkerResumesAStalledClaimAfterItsLastChunk() throws Exception {
+        queue.publish("1:updateOptInStep", QuoteWorkItem.Kind.UPDATE, List.of(new long[]{1, 300}),
+                LocalDateTime.now());
+        // A worker committed the chunk up to id 150 without opting anything out, then died
+        QuoteWorkQueue staleClock = new QuoteWorkQueue(database,
+                Clock.offset(Clock.systemUTC(), CLAIM_TIMEOUT.negated().minusMinutes(1)));
+        QuoteWorkItem stalled = staleClock.claim("dead-worker", CLAIM_TIMEOUT).orElseThrow();
+        staleClock.progress(stalled, "dead-worker", 150, 0);
+
+        startPool("worker-0");
+        awaitFinished("1:updateOptInStep");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote WHERE opt_in = FALSE", Integer.class))
+                .isEqualTo(50);
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(id) FROM quote WHERE opt_in = FALSE", Long.class))
+                .isGreaterThan(150);
+    }
+
+    @Test
+    public void aRetriedDeleteRangeArchivesEveryRowOnce(@TempDir Path archive) throws Exception {
+        properties.getArchive().setEnabled(true);
+        properties.getArchive().setDirectory(archive.toString());
+        queue.publish("1:deleteOldQuotesStep", QuoteWorkItem.Kind.DELETE, List.of(new long[]{1, 300}),
+                LocalDateTime.now());
+        QuoteRangeTask delete = distributedConfig.deleteRangeTask();
+        AtomicInteger chunks = new AtomicInteger();
+        // The first attempt archives its second chunk, then the chunk's transaction rolls back
+        QuoteRangeTask failingOnce = new QuoteRangeTask() {
+            @Override
+            public ItemStreamReader<Quote> reader(QuoteWorkItem item) throws Exception {
+                return delete.reader(item);
+            }
+
+            @Override
+            public ItemProcessor<Quote, Quote> processor(QuoteWorkItem item) {
+                return null;
+            }
+
+            @Override
+            public ItemWriter<Quote> writer(QuoteWorkItem item) throws Exception {
+                CompositeItemWriter<Quote> writer = new CompositeItemWriter<>();
+                writer.setDelegates(List.of(delete.writer(item), chunk -> {
+                    if (chunks.incrementAndGet() == 2) {
+                        throw new IllegalStateException("Simulated failure after the archive write");
+                    }
+                }));
+                return writer;
+            }
+        };
+        QuoteWorker worker = new QuoteWorker(queue, Map.of(QuoteWorkItem.Kind.DELETE, failingOnce),
+                new DataSourceTransactionManager(database), "worker-0", 20, CLAIM_TIMEOUT, 3);
+
+        while (worker.runNext(() -> false)) {
+            // The failed attempt gives the item back, the next claim finishes it
+        }
+
+        assertThat(queue.summary("1:deleteOldQuotesStep").failed()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quote", Integer.class)).isEqualTo(200);
+        List<Long> archived = new ArrayList<>();
+        try (Stream<Path> segments = Files.list(archive)) {
+            for (Path segment : segments.toList()) {
+                // GZIPInputStream reads concatenated members, like zcat
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(segment)), StandardCharsets.UTF_8))) {
+                    in.lines().filter(line -> !line.startsWith("id,"))
+                            .forEach(line -> archived.add(Long.parseLong(line.substring(0, line.indexOf(',')))));
+                }
+            }
+        }
+        assertThat(archived).hasSize(100).doesNotHaveDuplicates();
+    }
+
+    private void startPool(String owner) throws Exception {
+        QuoteWorker worker = new QuoteWorker(queue,
+                Map.of(QuoteWorkItem.Kind.UPDATE, distributedConfig.updateRangeTask(),
+                        QuoteWorkItem.Kind.DELETE, distributedConfig.deleteRangeTask()),
+                new DataSourceTransactionManager(database), owner, 20, CLAIM_TIMEOUT, 3);
+        QuoteWorkerPool pool = new QuoteWorkerPool(worker, 2, Duration.ofMillis(50));
+        pools.add(pool);
+        pool.start();
+    }
+
+    private void awaitFinished(String batchKey) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (queue.summary(batchKey).open() > 0) {
+            assertThat(System.nanoTime()).as("work items of %s still open", batchKey).isLessThan(deadline);
+            assertThat(queue.summary(batchKey).failed()).isZero();
+            Thread.sleep(20);
+        }
+    }
+}
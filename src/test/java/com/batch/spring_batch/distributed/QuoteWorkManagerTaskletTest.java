@@ -0,0 +1,146 @@
+package com.batch.spring_batch.distributed;
+
+import static com.batch.spring_batch.batch.QuoteTestData.insertQuote;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class QuoteWorkManagerTaskletTest {
+
+    private static final Instant START = Instant.parse("2026-03-01T02:00:00Z");
+    private static final Duration MAX_WAIT = Duration.ofHours(1);
+
+    private EmbeddedDatabase database;
+    private StepExecution stepExecution;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .addScript("org/springframework/batch/core/schema-h2.sql")
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        for (int i = 0; i < 10; i++) {
+            insertQuote(jdbcTemplate, LocalDateTime.of(2023, 1, 1, 0, 0).plusHours(i));
+        }
+        stepExecution = MetaDataInstanceFactory.createStepExecution("deleteOldQuotesStep", 7L);
+        stepExecution.setStartTime(LocalDateTime.ofInstant(START, ZoneId.systemDefault()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void keepsWaitingForOpenItemsWithinMaxWait() throws Exception {
+        assertThat(execute(tasklet(START))).isEqualTo(RepeatStatus.CONTINUABLE);
+
+        assertThat(execute(tasklet(START.plus(MAX_WAIT)))).isEqualTo(RepeatStatus.CONTINUABLE);
+    }
+
+    @Test
+    public void failsTheStepOnceOpenItemsOutlastMaxWait() throws Exception {
+        execute(tasklet(START));
+
+        assertThatThrownBy(() -> execute(tasklet(START.plus(MAX_WAIT).plusSeconds(1))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("4 of 4 work items")
+                .hasMessageContaining("batch.quote.distributed.max-wait");
+    }
+
+    @Test
+    public void pollsTheWorkersOutsideATransaction() throws Exception {
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(database);
+        factory.setTransactionManager(new DataSourceTransactionManager(database));
+        factory.afterPropertiesSet();
+        JobRepository jobRepository = factory.getObject();
+        QuoteWorkQueue queue = new QuoteWorkQueue(database, Clock.systemUTC());
+        QuoteWorkManagerTasklet manager = new QuoteWorkManagerTasklet(queue, QuoteWorkItem.Kind.DELETE, database, 4,
+                Duration.ofMillis(20), MAX_WAIT, Clock.systemDefaultZone());
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        Tasklet tasklet = (contribution, chunkContext) -> {
+            inTransaction.compareAndSet(false, TransactionSynchronizationManager.isActualTransactionActive());
+            return manager.execute(contribution, chunkContext);
+        };
+        Job job = new JobBuilder("processQuotesJob", jobRepository)
+                .start(new StepBuilder("deleteOldQuotesStep", jobRepository)
+                        .tasklet(tasklet, new DataSourceTransactionManager(database))
+                        .transactionAttribute(
+                                new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_NOT_SUPPORTED))
+                        .build())
+                .build();
+        // Finishes whatever the manager publishes
+        Thread worker = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                queue.claim("worker-0", Duration.ofMinutes(5)).ifPresent(item -> queue.complete(item, "worker-0"));
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        worker.start();
+        TaskExecutorJobLauncher jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+
+        JobExecution execution;
+        try {
+            execution = jobLauncher.run(job, new JobParameters());
+        } finally {
+            worker.interrupt();
+            worker.join();
+        }
+
+        assertThat(execution.getStatus()).as("failures: %s", execution.getAllFailureExceptions())
+                .isEqualTo(BatchStatus.COMPLETED);
+        assertThat(inTransaction).isFalse();
+    }
+
+    private RepeatStatus execute(QuoteWorkManagerTasklet tasklet) throws Exception {
+        return tasklet.execute(stepExecution.createStepContribution(), new ChunkContext(new StepContext(stepExecution)));
+    }
+
+    private QuoteWorkManagerTasklet tasklet(Instant now) {
+        Clock clock = Clock.fixed(now, ZoneId.systemDefault());
+        return new QuoteWorkManagerTasklet(new QuoteWorkQueue(database, clock), QuoteWorkItem.Kind.DELETE, database,
+                4, Duration.ZERO, MAX_WAIT, clock);
+    }
+}
@@ -0,0 +1,109 @@
+package com.batch.spring_batch.distributed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteWorkQueueTest {
+
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+    private static final Instant START = Instant.parse("2026-03-01T02:00:00Z");
+
+    private EmbeddedDatabase database;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        queueAt(START).publish("1:updateOptInStep", QuoteWorkItem.Kind.UPDATE,
+                List.of(new long[]{1, 100}, new long[]{101, 200}), LocalDateTime.of(2026, 3, 1, 2, 0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void skipsItemsLockedByAnotherClaim() throws Exception {
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            // Another worker is in the middle of claiming the first item
+            connection.setAutoCommit(false);
+            statement.executeQuery("SELECT work_id FROM batch_quote_work_item WHERE min_id = 1 FOR UPDATE");
+
+            Optional<QuoteWorkItem> claimed = queueAt(START).claim("worker-b", CLAIM_TIMEOUT);
+
+            assertThat(claimed).map(QuoteWorkItem::minId).contains(101L);
+            connection.rollback();
+        }
+    }
+
+    @Test
+    public void takesOverAClaimOnlyAfterItTimedOut() {
+        QuoteWorkQueue queue = queueAt(START);
+        QuoteWorkItem stalled = queue.claim("worker-a", CLAIM_TIMEOUT).orElseThrow();
+        assertThat(queue.progress(stalled, "worker-a", 50, 50)).isTrue();
+        queue.claim("worker-a", CLAIM_TIMEOUT).orElseThrow();
+
+        assertThat(queueAt(START.plus(Duration.ofMinutes(4))).claim("worker-b", CLAIM_TIMEOUT)).isEmpty();
+        QuoteWorkItem takenOver = queueAt(START.plus(Duration.ofMinutes(6))).claim("worker-b", CLAIM_TIMEOUT)
+                .orElseThrow();
+
+        assertThat(takenOver.workId()).isEqualTo(stalled.workId());
+        assertThat(takenOver.lastId()).isEqualTo(50);
+        assertThat(takenOver.attempts()).isEqualTo(2);
+        // The old owner's late chunk must not commit any more
+        assertThat(queue.progress(stalled, "worker-a", 60, 10)).isFalse();
+        assertThat(queue.complete(stalled, "worker-a")).isFalse();
+    }
+
+    @Test
+    public void failsAnItemForGoodAfterMaxAttempts() {
+        QuoteWorkQueue queue = queueAt(START);
+        QuoteWorkItem first = queue.claim("worker-a", CLAIM_TIMEOUT).orElseThrow();
+        queue.release(first, "worker-a", "boom", 2);
+        QuoteWorkItem second = queue.claim("worker-a", CLAIM_TIMEOUT).orElseThrow();
+        assertThat(second.workId()).isEqualTo(first.workId());
+        queue.release(second, "worker-a", "boom", 2);
+
+        assertThat(queue.summary("1:updateOptInStep")).isEqualTo(new QuoteWorkQueue.Summary(1, 1, 0, 2));
+        assertThat(queue.retryFailed("1:updateOptInStep")).isEqualTo(1);
+        assertThat(queue.summary("1:updateOptInStep").open()).isEqualTo(2);
+    }
+
+    @Test
+    public void summarisesFinishedItems() {
+        QuoteWorkQueue queue = queueAt(START);
+        for (int i = 0; i < 2; i++) {
+            QuoteWorkItem item = queue.claim("worker-a", CLAIM_TIMEOUT).orElseThrow();
+            queue.progress(item, "worker-a", item.maxId(), 7);
+            assertThat(queue.complete(item, "worker-a")).isTrue();
+        }
+
+        assertThat(queue.claim("worker-a", CLAIM_TIMEOUT)).isEmpty();
+        assertThat(queue.summary("1:updateOptInStep")).isEqualTo(new QuoteWorkQueue.Summary(0, 0, 14, 2));
+        queue.purge("1:updateOptInStep");
+        assertThat(queue.summary("1:updateOptInStep").total()).isZero();
+    }
+
+    private QuoteWorkQueue queueAt(Instant instant) {
+        return new QuoteWorkQueue(database, Clock.fixed(instant, ZoneId.of("UTC")));
+    }
+}
@@ -0,0 +1,61 @@
+package com.batch.spring_batch.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.batch.spring_batch.dto.Quote;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+public class QuoteStepMetricsListenerTest {
+
+    @Test
+    public void recordsChunkPhasesAndWrittenItems() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QuoteStepMetricsListener listener = new QuoteStepMetricsListener(registry);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(
+                MetaDataInstanceFactory.createJobExecution("job", 1L, 1L), "step", 1L);
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+        Quote quote = new Quote();
+
+        listener.beforeChunk(chunkContext);
+        for (int i = 0; i < 2; i++) {
+            listener.beforeRead();
+            listener.afterRead(quote);
+            listener.beforeProcess(quote);
+            listener.afterProcess(quote, quote);
+        }
+        Chunk<Quote> chunk = new Chunk<>(List.of(quote, quote));
+        listener.beforeWrite(chunk);
+        listener.afterWrite(chunk);
+        listener.afterChunk(chunkContext);
+
+        Timer chunkTimer = registry.get("quote.batch.chunk").tag("job", "job").tag("step", "step").timer();
+        assertThat(chunkTimer.count()).isEqualTo(1);
+        assertThat(registry.get("quote.batch.chunk.read").timer().count()).isEqualTo(1);
+        assertThat(registry.get("quote.batch.chunk.write").timer().totalTime(TimeUnit.NANOSECONDS))
+                .isLessThanOrEqualTo(chunkTimer.totalTime(TimeUnit.NANOSECONDS));
+        assertThat(registry.get("quote.batch.items.written").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void countsFailedChunks() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QuoteStepMetricsListener listener = new QuoteStepMetricsListener(registry);
+        StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(
+                MetaDataInstanceFactory.createJobExecution("job", 1L, 1L), "step", 1L);
+        ChunkContext chunkContext = new ChunkContext(new StepContext(stepExecution));
+
+        listener.beforeChunk(chunkContext);
+        listener.afterChunkError(chunkContext);
+
+        assertThat(registry.get("quote.batch.chunk.failed").counter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,39 @@
+package com.batch.spring_batch.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class ReplicaLagMeterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+            .generateUniqueName(true)
+            .setType(EmbeddedDatabaseType.H2)
+            .build();
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void publishesTheLagReportedByTheReplica() {
+        new ReplicaLagMeter(database, "SELECT 2.5", registry);
+
+        assertThat(registry.get("quote.batch.replica.lag").gauge().value()).isEqualTo(2.5);
+    }
+
+    @Test
+    public void reportsNaNWhenTheReplicaCannotBeAsked() {
+        // H2 knows none of the PostgreSQL replication functions
+        new ReplicaLagMeter(database, registry);
+
+        assertThat(registry.get("quote.batch.replica.lag").gauge().value()).isNaN();
+    }
+}
@@ -0,0 +1,47 @@
+package com.batch.spring_batch.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+public class StartupTimeRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void appendsOneLinePerStartBelowASingleHeader() throws Exception {
+        Path report = directory.resolve("reports/startup-times.csv");
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.aot.enabled", "true")
+                .withProperty("spring.main.lazy-initialization", "true");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new StartupTimeRecorder(report, environment, registry).afterSingletonsInstantiated();
+        new StartupTimeRecorder(report, new MockEnvironment(), new SimpleMeterRegistry()).afterSingletonsInstantiated();
+
+        List<String> lines = Files.readAllLines(report);
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).isEqualTo(StartupTimeRecorder.HEADER);
+        assertThat(lines.get(1)).matches(".+,true,false,true,\\d+");
+        assertThat(lines.get(2)).matches(".+,false,false,false,\\d+");
+        assertThat(registry.get("quote.batch.startup").timeGauge().value(TimeUnit.MILLISECONDS)).isPositive();
+    }
+
+    @Test
+    public void writesNoReportWithoutAPath() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new StartupTimeRecorder(null, new MockEnvironment(), registry).afterSingletonsInstantiated();
+
+        assertThat(registry.find("quote.batch.startup").timeGauge()).isNotNull();
+        assertThat(directory).isEmptyDirectory();
+    }
+}
@@ -0,0 +1,93 @@
+package com.batch.spring_batch.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.repository.support.ResourcelessJobRepository;
+import org.springframework.core.task.TaskRejectedException;
+
+public class BoundedJobLauncherTest {
+
+    @Test
+    public void rejectsALaunchOverTheLimitBeforeCreatingAnExecution() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JobLaunchTaskExecutor executor = new JobLaunchTaskExecutor(1, registry);
+        AtomicInteger created = new AtomicInteger();
+        ResourcelessJobRepository jobRepository = new ResourcelessJobRepository() {
+            @Override
+            public JobExecution createJobExecution(String jobName, JobParameters jobParameters) {
+                created.incrementAndGet();
+                return super.createJobExecution(jobName, jobParameters);
+            }
+        };
+        BoundedJobLauncher jobLauncher = new BoundedJobLauncher(executor);
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+        CountDownLatch release = new CountDownLatch(1);
+        Job job = new Job() {
+            @Override
+            public String getName() {
+                return "processQuotesJob";
+            }
+
+            @Override
+            public void execute(JobExecution execution) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                execution.setStatus(BatchStatus.COMPLETED);
+            }
+        };
+
+        jobLauncher.run(job, new JobParametersBuilder().addLong("run", 1L).toJobParameters());
+
+        assertThatThrownBy(() -> jobLauncher.run(job, new JobParametersBuilder().addLong("run", 2L).toJobParameters()))
+                .isInstanceOf(TaskRejectedException.class);
+        assertThat(created).hasValue(1);
+        assertThat(registry.get("quote.batch.job.rejected").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getRunningJobs() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.getRunningJobs()).isZero();
+    }
+
+    @Test
+    public void givesTheReservationBackWhenTheLaunchFailsEarly() {
+        JobLaunchTaskExecutor executor = new JobLaunchTaskExecutor(1, new SimpleMeterRegistry());
+        BoundedJobLauncher jobLauncher = new BoundedJobLauncher(executor);
+        jobLauncher.setJobRepository(new ResourcelessJobRepository() {
+            @Override
+            public JobExecution createJobExecution(String jobName, JobParameters jobParameters) {
+                throw new IllegalStateException("repository down");
+            }
+        });
+        Job job = new Job() {
+            @Override
+            public String getName() {
+                return "processQuotesJob";
+            }
+
+            @Override
+            public void execute(JobExecution execution) {
+            }
+        };
+
+        assertThatThrownBy(() -> jobLauncher.run(job, new JobParameters())).hasMessage("repository down");
+        assertThat(executor.getRunningJobs()).isZero();
+    }
+}
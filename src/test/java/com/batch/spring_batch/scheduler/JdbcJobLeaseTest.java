@@ -0,0 +1,100 @@
+package com.batch.spring_batch.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class JdbcJobLeaseTest {
+
+    private static final Duration TTL = Duration.ofMinutes(2);
+
+    private EmbeddedDatabase database;
+    private MutableClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+        clock = new MutableClock(Instant.parse("2026-01-05T10:00:00Z"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void onlyOneNodeHoldsTheLeaseUntilItExpires() {
+        JdbcJobLease nodeA = new JdbcJobLease(database, "job", "node-a", clock);
+        JdbcJobLease nodeB = new JdbcJobLease(database, "job", "node-b", clock);
+
+        assertThat(nodeA.tryAcquire(TTL)).isTrue();
+        assertThat(nodeB.tryAcquire(TTL)).isFalse();
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(nodeA.renew(TTL)).isTrue();
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(nodeB.tryAcquire(TTL)).isFalse();
+
+        // No heartbeat for longer than the TTL: node A is presumed dead
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(nodeB.tryAcquire(TTL)).isTrue();
+        assertThat(nodeA.renew(TTL)).isFalse();
+    }
+
+    @Test
+    public void releasedLeaseStaysBlockedForTheRestOfTheWindow() {
+        JdbcJobLease nodeA = new JdbcJobLease(database, "job", "node-a", clock);
+        JdbcJobLease nodeB = new JdbcJobLease(database, "job", "node-b", clock);
+        Instant acquiredAt = clock.instant();
+        assertThat(nodeA.tryAcquire(TTL)).isTrue();
+
+        clock.advance(Duration.ofSeconds(10));
+        nodeA.release(acquiredAt.plus(Duration.ofMinutes(1)));
+        assertThat(nodeB.tryAcquire(TTL)).isFalse();
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(nodeB.tryAcquire(TTL)).isTrue();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.batch.spring_batch.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+public class JobLaunchTaskExecutorTest {
+
+    @Test
+    public void rejectsLaunchesOverTheLimitWithoutBlocking() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JobLaunchTaskExecutor executor = new JobLaunchTaskExecutor(1, registry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+
+        assertThat(executor.getRunningJobs()).isEqualTo(1);
+        assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+        assertThat(registry.get("quote.batch.job.rejected").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        // The permit is released in the job thread's finally block, right after the task returns
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getRunningJobs() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(registry.get("quote.batch.job.running").gauge().value()).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,99 @@
+package com.batch.spring_batch.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.support.ResourcelessJobRepository;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+public class QuoteJobRunnerTest {
+
+    private static final Duration TTL = Duration.ofMinutes(2);
+
+    private EmbeddedDatabase database;
+    private final AtomicInteger launches = new AtomicInteger();
+    private final JobExecution execution = MetaDataInstanceFactory.createJobExecution();
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema-h2.sql")
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void waitsForTheRunAndReleasesTheLease() throws Exception {
+        QuoteJobRunner runner = runner(new JdbcJobLease(database, "processQuotesJob", "node-a", Clock.systemUTC()));
+
+        runner.run(null);
+
+        assertThat(launches).hasValue(1);
+        assertThat(runner.hasRun()).isTrue();
+        assertThat(runner.getExitCode()).isZero();
+        assertThat(new JdbcJobLease(database, "processQuotesJob", "node-b", Clock.systemUTC()).tryAcquire(TTL))
+                .isTrue();
+    }
+
+    @Test
+    public void skipsTheRunWhileAnotherNodeHoldsTheLease() throws Exception {
+        assertThat(new JdbcJobLease(database, "processQuotesJob", "node-b", Clock.systemUTC()).tryAcquire(TTL))
+                .isTrue();
+        QuoteJobRunner runner = runner(new JdbcJobLease(database, "processQuotesJob", "node-a", Clock.systemUTC()));
+
+        runner.run(null);
+
+        assertThat(launches).hasValue(0);
+        assertThat(runner.hasRun()).isTrue();
+        assertThat(runner.getExitCode()).isEqualTo(2);
+    }
+
+    private QuoteJobRunner runner(JdbcJobLease lease) {
+        // Returns like the async launcher, the execution finishes on the first poll
+        JobLauncher jobLauncher = (job, jobParameters) -> {
+            launches.incrementAndGet();
+            execution.setStatus(BatchStatus.STARTED);
+            return execution;
+        };
+        ResourcelessJobRepository jobRepository = new ResourcelessJobRepository() {
+            @Override
+            public JobExecution getLastJobExecution(String jobName, JobParameters jobParameters) {
+                return execution;
+            }
+        };
+        SingleFlightJobLauncher singleFlight = new SingleFlightJobLauncher(jobLauncher, jobRepository, lease, TTL,
+                Duration.ZERO, Clock.systemUTC(), new SimpleMeterRegistry());
+        Job job = new Job() {
+            @Override
+            public String getName() {
+                return "processQuotesJob";
+            }
+
+            @Override
+            public void execute(JobExecution execution) {
+            }
+        };
+        return new QuoteJobRunner(singleFlight, job, true, Duration.ofSeconds(30),
+                millis -> execution.setStatus(BatchStatus.COMPLETED));
+    }
+}
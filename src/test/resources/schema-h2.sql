@@ -10,3 +10,41 @@ CREATE TABLE quote (
     created_time TIMESTAMP,
     opt_in BOOLEAN
 );
+
+-- Scheduler lease, see db/quote/schema.sql
+CREATE TABLE IF NOT EXISTS batch_job_lease (
+    lease_name VARCHAR(100) NOT NULL PRIMARY KEY,
+    owner VARCHAR(200) NOT NULL,
+    acquired_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Incremental reader high-water marks, see db/quote/schema.sql
+CREATE TABLE IF NOT EXISTS batch_quote_watermark (
+    step_name VARCHAR(200) NOT NULL PRIMARY KEY,
+    high_water TIMESTAMP NOT NULL,
+    last_full_scan TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Distributed work items, see db/quote/schema.sql
+CREATE TABLE IF NOT EXISTS batch_quote_work_item (
+    work_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    batch_key VARCHAR(200) NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    min_id BIGINT NOT NULL,
+    max_id BIGINT NOT NULL,
+    last_id BIGINT NOT NULL,
+    run_time TIMESTAMP NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    owner VARCHAR(200),
+    attempts INT NOT NULL,
+    heartbeat_at TIMESTAMP WITH TIME ZONE,
+    write_count BIGINT NOT NULL,
+    error VARCHAR(2500),
+    stream_state TEXT
+);
+
+CREATE INDEX IF NOT EXISTS batch_quote_work_item_status_idx ON batch_quote_work_item (status, work_id);
+CREATE INDEX IF NOT EXISTS batch_quote_work_item_batch_idx ON batch_quote_work_item (batch_key);